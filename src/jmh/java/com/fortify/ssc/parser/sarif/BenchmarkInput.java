@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fortify.plugin.api.ScanBuilder;
+import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
+import com.fortify.plugin.api.StaticVulnerabilityBuilder;
+import com.fortify.plugin.api.VulnerabilityHandler;
+import com.fortify.ssc.parser.sarif.domain.RegionReader;
+import com.fortify.ssc.parser.sarif.domain.Result;
+import com.fortify.ssc.parser.sarif.domain.RunData;
+import com.fortify.ssc.parser.sarif.parser.ScanDataRegionReader;
+import com.fortify.ssc.parser.sarif.store.RunDataStore;
+import com.fortify.util.json.ExtendedJsonParser;
+
+/**
+ * Helper class for benchmarks, providing generated SARIF input documents, 
+ * {@link ScanData} for these documents, and no-op SSC handlers and builders.
+ */
+public final class BenchmarkInput {
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	private static final StaticVulnerabilityBuilder NO_OP_VULNERABILITY_BUILDER = noOpProxy(StaticVulnerabilityBuilder.class);
+	/** {@link ScanBuilder} that ignores all invocations */
+	public static final ScanBuilder NO_OP_SCAN_BUILDER = noOpProxy(ScanBuilder.class);
+	/** {@link VulnerabilityHandler} that returns a {@link StaticVulnerabilityBuilder} that ignores all invocations */
+	public static final VulnerabilityHandler NO_OP_VULNERABILITY_HANDLER = instanceId -> NO_OP_VULNERABILITY_BUILDER;
+	
+	private BenchmarkInput() {}
+	
+	/**
+	 * Generate a SARIF document in a temporary file using {@link SarifGenerator}. 
+	 * Each run uses the same rules and artifacts; the <code>results</code> array 
+	 * follows all other run properties.
+	 * @param runs Number of runs
+	 * @param resultsPerRun Number of results per run
+	 * @param rules Number of rules per run
+	 * @param artifacts Number of artifacts per run
+	 * @return Path to the generated document; the caller is responsible for deleting this file
+	 * @throws IOException
+	 */
+	public static final Path generate(int runs, int resultsPerRun, int rules, int artifacts) throws IOException {
+		return generate(new SarifGenerator.Options()
+				.setRuns(runs).setResultsPerRun(resultsPerRun).setRules(rules).setArtifacts(artifacts));
+	}
+	
+	/**
+	 * Generate a SARIF document in a temporary file using {@link SarifGenerator}
+	 * @param options
+	 * @return Path to the generated document; the caller is responsible for deleting this file
+	 * @throws IOException
+	 */
+	public static final Path generate(SarifGenerator.Options options) throws IOException {
+		Path path = Files.createTempFile("sarif-benchmark-", ".sarif");
+		try {
+			new SarifGenerator(options).write(path);
+		} catch ( IOException | RuntimeException e ) {
+			Files.deleteIfExists(path);
+			throw e;
+		}
+		return path;
+	}
+	
+	/**
+	 * @param index
+	 * @return Rule id for the rule with the given index in generated documents
+	 */
+	public static final String ruleId(int index) {
+		return SarifGenerator.ruleId(index);
+	}
+	
+	/**
+	 * @param path
+	 * @return {@link ScanData} instance providing the contents of the given file 
+	 */
+	public static final ScanData scanData(Path path) {
+		return new ScanData() {
+			@Override
+			public String getSessionId() {
+				return path.getFileName().toString();
+			}
+			
+			@Override
+			public List<ScanEntry> getScanEntries() {
+				return null;
+			}
+			
+			@Override
+			public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+				return Files.newInputStream(path);
+			}
+			
+			@Override
+			public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+				return Files.newInputStream(path);
+			}
+		};
+	}
+	
+	/**
+	 * Parse the first run in the given document into a {@link RunData} instance 
+	 * @param path
+	 * @param store used to store rules and artifacts, or null for deferred run data
+	 * @return {@link RunData} instance
+	 * @throws IOException
+	 */
+	public static final RunData readRunData(Path path, RunDataStore store) throws IOException {
+		try ( ExtendedJsonParser jsonParser = new ExtendedJsonParser(OBJECT_MAPPER.getFactory().createParser(path.toFile())) ) {
+			moveToFirstRun(jsonParser);
+			if ( store!=null ) {
+				return RunData.parseRunData(store, jsonParser);
+			} else {
+				RegionReader regionReader = new ScanDataRegionReader(scanData(path));
+				return RunData.parseDeferredRunData(regionReader, jsonParser);
+			}
+		}
+	}
+	
+	/**
+	 * Read all results from the first run in the given document
+	 * @param path
+	 * @return List of {@link Result} instances
+	 * @throws IOException
+	 */
+	public static final List<Result> readResults(Path path) throws IOException {
+		List<Result> results = new ArrayList<>();
+		try ( JsonParser jsonParser = OBJECT_MAPPER.getFactory().createParser(path.toFile()) ) {
+			moveToFirstRun(jsonParser);
+			while ( jsonParser.nextToken()==JsonToken.FIELD_NAME ) {
+				if ( "results".equals(jsonParser.getCurrentName()) ) {
+					jsonParser.nextToken();
+					while ( jsonParser.nextToken()==JsonToken.START_OBJECT ) {
+						results.add(jsonParser.readValueAs(Result.class));
+					}
+					break;
+				}
+				jsonParser.nextToken();
+				jsonParser.skipChildren();
+			}
+		}
+		return results;
+	}
+	
+	private static final void moveToFirstRun(JsonParser jsonParser) throws IOException {
+		jsonParser.nextToken();
+		while ( jsonParser.nextToken()==JsonToken.FIELD_NAME ) {
+			String name = jsonParser.getCurrentName();
+			jsonParser.nextToken();
+			if ( "runs".equals(name) ) {
+				jsonParser.nextToken();
+				return;
+			}
+			jsonParser.skipChildren();
+		}
+		throw new IOException("No runs found in "+jsonParser.getTokenLocation());
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static final <T> T noOpProxy(Class<T> type) {
+		return (T)Proxy.newProxyInstance(BenchmarkInput.class.getClassLoader(), new Class[] {type}, (proxy, method, args) -> null);
+	}
+}
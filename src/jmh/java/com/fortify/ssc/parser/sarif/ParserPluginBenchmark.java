@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanParsingException;
+import com.fortify.ssc.parser.sarif.SARIFParserConfig.RunDataStorage;
+
+/**
+ * End-to-end benchmarks for {@link SARIFParserPlugin#parseScan(ScanData, com.fortify.plugin.api.ScanBuilder)}
+ * and {@link SARIFParserPlugin#parseVulnerabilities(ScanData, com.fortify.plugin.api.VulnerabilityHandler)}
+ * on a generated SARIF document. Throughput is reported as results per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParserPluginBenchmark {
+	private static final int RUNS = 2;
+	private static final int RESULTS_PER_RUN = 25_000;
+	private static final int RESULTS = RUNS*RESULTS_PER_RUN;
+	
+	@Param({"tiered", "heap", "deferred"})
+	private String runDataStorage;
+	
+	@Param({"1", "4"})
+	private int resultProcessingThreads;
+	
+	private Path input;
+	private ScanData scanData;
+	private SARIFParserPlugin plugin;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		input = BenchmarkInput.generate(RUNS, RESULTS_PER_RUN, 500, 2_000);
+		scanData = BenchmarkInput.scanData(input);
+		plugin = new SARIFParserPlugin(new SARIFParserConfig()
+				.setRunDataStorage(RunDataStorage.valueOf(runDataStorage))
+				.setResultProcessingThreads(resultProcessingThreads));
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(input);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(RESULTS)
+	public void parseScan() throws ScanParsingException, IOException {
+		plugin.parseScan(scanData, BenchmarkInput.NO_OP_SCAN_BUILDER);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(RESULTS)
+	public void parseVulnerabilities() throws ScanParsingException, IOException {
+		plugin.parseVulnerabilities(scanData, BenchmarkInput.NO_OP_VULNERABILITY_HANDLER);
+	}
+}
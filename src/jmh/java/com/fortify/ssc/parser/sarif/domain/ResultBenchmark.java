@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fortify.ssc.parser.sarif.BenchmarkInput;
+import com.fortify.ssc.parser.sarif.store.HeapRunDataStore;
+import com.fortify.ssc.parser.sarif.store.RunDataStore;
+
+/**
+ * Benchmarks for the {@link Result} methods that combine result data with
+ * {@link RunData}, invoked for every result being imported. 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResultBenchmark {
+	private static final int RESULTS = 10_000;
+	
+	private Path input;
+	private RunDataStore store;
+	private RunData runData;
+	private List<Result> results;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		input = BenchmarkInput.generate(1, RESULTS, 500, 2_000);
+		store = new HeapRunDataStore();
+		runData = BenchmarkInput.readRunData(input, store);
+		results = BenchmarkInput.readResults(input);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		store.close();
+		Files.deleteIfExists(input);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(RESULTS)
+	public void resolveMessage(Blackhole blackhole) {
+		for ( Result result : results ) {
+			blackhole.consume(result.resolveMessage(result.getMessage(), runData));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(RESULTS)
+	public void resolveRule(Blackhole blackhole) {
+		for ( Result result : results ) {
+			blackhole.consume(result.resolveRule(runData));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(RESULTS)
+	public void resolveFullFileName(Blackhole blackhole) {
+		for ( Result result : results ) {
+			blackhole.consume(result.resolveFullFileName(runData, "Unknown"));
+		}
+	}
+}
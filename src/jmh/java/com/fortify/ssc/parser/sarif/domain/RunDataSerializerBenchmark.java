@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.mapdb.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fortify.ssc.parser.sarif.BenchmarkInput;
+import com.fortify.ssc.parser.sarif.store.HeapRunDataStore;
+import com.fortify.ssc.parser.sarif.store.MapDBRunDataStore;
+import com.fortify.ssc.parser.sarif.store.RunDataStore;
+
+/**
+ * Benchmarks comparing rule and artifact lookups from off-heap MapDB collections
+ * using Java serialization ({@link Serializer#JAVA}) against the compact serializers
+ * provided by {@link ReportingDescriptor#SERIALIZER} and {@link Artifact#SERIALIZER}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RunDataSerializerBenchmark {
+	private static final int RULES = 5_000;
+	private static final int ARTIFACTS = 20_000;
+	private static final int LOOKUPS = 1_024;
+	
+	@Param({"java", "compact"})
+	private String serializer;
+	
+	@Param({"direct", "file"})
+	private String storage;
+	
+	private Path input;
+	private RunDataStore store;
+	private List<ReportingDescriptor> rules;
+	private List<Artifact> artifacts;
+	private int[] ruleIndexes;
+	private int[] artifactIndexes;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		input = BenchmarkInput.generate(1, 1, RULES, ARTIFACTS);
+		store = "file".equals(storage) ? MapDBRunDataStore.tempFile() : MapDBRunDataStore.directMemory();
+		boolean java = "java".equals(serializer);
+		rules = store.createList("rules", java ? javaSerializer() : ReportingDescriptor.SERIALIZER);
+		artifacts = store.createList("artifacts", java ? javaSerializer() : Artifact.SERIALIZER);
+		try ( RunDataStore heapStore = new HeapRunDataStore() ) {
+			RunData runData = BenchmarkInput.readRunData(input, heapStore);
+			for ( int i = 0 ; i < RULES ; i++ ) { rules.add(runData.getRuleByIndex(i)); }
+			for ( int i = 0 ; i < ARTIFACTS ; i++ ) { artifacts.add(runData.getArtifactByIndex(i)); }
+		}
+		Random random = new Random(42);
+		ruleIndexes = new int[LOOKUPS];
+		artifactIndexes = new int[LOOKUPS];
+		for ( int i = 0 ; i < LOOKUPS ; i++ ) {
+			ruleIndexes[i] = random.nextInt(RULES);
+			artifactIndexes[i] = random.nextInt(ARTIFACTS);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static final <T> Serializer<T> javaSerializer() {
+		return (Serializer<T>)Serializer.JAVA;
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		store.close();
+		Files.deleteIfExists(input);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public void getRule(Blackhole blackhole) {
+		for ( int index : ruleIndexes ) {
+			blackhole.consume(rules.get(index));
+		}
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public void getArtifact(Blackhole blackhole) {
+		for ( int index : artifactIndexes ) {
+			blackhole.consume(artifacts.get(index));
+		}
+	}
+}
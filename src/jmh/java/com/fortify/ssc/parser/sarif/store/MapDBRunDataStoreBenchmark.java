@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fortify.ssc.parser.sarif.BenchmarkInput;
+import com.fortify.ssc.parser.sarif.domain.RunData;
+import com.fortify.ssc.parser.sarif.store.MapDBRunDataStore.SharedDB;
+
+/**
+ * Benchmarks for storing the rules and artifacts of many small SARIF runs, as 
+ * produced by some SARIF aggregators, comparing a new {@link MapDBRunDataStore} 
+ * per run against run-scoped stores created from a single {@link SharedDB}. 
+ * Throughput is reported as runs per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MapDBRunDataStoreBenchmark {
+	private static final int RUNS = 200;
+	
+	@Param({"direct", "file"})
+	private String storage;
+	
+	@Param({"perRun", "shared"})
+	private String mode;
+	
+	private Path input;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		input = BenchmarkInput.generate(1, 1, 20, 50);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(input);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(RUNS)
+	public void readRuns(Blackhole blackhole) throws IOException {
+		try ( SharedDB sharedDB = "file".equals(storage) ? SharedDB.tempFile() : SharedDB.directMemory() ) {
+			for ( int i = 0 ; i < RUNS ; i++ ) {
+				try ( RunDataStore store = createStore(sharedDB) ) {
+					RunData runData = BenchmarkInput.readRunData(input, store);
+					blackhole.consume(runData.getRuleByIndex(i%20));
+				}
+			}
+		}
+	}
+	
+	private RunDataStore createStore(SharedDB sharedDB) {
+		if ( "shared".equals(mode) ) {
+			return sharedDB.createStore();
+		}
+		return "file".equals(storage) ? MapDBRunDataStore.tempFile() : MapDBRunDataStore.directMemory();
+	}
+}
@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fortify.plugin.api.BasicVulnerabilityBuilder.Priority;
+import com.fortify.ssc.parser.sarif.domain.Level;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * This class holds the configuration settings for the SARIF parser plugin. 
+ * Instances returned by {@link #fromSystemProperties()} will load each setting
+ * from the corresponding system property prefixed with {@value #PROPERTY_PREFIX},
+ * allowing the plugin to be tuned through the SSC JVM options, for example 
+ * <code>-Dcom.fortify.ssc.parser.sarif.runDataStorage=deferred</code>. Any 
+ * settings that are not explicitly configured use the defaults defined in
+ * this class.
+ */
+@Getter @Setter @Accessors(chain = true)
+public final class SARIFParserConfig {
+	private static final Logger LOG = LoggerFactory.getLogger(SARIFParserConfig.class);
+	public static final String PROPERTY_PREFIX = "com.fortify.ssc.parser.sarif.";
+	
+	/**
+	 * Storage approach for SARIF rules and artifacts; see {@link RunDataStorage} 
+	 */
+	private RunDataStorage runDataStorage = RunDataStorage.tiered;
+	/**
+	 * For {@link RunDataStorage#tiered} storage, maximum number of rules, artifacts 
+	 * and index entries to keep on-heap before moving them to direct memory
+	 */
+	private long heapStorageMaxEntries = 20_000;
+	/**
+	 * For {@link RunDataStorage#tiered} storage, maximum estimated size in bytes 
+	 * of rules and artifacts to keep on-heap before moving them to direct memory
+	 */
+	private long heapStorageMaxBytes = 16L*1024*1024;
+	/**
+	 * For {@link RunDataStorage#tiered} storage, maximum estimated size in bytes 
+	 * of rules and artifacts to keep in direct memory before moving them to a
+	 * temporary file
+	 */
+	private long directStorageMaxBytes = 128L*1024*1024;
+	/**
+	 * If larger than 0, input documents stored as local files are read through
+	 * memory-mapped windows of at most this number of bytes. If 0, such documents
+	 * are read through positional file channel reads. In both cases, skipping to 
+	 * a region of the input document doesn't read the preceding file contents.
+	 */
+	private int inputMapWindowBytes = 0;
+	/**
+	 * Whether to process results while reading a run for the first time, if
+	 * the run data referenced by these results precedes the <code>results</code>
+	 * array. If disabled, or if results precede any referenced run data, the
+	 * <code>results</code> array is re-read after reading the full run.
+	 */
+	private boolean singlePassResults = true;
+	/**
+	 * Number of worker threads for decoding results and producing vulnerabilities. 
+	 * If larger than 1, results are processed in batches by a worker pool, with 
+	 * the produced vulnerabilities being passed to SSC in input order on the 
+	 * importing thread. As results are decoded by the worker threads from the
+	 * re-read <code>results</code> array, this disables {@link #singlePassResults}.
+	 * If 1, results are processed on the importing thread.
+	 */
+	private int resultProcessingThreads = 1;
+	/**
+	 * If {@link #resultProcessingThreads} is larger than 1, number of results
+	 * to be processed as a single batch by a worker thread 
+	 */
+	private int resultBatchSize = 256;
+	/**
+	 * Number of SARIF runs to process concurrently. If larger than 1, the input
+	 * document is scanned for runs, and each run is parsed and processed on a 
+	 * separate worker thread, with produced vulnerabilities being passed to SSC 
+	 * in input order on the importing thread. Results within a single run are 
+	 * processed sequentially by the worker thread for that run, ignoring 
+	 * {@link #resultProcessingThreads}. For compressed input, runs are processed
+	 * sequentially, with results being processed by this number of threads as
+	 * for {@link #resultProcessingThreads}.
+	 */
+	private int runProcessingThreads = 1;
+	/**
+	 * Number of worker threads for processing a single, large <code>results</code>
+	 * array. If larger than 1, the <code>results</code> array is split into shards
+	 * on result boundaries, and each shard is re-read and processed on a separate 
+	 * worker thread, with produced vulnerabilities being passed to SSC in input 
+	 * order on the importing thread. As sharding requires the <code>results</code> 
+	 * array to be re-read, this disables {@link #singlePassResults}. Ignored if
+	 * {@link #runProcessingThreads} is larger than 1. For compressed input, results
+	 * are not sharded but processed by this number of threads as for 
+	 * {@link #resultProcessingThreads}.
+	 */
+	private int resultShardingThreads = 1;
+	/**
+	 * If {@link #resultShardingThreads} is larger than 1, minimum size in bytes
+	 * of a single shard. Results arrays smaller than twice this size are not 
+	 * sharded.
+	 */
+	private long resultShardMinBytes = 1024L*1024;
+	/**
+	 * Number of SARIF documents to process concurrently for uploads that contain
+	 * multiple SARIF documents, like zip bundles. If larger than 1, every document 
+	 * is parsed and processed on a separate worker thread, with produced 
+	 * vulnerabilities being passed to SSC in document order on the importing 
+	 * thread. Runs and results within a single document are processed sequentially 
+	 * by the worker thread for that document, ignoring {@link #runProcessingThreads},
+	 * {@link #resultShardingThreads} and {@link #resultProcessingThreads}. If 1, 
+	 * documents are processed one after another on the importing thread.
+	 */
+	private int scanEntryProcessingThreads = 1;
+	/**
+	 * Maximum number of result properties to read ahead while looking for the
+	 * result <code>kind</code>, allowing results with a <code>kind</code> that
+	 * never produces a vulnerability (like <code>pass</code>) to be skipped without 
+	 * decoding the full result. Properties preceding <code>kind</code> are buffered; 
+	 * if <code>kind</code> doesn't appear within this number of properties, the 
+	 * result is decoded as usual. Set to 0 to decode every result.
+	 */
+	private int resultKindLookahead = 4;
+	/**
+	 * If not null, only import results with an effective SARIF level (result level,
+	 * or default level of the referenced rule) equal to or higher than this level,
+	 * ordered as <code>none</code>, <code>note</code>, <code>warning</code>, <code>error</code>
+	 */
+	private Level minimumLevel = null;
+	/**
+	 * If not null, only import results with an effective Fortify priority equal 
+	 * to or higher than this priority
+	 */
+	private Priority minimumPriority = null;
+	/**
+	 * If not empty, only import results for the given rule id's
+	 */
+	private Set<String> includeRuleIds = Collections.emptySet();
+	/**
+	 * Don't import results for the given rule id's
+	 */
+	private Set<String> excludeRuleIds = Collections.emptySet();
+	/**
+	 * If not empty, only import results with a file name matching any of the given
+	 * globs, for example <code>src/main/**</code>; see {@link #excludePaths} 
+	 */
+	private Set<String> includePaths = Collections.emptySet();
+	/**
+	 * Don't import results with a file name matching any of the given globs. Within
+	 * a glob, <code>**</code> matches any number of directories, <code>*</code> matches 
+	 * any number of characters within a single file or directory name, and <code>?</code> 
+	 * matches a single character within a file or directory name.
+	 */
+	private Set<String> excludePaths = Collections.emptySet();
+	/**
+	 * Don't import results with any of the given <code>baselineState</code> values, 
+	 * for example <code>absent</code> or <code>unchanged</code>
+	 */
+	private Set<String> excludeBaselineStates = Collections.emptySet();
+	/**
+	 * Whether to skip results that have been suppressed, i.e. results with at least 
+	 * one <code>suppressions</code> entry with status <code>accepted</code> or without
+	 * status
+	 */
+	private boolean excludeSuppressed = false;
+	/**
+	 * For {@link RunDataStorage#deferred} storage, number of milliseconds to keep
+	 * the run index built while parsing scan information, for re-use when parsing 
+	 * vulnerabilities for the same upload. Set to 0 to disable run index caching.
+	 */
+	private long runIndexCacheTtlMillis = 10L*60*1000;
+	/**
+	 * Maximum number of run indexes to cache; see {@link #runIndexCacheTtlMillis}
+	 */
+	private int runIndexCacheMaxEntries = 16;
+	/**
+	 * Number of slots in the string pool used to de-duplicate repeated vulnerability 
+	 * field values like file names, categories and messages during a single import,
+	 * also limiting the number of file names cached by artifact index for each run.
+	 * Set to 0 to disable string pooling.
+	 */
+	private int stringPoolSize = 16*1024;
+	
+	/**
+	 * Create a {@link SARIFParserConfig} instance, loading configuration 
+	 * settings from system properties.
+	 * @return {@link SARIFParserConfig} instance
+	 */
+	public static final SARIFParserConfig fromSystemProperties() {
+		SARIFParserConfig config = new SARIFParserConfig();
+		return config
+			.setRunDataStorage(getEnumProperty("runDataStorage", RunDataStorage.class, config.getRunDataStorage()))
+			.setHeapStorageMaxEntries(getLongProperty("heapStorageMaxEntries", config.getHeapStorageMaxEntries()))
+			.setHeapStorageMaxBytes(getLongProperty("heapStorageMaxBytes", config.getHeapStorageMaxBytes()))
+			.setDirectStorageMaxBytes(getLongProperty("directStorageMaxBytes", config.getDirectStorageMaxBytes()))
+			.setInputMapWindowBytes(getIntProperty("inputMapWindowBytes", config.getInputMapWindowBytes()))
+			.setSinglePassResults(getBooleanProperty("singlePassResults", config.isSinglePassResults()))
+			.setResultProcessingThreads(getIntProperty("resultProcessingThreads", config.getResultProcessingThreads()))
+			.setResultBatchSize(getIntProperty("resultBatchSize", config.getResultBatchSize()))
+			.setRunProcessingThreads(getIntProperty("runProcessingThreads", config.getRunProcessingThreads()))
+			.setResultShardingThreads(getIntProperty("resultShardingThreads", config.getResultShardingThreads()))
+			.setResultShardMinBytes(getLongProperty("resultShardMinBytes", config.getResultShardMinBytes()))
+			.setScanEntryProcessingThreads(getIntProperty("scanEntryProcessingThreads", config.getScanEntryProcessingThreads()))
+			.setResultKindLookahead(getIntProperty("resultKindLookahead", config.getResultKindLookahead()))
+			.setMinimumLevel(getEnumProperty("minimumLevel", Level.class, config.getMinimumLevel()))
+			.setMinimumPriority(getEnumProperty("minimumPriority", Priority.class, config.getMinimumPriority()))
+			.setIncludeRuleIds(getSetProperty("includeRuleIds", config.getIncludeRuleIds()))
+			.setExcludeRuleIds(getSetProperty("excludeRuleIds", config.getExcludeRuleIds()))
+			.setIncludePaths(getSetProperty("includePaths", config.getIncludePaths()))
+			.setExcludePaths(getSetProperty("excludePaths", config.getExcludePaths()))
+			.setExcludeBaselineStates(getSetProperty("excludeBaselineStates", config.getExcludeBaselineStates()))
+			.setExcludeSuppressed(getBooleanProperty("excludeSuppressed", config.isExcludeSuppressed()))
+			.setRunIndexCacheTtlMillis(getLongProperty("runIndexCacheTtlMillis", config.getRunIndexCacheTtlMillis()))
+			.setRunIndexCacheMaxEntries(getIntProperty("runIndexCacheMaxEntries", config.getRunIndexCacheMaxEntries()))
+			.setStringPoolSize(getIntProperty("stringPoolSize", config.getStringPoolSize()));
+	}
+	
+	private static final int getIntProperty(String name, int defaultValue) {
+		long value = getLongProperty(name, defaultValue);
+		if ( value<Integer.MIN_VALUE || value>Integer.MAX_VALUE ) {
+			LOG.warn("Ignoring {}{}: '{}' is out of range", PROPERTY_PREFIX, name, value);
+			return defaultValue;
+		}
+		return (int)value;
+	}
+	
+	private static final boolean getBooleanProperty(String name, boolean defaultValue) {
+		String value = System.getProperty(PROPERTY_PREFIX+name);
+		if ( StringUtils.isNotBlank(value) ) {
+			value = value.trim();
+			if ( "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value) ) {
+				return Boolean.parseBoolean(value);
+			}
+			LOG.warn("Ignoring {}{}: '{}' is not a valid boolean", PROPERTY_PREFIX, name, value);
+		}
+		return defaultValue;
+	}
+	
+	private static final long getLongProperty(String name, long defaultValue) {
+		String value = System.getProperty(PROPERTY_PREFIX+name);
+		if ( StringUtils.isNotBlank(value) ) {
+			try {
+				return Long.parseLong(value.trim());
+			} catch ( NumberFormatException nfe ) {
+				LOG.warn("Ignoring {}{}: '{}' is not a valid number", PROPERTY_PREFIX, name, value);
+			}
+		}
+		return defaultValue;
+	}
+	
+	/**
+	 * Get a comma-separated list of values from the given system property
+	 */
+	private static final Set<String> getSetProperty(String name, Set<String> defaultValue) {
+		String value = System.getProperty(PROPERTY_PREFIX+name);
+		if ( StringUtils.isNotBlank(value) ) {
+			Set<String> result = new LinkedHashSet<>();
+			for ( String entry : value.split(",") ) {
+				if ( StringUtils.isNotBlank(entry) ) { result.add(entry.trim()); }
+			}
+			return result;
+		}
+		return defaultValue;
+	}
+	
+	private static final <E extends Enum<E>> E getEnumProperty(String name, Class<E> type, E defaultValue) {
+		String value = System.getProperty(PROPERTY_PREFIX+name);
+		if ( StringUtils.isNotBlank(value) ) {
+			try {
+				return Enum.valueOf(type, value.trim());
+			} catch ( IllegalArgumentException iae ) {
+				LOG.warn("Ignoring {}{}: '{}' is not a valid value", PROPERTY_PREFIX, name, value);
+			}
+		}
+		return defaultValue;
+	}
+	
+	/**
+	 * Define the possible approaches for storing SARIF rules and artifacts
+	 * while processing the results of a single run.
+	 */
+	public enum RunDataStorage {
+		/**
+		 * Start storing rules and artifacts on-heap, moving them to direct memory
+		 * and then to a temporary file once the configured thresholds are exceeded
+		 */
+		tiered,
+		/**
+		 * Store rules and artifacts on-heap
+		 */
+		heap,
+		/**
+		 * Store rules and artifacts in direct (off-heap) memory
+		 */
+		direct,
+		/**
+		 * Store rules and artifacts in a temporary disk-backed database
+		 */
+		file,
+		/**
+		 * Store only the input document offsets of rules and artifacts, 
+		 * and re-read individual entries from the input document on demand 
+		 */
+		deferred
+	}
+}
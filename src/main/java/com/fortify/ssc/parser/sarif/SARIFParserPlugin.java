@@ -10,6 +10,14 @@ import com.fortify.plugin.api.ScanData;
 import com.fortify.plugin.api.ScanParsingException;
 import com.fortify.plugin.api.VulnerabilityHandler;
 import com.fortify.plugin.spi.ParserPlugin;
+import com.fortify.ssc.parser.sarif.metrics.LoggingParserMetricsListener;
+import com.fortify.ssc.parser.sarif.metrics.MeteredScanData;
+import com.fortify.ssc.parser.sarif.metrics.ParserMetrics;
+import com.fortify.ssc.parser.sarif.metrics.ParserMetrics.Phase;
+import com.fortify.ssc.parser.sarif.metrics.ParserMetricsListener;
+import com.fortify.ssc.parser.sarif.parser.FileChannelScanData;
+import com.fortify.ssc.parser.sarif.parser.GzipScanData;
+import com.fortify.ssc.parser.sarif.parser.RunIndexCache;
 import com.fortify.ssc.parser.sarif.parser.ScanParser;
 import com.fortify.ssc.parser.sarif.parser.VulnerabilitiesParser;
 
@@ -25,6 +33,39 @@ import com.fortify.ssc.parser.sarif.parser.VulnerabilitiesParser;
  */
 public class SARIFParserPlugin implements ParserPlugin<CustomVulnAttribute> {
     private static final Logger LOG = LoggerFactory.getLogger(SARIFParserPlugin.class);
+    private final SARIFParserConfig config;
+    private final ParserMetricsListener metricsListener;
+    private final RunIndexCache runIndexCache;
+    
+    /**
+     * Default constructor, loading the plugin configuration from system properties.
+     */
+    public SARIFParserPlugin() {
+    	this(SARIFParserConfig.fromSystemProperties());
+    }
+    
+    /**
+     * Constructor for using the given {@link SARIFParserConfig}, logging
+     * a metrics summary for every import.
+     * @param config
+     */
+    public SARIFParserPlugin(final SARIFParserConfig config) {
+    	this(config, new LoggingParserMetricsListener());
+    }
+    
+    /**
+     * Constructor for using the given {@link SARIFParserConfig} and 
+     * {@link ParserMetricsListener}.
+     * @param config
+     * @param metricsListener to be notified of the metrics collected for every import
+     */
+    public SARIFParserPlugin(final SARIFParserConfig config, final ParserMetricsListener metricsListener) {
+    	this.config = config;
+    	this.metricsListener = metricsListener;
+    	this.runIndexCache = config.getRunIndexCacheTtlMillis()>0 && config.getRunIndexCacheMaxEntries()>0
+    			? new RunIndexCache(config.getRunIndexCacheTtlMillis(), config.getRunIndexCacheMaxEntries()) 
+    			: null;
+    }
 
     @Override
     public void start() throws Exception {
@@ -34,6 +75,9 @@ public class SARIFParserPlugin implements ParserPlugin<CustomVulnAttribute> {
     @Override
     public void stop() throws Exception {
         LOG.info("SARIF parser plugin is stopping");
+        if ( runIndexCache!=null ) {
+            runIndexCache.clear();
+        }
     }
 
     @Override
@@ -43,11 +87,44 @@ public class SARIFParserPlugin implements ParserPlugin<CustomVulnAttribute> {
 
     @Override
     public void parseScan(final ScanData scanData, final ScanBuilder scanBuilder) throws ScanParsingException, IOException {
-        new ScanParser(scanData, scanBuilder).parse();
+        ParserMetrics metrics = new ParserMetrics("parseScan", scanData.getSessionId());
+        boolean succeeded = false;
+        try {
+            long startNanos = System.nanoTime();
+            new ScanParser(wrap(scanData, metrics), scanBuilder, config, runIndexCache).parse();
+            metrics.addPhaseNanos(Phase.scan, System.nanoTime()-startNanos);
+            succeeded = true;
+        } finally {
+            reportMetrics(metrics, succeeded);
+        }
     }
 
 	@Override
 	public void parseVulnerabilities(final ScanData scanData, final VulnerabilityHandler vulnerabilityHandler) throws ScanParsingException, IOException {
-		new VulnerabilitiesParser(scanData, vulnerabilityHandler).parse();
+		ParserMetrics metrics = new ParserMetrics("parseVulnerabilities", scanData.getSessionId());
+		boolean succeeded = false;
+		try {
+			new VulnerabilitiesParser(wrap(scanData, metrics), vulnerabilityHandler, config, metrics, runIndexCache).parse();
+			succeeded = true;
+		} finally {
+			reportMetrics(metrics, succeeded);
+		}
+	}
+	
+	/**
+	 * Wrap the given {@link ScanData} instance for reading local files through their
+	 * file channel, registering input metrics, and decompressing gzip-compressed input.
+	 */
+	private ScanData wrap(ScanData scanData, ParserMetrics metrics) {
+		return new GzipScanData(new MeteredScanData(new FileChannelScanData(scanData, config.getInputMapWindowBytes()), metrics));
+	}
+	
+	private void reportMetrics(ParserMetrics metrics, boolean succeeded) {
+		metrics.complete(succeeded);
+		try {
+			metricsListener.importCompleted(metrics);
+		} catch ( RuntimeException e ) {
+			LOG.warn("Error reporting SARIF parser metrics", e);
+		}
 	}
 }
@@ -24,8 +24,13 @@
  ******************************************************************************/
 package com.fortify.ssc.parser.sarif.domain;
 
+import java.io.IOException;
 import java.io.Serializable;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.Getter;
@@ -33,6 +38,7 @@ import lombok.Getter;
 @Getter
 public final class Artifact implements Serializable {
 	private static final long serialVersionUID = 1L;
+	public static final Serializer<Artifact> SERIALIZER = new CompactSerializer();
 	@JsonProperty private ArtifactLocation location;
 	// @JsonProperty private Integer parentIndex;
 	// @JsonProperty private Integer offset;
@@ -45,4 +51,18 @@ public final class Artifact implements Serializable {
 	// @JsonProperty private Map<String, String> hashes;
 	// @JsonProperty private Date lastModifiedTimeUtc;
 	// @JsonProperty private String description;
+	
+	private static final class CompactSerializer implements Serializer<Artifact> {
+		@Override
+		public void serialize(DataOutput2 out, Artifact value) throws IOException {
+			SerializerHelper.writeNullable(out, value.location, ArtifactLocation.SERIALIZER);
+		}
+		
+		@Override
+		public Artifact deserialize(DataInput2 in, int available) throws IOException {
+			Artifact result = new Artifact();
+			result.location = SerializerHelper.readNullable(in, ArtifactLocation.SERIALIZER);
+			return result;
+		}
+	}
 }
\ No newline at end of file
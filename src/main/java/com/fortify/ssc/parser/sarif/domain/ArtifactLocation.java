@@ -24,10 +24,15 @@
  ******************************************************************************/
 package com.fortify.ssc.parser.sarif.domain;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.URI;
 import java.nio.file.Paths;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
@@ -36,6 +41,7 @@ import lombok.Getter;
 @Getter
 public final class ArtifactLocation implements Serializable {
 	private static final long serialVersionUID = 1L;
+	public static final Serializer<ArtifactLocation> SERIALIZER = new CompactSerializer();
 	@JsonProperty 
 	@JsonDeserialize(using = URIDeserializer.class)
 	private URI uri;
@@ -43,20 +49,21 @@ public final class ArtifactLocation implements Serializable {
 	@JsonProperty private Integer index;
 	// @JsonProperty private Message description;
 	
-	private URI resolveURI(RunData runData) {
-		URI result = this.uri;
-		ArtifactLocation baseLocation = runData.getBaseLocation(uriBaseId);
-		if (baseLocation!=null) {
-			URI baseUri = baseLocation.resolveURI(runData);
-			if ( baseUri != null ) {
-				result = baseUri.resolve(result);
-			}
-		}
-		return result;
+	public String getFullFileName(RunData runData) {
+		return getFullFileName(runData, uri, uriBaseId);
 	}
 	
-	public String getFullFileName(RunData runData) {
-		URI resolvedURI = resolveURI(runData);
+	/**
+	 * Get the full file name for the given URI, resolved against the base URI
+	 * for the given uriBaseId. Base URI's are resolved only once per run by
+	 * {@link RunData#getResolvedBaseURI(String)}.
+	 */
+	static String getFullFileName(RunData runData, URI uri, String uriBaseId) {
+		URI resolvedURI = uri;
+		URI baseUri = runData.getResolvedBaseURI(uriBaseId);
+		if ( baseUri!=null && resolvedURI!=null ) {
+			resolvedURI = baseUri.resolve(resolvedURI);
+		}
 		if ( resolvedURI==null ) { return null; }
 		try {
 			return Paths.get(resolvedURI).toString();
@@ -67,4 +74,22 @@ public final class ArtifactLocation implements Serializable {
 			return resolvedURI.toString();
 		}
 	}
+	
+	private static final class CompactSerializer implements Serializer<ArtifactLocation> {
+		@Override
+		public void serialize(DataOutput2 out, ArtifactLocation value) throws IOException {
+			SerializerHelper.writeURI(out, value.uri);
+			SerializerHelper.writeString(out, value.uriBaseId);
+			SerializerHelper.writeInteger(out, value.index);
+		}
+		
+		@Override
+		public ArtifactLocation deserialize(DataInput2 in, int available) throws IOException {
+			ArtifactLocation result = new ArtifactLocation();
+			result.uri = SerializerHelper.readURI(in);
+			result.uriBaseId = SerializerHelper.readString(in);
+			result.index = SerializerHelper.readInteger(in);
+			return result;
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import lombok.Getter;
+
+/**
+ * This class holds the source and sink locations of a result, as described by
+ * the result's <code>codeFlows</code> property. Taint-tracking tools may report 
+ * hundreds of thread flow locations per result, so rather than binding the full 
+ * <code>codeFlows</code> array, our {@link Deserializer} streams through the
+ * <code>codeFlows[].threadFlows[].locations[]</code> entries, only keeping the 
+ * first and last locations that refer to a file. Memory usage per result is thus 
+ * independent of the number of code flows, thread flows and locations.
+ * 
+ * <p>Only the first thread flow that contains at least one location referring to 
+ * a file is taken into account; any other thread flows and code flows are skipped 
+ * at the token level.</p>
+ */
+@Getter
+@JsonDeserialize(using=CodeFlowSummary.Deserializer.class)
+public final class CodeFlowSummary {
+	private static final Logger LOG = LoggerFactory.getLogger(CodeFlowSummary.class);
+	/** First location in the thread flow that refers to a file */
+	private FlowLocation source;
+	/** Last location in the thread flow that refers to a file, or null if same as {@link #source} */
+	private FlowLocation lastLocation;
+	/** Number of thread flow locations that refer to a file */
+	private int locationCount;
+	
+	/**
+	 * @return Last location in the thread flow that refers to a file; this is
+	 *         the same as {@link #getSource()} if the thread flow only contains
+	 *         a single location that refers to a file
+	 */
+	public final FlowLocation getSink() {
+		return lastLocation!=null ? lastLocation : source;
+	}
+	
+	/**
+	 * This class holds the properties of a single thread flow location that are
+	 * used for generating vulnerabilities.
+	 */
+	@Getter
+	public static final class FlowLocation {
+		private PhysicalLocation physicalLocation;
+		private Message message;
+		/** Fully qualified name, or name if not available, of the first logical location */
+		private String logicalLocationName;
+		/** Comma-separated thread flow location <code>kinds</code>, or null if not available */
+		private String kinds;
+		
+		/**
+		 * @return Fully qualified name of the first logical location if available, 
+		 *         otherwise the resolved location message, or null if neither is available
+		 */
+		public final String resolveName(Result result, RunData runData) {
+			return logicalLocationName!=null ? logicalLocationName 
+					: message!=null ? result.resolveMessage(message, runData) : null;
+		}
+		
+		public final String resolveFullFileName(RunData runData) {
+			return physicalLocation.resolveFullFileName(runData);
+		}
+		
+		public final Integer resolveLineNumber() {
+			Region region = physicalLocation.getRegion();
+			return region==null ? null : region.getStartLine();
+		}
+		
+		private boolean hasFile() {
+			return physicalLocation!=null && physicalLocation.getArtifactLocation()!=null;
+		}
+	}
+	
+	/**
+	 * Jackson deserializer for the SARIF result <code>codeFlows</code> array.
+	 * Returns null if none of the thread flows contains a location that refers 
+	 * to a file.
+	 */
+	static final class Deserializer extends StdDeserializer<CodeFlowSummary> {
+		private static final long serialVersionUID = 1L;
+
+		public Deserializer() {
+			super(CodeFlowSummary.class);
+		}
+		
+		@Override
+		public CodeFlowSummary deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+			if ( jp.currentToken()!=JsonToken.START_ARRAY ) {
+				LOG.warn("SARIF input error: Ignoring non-array code flows");
+				jp.skipChildren();
+				return null;
+			}
+			CodeFlowSummary result = new CodeFlowSummary();
+			while ( jp.nextToken()!=JsonToken.END_ARRAY ) {
+				if ( result.source==null && jp.currentToken()==JsonToken.START_OBJECT ) {
+					readObject(jp, "threadFlows", ()->readArray(jp, ()->{
+						if ( result.source==null && jp.currentToken()==JsonToken.START_OBJECT ) {
+							readObject(jp, "locations", ()->readArray(jp, ()->addLocation(result, readThreadFlowLocation(jp, ctxt))));
+						} else {
+							jp.skipChildren();
+						}
+					}));
+				} else {
+					jp.skipChildren();
+				}
+			}
+			return result.source==null ? null : result;
+		}
+		
+		private static final void addLocation(CodeFlowSummary result, FlowLocation location) {
+			if ( location!=null && location.hasFile() ) {
+				if ( result.source==null ) {
+					result.source = location;
+				} else {
+					result.lastLocation = location;
+				}
+				result.locationCount++;
+			}
+		}
+		
+		private static final FlowLocation readThreadFlowLocation(JsonParser jp, DeserializationContext ctxt) throws IOException {
+			if ( jp.currentToken()!=JsonToken.START_OBJECT ) {
+				jp.skipChildren();
+				return null;
+			}
+			FlowLocation result = new FlowLocation();
+			while ( jp.nextToken()==JsonToken.FIELD_NAME ) {
+				String name = jp.currentName();
+				jp.nextToken();
+				if ( "location".equals(name) && jp.currentToken()==JsonToken.START_OBJECT ) {
+					readLocation(jp, ctxt, result);
+				} else if ( "kinds".equals(name) && jp.currentToken()==JsonToken.START_ARRAY ) {
+					StringBuilder kinds = new StringBuilder();
+					readArray(jp, ()->{
+						if ( jp.currentToken()==JsonToken.VALUE_STRING ) {
+							if ( kinds.length()>0 ) { kinds.append(','); }
+							kinds.append(jp.getText());
+						} else {
+							jp.skipChildren();
+						}
+					});
+					result.kinds = kinds.length()==0 ? null : kinds.toString();
+				} else {
+					jp.skipChildren();
+				}
+			}
+			return result;
+		}
+		
+		private static final void readLocation(JsonParser jp, DeserializationContext ctxt, FlowLocation result) throws IOException {
+			while ( jp.nextToken()==JsonToken.FIELD_NAME ) {
+				String name = jp.currentName();
+				jp.nextToken();
+				switch ( name ) {
+				case "physicalLocation": result.physicalLocation = ctxt.readValue(jp, PhysicalLocation.class); break;
+				case "message": result.message = ctxt.readValue(jp, Message.class); break;
+				case "logicalLocations": 
+					if ( jp.currentToken()==JsonToken.START_ARRAY ) {
+						readArray(jp, ()->{
+							if ( result.logicalLocationName==null && jp.currentToken()==JsonToken.START_OBJECT ) {
+								result.logicalLocationName = readLogicalLocationName(jp);
+							} else {
+								jp.skipChildren();
+							}
+						});
+					} else {
+						jp.skipChildren();
+					}
+					break;
+				default: jp.skipChildren(); break;
+				}
+			}
+		}
+		
+		private static final String readLogicalLocationName(JsonParser jp) throws IOException {
+			String fullyQualifiedName = null;
+			String name = null;
+			while ( jp.nextToken()==JsonToken.FIELD_NAME ) {
+				String fieldName = jp.currentName();
+				JsonToken token = jp.nextToken();
+				if ( "fullyQualifiedName".equals(fieldName) && token==JsonToken.VALUE_STRING ) {
+					fullyQualifiedName = jp.getText();
+				} else if ( "name".equals(fieldName) && token==JsonToken.VALUE_STRING ) {
+					name = jp.getText();
+				} else {
+					jp.skipChildren();
+				}
+			}
+			return fullyQualifiedName!=null ? fullyQualifiedName : name;
+		}
+		
+		/**
+		 * Invoke the given {@link TokenHandler} for the value of the given property of 
+		 * the object that the given {@link JsonParser} is currently pointing at, skipping 
+		 * all other properties. 
+		 */
+		private static final void readObject(JsonParser jp, String propertyName, TokenHandler handler) throws IOException {
+			while ( jp.nextToken()==JsonToken.FIELD_NAME ) {
+				String name = jp.currentName();
+				JsonToken token = jp.nextToken();
+				if ( propertyName.equals(name) && token==JsonToken.START_ARRAY ) {
+					handler.handle();
+				} else {
+					jp.skipChildren();
+				}
+			}
+		}
+		
+		/**
+		 * Invoke the given {@link TokenHandler} for every entry of the array that the given 
+		 * {@link JsonParser} is currently pointing at. The handler must consume all tokens 
+		 * of the current entry.
+		 */
+		private static final void readArray(JsonParser jp, TokenHandler handler) throws IOException {
+			while ( jp.nextToken()!=JsonToken.END_ARRAY ) {
+				handler.handle();
+			}
+		}
+		
+		@FunctionalInterface
+		private interface TokenHandler {
+			void handle() throws IOException;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link java.util.List} implementation that only stores the input document offsets 
+ * of each entry, similar to the DeferredList class provided by the SARIF .NET SDK. 
+ * Entries are read from the input document through the configured {@link RegionReader}
+ * when first accessed; a limited number of recently accessed entries is cached in memory.
+ * 
+ * @param <T> Entry type
+ */
+public final class DeferredList<T> extends AbstractList<T> {
+	private static final int DEFAULT_CACHE_SIZE = 1024;
+	private final RegionReader regionReader;
+	private final Class<T> type;
+	private final int cacheSize;
+	private final Map<Integer, T> cache;
+	private long[] starts = new long[16];
+	private long[] ends = new long[16];
+	private int size = 0;
+	
+	public DeferredList(RegionReader regionReader, Class<T> type) {
+		this(regionReader, type, DEFAULT_CACHE_SIZE);
+	}
+	
+	@SuppressWarnings("serial")
+	public DeferredList(RegionReader regionReader, Class<T> type, int cacheSize) {
+		this.regionReader = regionReader;
+		this.type = type;
+		this.cacheSize = cacheSize;
+		this.cache = new LinkedHashMap<Integer, T>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+	
+	/**
+	 * Add an entry located between the given input document offsets
+	 * @param start offset of the first byte of the entry
+	 * @param end offset of the byte following the last byte of the entry
+	 */
+	public final void addRegion(long start, long end) {
+		if ( size==starts.length ) {
+			starts = Arrays.copyOf(starts, size*2);
+			ends = Arrays.copyOf(ends, size*2);
+		}
+		starts[size] = start;
+		ends[size] = end;
+		size++;
+	}
+	
+	/**
+	 * Create a new {@link DeferredList} for the same input document entries as this 
+	 * {@link DeferredList}, re-reading entries through the given {@link RegionReader}. 
+	 * The returned list shares the recorded input document offsets with this list,
+	 * so no more entries should be added to either list.
+	 * @param regionReader
+	 * @return New {@link DeferredList} instance with an empty cache
+	 */
+	public final DeferredList<T> withRegionReader(RegionReader regionReader) {
+		DeferredList<T> result = new DeferredList<>(regionReader, type, cacheSize);
+		result.starts = starts;
+		result.ends = ends;
+		result.size = size;
+		return result;
+	}
+	
+	@Override
+	public final synchronized T get(int index) {
+		if ( index<0 || index>=size ) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		}
+		T result = cache.get(index);
+		if ( result==null ) {
+			try {
+				result = regionReader.read(type, starts[index], ends[index]);
+			} catch ( IOException e ) {
+				throw new UncheckedIOException("Error reading deferred "+type.getSimpleName()+" entry "+index, e);
+			}
+			cache.put(index, result);
+		}
+		return result;
+	}
+	
+	@Override
+	public final int size() {
+		return size;
+	}
+}
@@ -24,8 +24,13 @@
  ******************************************************************************/
 package com.fortify.ssc.parser.sarif.domain;
 
+import java.io.IOException;
 import java.io.Serializable;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.Getter;
@@ -33,9 +38,28 @@ import lombok.Getter;
 @Getter
 public final class Message implements Serializable {
 	private static final long serialVersionUID = 1L;
+	public static final Serializer<Message> SERIALIZER = new CompactSerializer();
 	
 	@JsonProperty private String id;
 	@JsonProperty private String text;
 	// @JsonProperty private String markdown;
 	@JsonProperty private String[] arguments;
+	
+	private static final class CompactSerializer implements Serializer<Message> {
+		@Override
+		public void serialize(DataOutput2 out, Message value) throws IOException {
+			SerializerHelper.writeString(out, value.id);
+			SerializerHelper.writeCompressibleString(out, value.text);
+			SerializerHelper.writeStringArray(out, value.arguments);
+		}
+		
+		@Override
+		public Message deserialize(DataInput2 in, int available) throws IOException {
+			Message result = new Message();
+			result.id = SerializerHelper.readString(in);
+			result.text = SerializerHelper.readCompressibleString(in);
+			result.arguments = SerializerHelper.readStringArray(in);
+			return result;
+		}
+	}
 }
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>This class represents a parsed SARIF message string, as described at
+ * https://docs.oasis-open.org/sarif/sarif/v2.1.0/os/sarif-v2.1.0-os.html#_Toc34317459.
+ * Message strings are parsed in a single pass; embedded links are replaced by 
+ * their link text, escaped '[', ']' and '\' characters are unescaped, and the 
+ * positions of any <code>{n}</code> placeholders are recorded, such that 
+ * rendering a message with a given set of arguments only needs to concatenate 
+ * the pre-processed literal text fragments and arguments.</p>
+ * 
+ * <p>Message strings are rendered as if placeholders are replaced before links
+ * and escape sequences are processed. If an argument contains any characters
+ * that could affect link or escape processing, the message is rendered by first
+ * replacing placeholders in the original text, and then processing links and
+ * escape sequences.</p>
+ */
+public final class MessageTemplate {
+	private final String originalText;
+	private final String[] literals;
+	private final int[] placeholders;
+	private final String text;
+	
+	private MessageTemplate(String originalText, String[] literals, int[] placeholders) {
+		this.originalText = originalText;
+		this.literals = literals;
+		this.placeholders = placeholders;
+		this.text = join(null);
+	}
+	
+	/**
+	 * Parse the given message string.
+	 * @param text
+	 * @return Parsed {@link MessageTemplate}, or null if the given text is null
+	 */
+	public static final MessageTemplate parse(String text) {
+		return text==null ? null : new Parser(text).parse();
+	}
+	
+	/**
+	 * Render this message, replacing any placeholders with the given arguments.
+	 * Placeholders for which no (non-null) argument is available are rendered 
+	 * as-is.
+	 * @param args
+	 * @return Rendered message
+	 */
+	public final String render(String[] args) {
+		if ( placeholders.length==0 || args==null || args.length==0 ) {
+			return text;
+		}
+		for ( int placeholder : placeholders ) {
+			String arg = getArgument(args, placeholder);
+			if ( arg!=null && !isPlainArgument(arg) ) {
+				return replaceLinks(resolveArgs(originalText, args));
+			}
+		}
+		return join(args);
+	}
+	
+	private final String join(String[] args) {
+		if ( placeholders.length==0 ) { return literals[0]; }
+		StringBuilder sb = new StringBuilder(originalText.length());
+		for ( int i = 0 ; i < placeholders.length ; i++ ) {
+			sb.append(literals[i]);
+			String arg = getArgument(args, placeholders[i]);
+			if ( arg!=null ) {
+				sb.append(arg);
+			} else {
+				sb.append('{').append(placeholders[i]).append('}');
+			}
+		}
+		return sb.append(literals[placeholders.length]).toString();
+	}
+	
+	/**
+	 * Replace all <code>{n}</code> placeholders in the given text with the corresponding
+	 * argument from the given array, leaving placeholders for which no (non-null) argument 
+	 * is available as-is. Contrary to Java's MessageFormat, no other characters in the 
+	 * text have any special meaning.
+	 * @param text
+	 * @param args
+	 * @return Text with placeholders replaced
+	 */
+	public static final String resolveArgs(String text, String[] args) {
+		if ( text==null || args==null || args.length==0 ) { return text; }
+		StringBuilder sb = null;
+		int copied = 0;
+		for ( int i = text.indexOf('{') ; i >= 0 ; i = text.indexOf('{', i+1) ) {
+			int end = getPlaceholderEnd(text, i, text.length());
+			String arg = end<0 ? null : getArgument(args, parsePlaceholder(text, i, end));
+			if ( arg!=null ) {
+				if ( sb==null ) { sb = new StringBuilder(text.length()+16); }
+				sb.append(text, copied, i).append(arg);
+				copied = end;
+				i = end-1;
+			}
+		}
+		return sb==null ? text : sb.append(text, copied, text.length()).toString();
+	}
+	
+	/**
+	 * Replace all links in the given text with the corresponding link text, and
+	 * unescape any escaped '[', ']' and '\' characters. Placeholders are left as-is.
+	 * @param text
+	 * @return Text with links replaced
+	 */
+	public static final String replaceLinks(String text) {
+		// For now we simply render the link text; future versions may add extra info from the actual link
+		// as per the example in https://docs.oasis-open.org/sarif/sarif/v2.1.0/os/sarif-v2.1.0-os.html#_Toc34317467
+		return text==null ? null : parse(text).text;
+	}
+	
+	private static final String getArgument(String[] args, int index) {
+		return args==null || index>=args.length ? null : args[index];
+	}
+	
+	/**
+	 * @return true if the given argument doesn't contain any characters that may
+	 *         affect link or escape processing if inserted into the original text.
+	 */
+	private static final boolean isPlainArgument(String arg) {
+		if ( arg.isEmpty() ) { return false; }
+		for ( int i = 0 ; i < arg.length() ; i++ ) {
+			switch ( arg.charAt(i) ) {
+			case '[': case ']': case '(': case ')': case '\\':
+				return false;
+			default:
+				if ( isLineTerminator(arg.charAt(i)) ) { return false; }
+			}
+		}
+		return true;
+	}
+	
+	private static final boolean isLineTerminator(char c) {
+		return c=='\n' || c=='\r' || c=='\u0085' || c=='\u2028' || c=='\u2029';
+	}
+	
+	/**
+	 * @return End index (exclusive) of the placeholder starting at the given index, 
+	 *         or -1 if there is no placeholder at the given index. 
+	 */
+	private static final int getPlaceholderEnd(String text, int start, int limit) {
+		int i = start+1;
+		// Only accept placeholders without leading zeroes and with at most 9 digits
+		int maxEnd = Math.min(limit, i+10);
+		if ( i<limit && text.charAt(i)=='0' ) {
+			maxEnd = Math.min(limit, i+2);
+		}
+		while ( i<maxEnd && text.charAt(i)>='0' && text.charAt(i)<='9' ) { i++; }
+		return i>start+1 && i<maxEnd && text.charAt(i)=='}' ? i+1 : -1;
+	}
+	
+	private static final int parsePlaceholder(String text, int start, int end) {
+		return Integer.parseInt(text.substring(start+1, end-1));
+	}
+	
+	/**
+	 * Single-pass parser for message strings. Links are matched according to the 
+	 * following rules, which are equivalent to the regular expression 
+	 * <code>(?&lt;!\\)\[(.*?)(?&lt;!\\)\]\(.*?\)</code>:
+	 * <ul>
+	 *  <li>A link starts at a '[' character that isn't preceded by a '\' character</li>
+	 *  <li>The link text ends at the first ']' character that isn't preceded by a '\' 
+	 *      character, and that is directly followed by '('</li>
+	 *  <li>The link destination ends at the first subsequent ')' character</li>
+	 *  <li>Links cannot span multiple lines</li>
+	 * </ul>
+	 */
+	private static final class Parser {
+		private final String text;
+		private final List<String> literals = new ArrayList<>();
+		private int[] placeholders = new int[4];
+		private int placeholderCount = 0;
+		private final StringBuilder current;
+		private boolean escaped = false;
+		
+		private Parser(String text) {
+			this.text = text;
+			this.current = new StringBuilder(text.length());
+		}
+		
+		private MessageTemplate parse() {
+			int length = text.length();
+			int i = 0;
+			while ( i < length ) {
+				char c = text.charAt(i);
+				int linkTextEnd = c=='[' && (i==0 || text.charAt(i-1)!='\\') ? getLinkTextEnd(i) : -1;
+				if ( linkTextEnd<0 ) {
+					i = append(i);
+				} else {
+					for ( int j = i+1 ; j < linkTextEnd ; ) {
+						j = append(j);
+					}
+					i = text.indexOf(')', linkTextEnd+2)+1;
+				}
+			}
+			if ( escaped ) { current.append('\\'); }
+			literals.add(current.toString());
+			return new MessageTemplate(text, literals.toArray(new String[literals.size()]), Arrays.copyOf(placeholders, placeholderCount));
+		}
+		
+		/**
+		 * Append the placeholder or character at the given index.
+		 * @return Index of the next character to be processed
+		 */
+		private int append(int index) {
+			char c = text.charAt(index);
+			int placeholderEnd = c=='{' ? getPlaceholderEnd(text, index, text.length()) : -1;
+			if ( placeholderEnd>0 ) {
+				appendPlaceholder(parsePlaceholder(text, index, placeholderEnd));
+				return placeholderEnd;
+			}
+			appendChar(c);
+			return index+1;
+		}
+		
+		private void appendChar(char c) {
+			if ( escaped ) {
+				escaped = false;
+				if ( c!='[' && c!=']' && c!='\\' ) { current.append('\\'); }
+				current.append(c);
+			} else if ( c=='\\' ) {
+				escaped = true;
+			} else {
+				current.append(c);
+			}
+		}
+		
+		private void appendPlaceholder(int placeholder) {
+			if ( escaped ) { 
+				escaped = false;
+				current.append('\\'); 
+			}
+			literals.add(current.toString());
+			current.setLength(0);
+			if ( placeholderCount==placeholders.length ) {
+				placeholders = Arrays.copyOf(placeholders, placeholderCount*2);
+			}
+			placeholders[placeholderCount++] = placeholder;
+		}
+		
+		/**
+		 * @return Index of the ']' character that ends the link text for a link 
+		 *         starting at the given index, or -1 if there is no link at the
+		 *         given index.
+		 */
+		private int getLinkTextEnd(int start) {
+			int length = text.length();
+			for ( int i = start+1 ; i < length ; i++ ) {
+				char c = text.charAt(i);
+				if ( isLineTerminator(c) ) { 
+					return -1; 
+				} else if ( c==']' && text.charAt(i-1)!='\\' && i+1<length && text.charAt(i+1)=='(' ) {
+					for ( int j = i+2 ; j < length ; j++ ) {
+						char d = text.charAt(j);
+						if ( d==')' ) { return i; }
+						if ( isLineTerminator(d) ) { return -1; }
+					}
+					// If this link doesn't have a closing ')' on the current line, 
+					// any subsequent ']' on the same line won't have a closing ')' either.
+					return -1;
+				}
+			}
+			return -1;
+		}
+	}
+}
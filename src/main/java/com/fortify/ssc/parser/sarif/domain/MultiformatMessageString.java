@@ -24,8 +24,13 @@
  ******************************************************************************/
 package com.fortify.ssc.parser.sarif.domain;
 
+import java.io.IOException;
 import java.io.Serializable;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.Getter;
@@ -33,7 +38,22 @@ import lombok.Getter;
 @Getter
 public final class MultiformatMessageString implements Serializable {
 	private static final long serialVersionUID = 1L;
+	public static final Serializer<MultiformatMessageString> SERIALIZER = new CompactSerializer();
 	
 	@JsonProperty private String text;
 	// @JsonProperty private String markdown;
+	
+	private static final class CompactSerializer implements Serializer<MultiformatMessageString> {
+		@Override
+		public void serialize(DataOutput2 out, MultiformatMessageString value) throws IOException {
+			SerializerHelper.writeCompressibleString(out, value.text);
+		}
+		
+		@Override
+		public MultiformatMessageString deserialize(DataInput2 in, int available) throws IOException {
+			MultiformatMessageString result = new MultiformatMessageString();
+			result.text = SerializerHelper.readCompressibleString(in);
+			return result;
+		}
+	}
 }
@@ -42,4 +42,16 @@ public final class PhysicalLocation {
 		}
 		return artifactLocation;
 	}
+	
+	/**
+	 * Resolve the full file name for this location. If the artifact location refers 
+	 * to a run artifact, the file name is looked up from the file names pre-computed 
+	 * by {@link RunData}; otherwise the file name is resolved from the artifact
+	 * location in this physical location.
+	 */
+	public String resolveFullFileName(RunData runData) {
+		if ( artifactLocation==null ) { return null; }
+		String fullFileName = runData.getArtifactFullFileName(artifactLocation.getIndex());
+		return fullFileName!=null ? fullFileName : artifactLocation.getFullFileName(runData);
+	}
 }
\ No newline at end of file
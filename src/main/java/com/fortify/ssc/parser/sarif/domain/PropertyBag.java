@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * This class holds the result and rule property bag entries that are used
+ * for generating vulnerabilities. Property bags may contain arbitrarily large 
+ * and deeply nested tool-specific data, so rather than binding the full property 
+ * bag to a generic map, our {@link Deserializer} extracts only the properties 
+ * listed below and skips any other properties at the token level.
+ * 
+ * <p>Numeric properties are converted to {@link Float} during deserialization;
+ * invalid values are logged and ignored. Other properties are stored as text, 
+ * independent of whether they were specified as JSON string, number or boolean. 
+ * Any structured values for these properties are ignored.</p>
+ */
+@Getter @EqualsAndHashCode
+@JsonDeserialize(using = PropertyBag.Deserializer.class)
+public final class PropertyBag implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final Logger LOG = LoggerFactory.getLogger(PropertyBag.class);
+	public static final Serializer<PropertyBag> SERIALIZER = new CompactSerializer();
+	/** Shared empty instance, for use by callers if no property bag is available */
+	public static final PropertyBag EMPTY = new PropertyBag();
+	
+	/** Result property <code>kingdom</code> */
+	private String kingdom;
+	/** Result property <code>InstanceSeverity</code> */
+	private Float instanceSeverity;
+	/** Result property <code>Confidence</code> */
+	private Float confidence;
+	/** Result property <code>fortify-severity</code> */
+	private String fortifySeverity;
+	/** Result property <code>priority</code> */
+	private String priority;
+	/** Result property <code>fortifyRuleId</code> */
+	private String fortifyRuleId;
+	/** Rule property <code>Kingdom</code> */
+	private String ruleKingdom;
+	/** Rule property <code>Type</code> */
+	private String type;
+	/** Rule property <code>Subtype</code> */
+	private String subtype;
+	/** Rule property <code>Accuracy</code> */
+	private Float accuracy;
+	/** Rule property <code>Probability</code> */
+	private Float probability;
+	/** Rule property <code>Impact</code> */
+	private Float impact;
+	/** Rule property <code>security-severity</code> */
+	private String securitySeverity;
+	/** Rule property <code>tags</code>; only string entries are retained */
+	private List<String> tags;
+	
+	/**
+	 * Return the given value, or the given default value if the given value is null.
+	 */
+	public static final float floatValue(Float value, float defaultValue) {
+		return value==null ? defaultValue : value;
+	}
+	
+	/**
+	 * Deserializer that only decodes the property bag entries defined by 
+	 * {@link PropertyBag}, skipping any other entries without materializing them.
+	 */
+	static final class Deserializer extends StdDeserializer<PropertyBag> {
+		private static final long serialVersionUID = 1L;
+
+		public Deserializer() {
+			super(PropertyBag.class);
+		}
+		
+		@Override
+		public PropertyBag deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+			JsonToken token = jp.currentToken();
+			if ( token==JsonToken.START_OBJECT ) {
+				token = jp.nextToken();
+			} else if ( token!=JsonToken.FIELD_NAME ) {
+				LOG.warn("SARIF input error: Ignoring non-object property bag");
+				jp.skipChildren();
+				return null;
+			}
+			PropertyBag result = new PropertyBag();
+			for ( ; token==JsonToken.FIELD_NAME ; token = jp.nextToken() ) {
+				String name = jp.currentName();
+				jp.nextToken();
+				switch ( name ) {
+				case "kingdom": result.kingdom = readString(jp); break;
+				case "InstanceSeverity": result.instanceSeverity = readFloat(jp, name); break;
+				case "Confidence": result.confidence = readFloat(jp, name); break;
+				case "fortify-severity": result.fortifySeverity = readString(jp); break;
+				case "priority": result.priority = readString(jp); break;
+				case "fortifyRuleId": result.fortifyRuleId = readString(jp); break;
+				case "Kingdom": result.ruleKingdom = readString(jp); break;
+				case "Type": result.type = readString(jp); break;
+				case "Subtype": result.subtype = readString(jp); break;
+				case "Accuracy": result.accuracy = readFloat(jp, name); break;
+				case "Probability": result.probability = readFloat(jp, name); break;
+				case "Impact": result.impact = readFloat(jp, name); break;
+				case "security-severity": result.securitySeverity = readString(jp); break;
+				case "tags": result.tags = readStringList(jp); break;
+				default: jp.skipChildren(); break;
+				}
+			}
+			return result;
+		}
+		
+		private static final String readString(JsonParser jp) throws IOException {
+			if ( jp.currentToken().isScalarValue() ) {
+				return jp.getValueAsString();
+			}
+			jp.skipChildren();
+			return null;
+		}
+		
+		private static final Float readFloat(JsonParser jp, String name) throws IOException {
+			if ( jp.currentToken().isNumeric() ) {
+				return jp.getFloatValue();
+			}
+			String value = readString(jp);
+			if ( StringUtils.isNotBlank(value) ) {
+				try {
+					return Float.parseFloat(value);
+				} catch (NumberFormatException nfe) {
+					LOG.warn("Error converting {} string '{}' to float: {}", name, value, nfe.getMessage());
+				}
+			}
+			return null;
+		}
+		
+		private static final List<String> readStringList(JsonParser jp) throws IOException {
+			if ( jp.currentToken()!=JsonToken.START_ARRAY ) {
+				jp.skipChildren();
+				return null;
+			}
+			List<String> result = new ArrayList<>();
+			for ( JsonToken token = jp.nextToken() ; token!=JsonToken.END_ARRAY ; token = jp.nextToken() ) {
+				if ( token==JsonToken.VALUE_STRING ) {
+					result.add(jp.getText());
+				} else {
+					jp.skipChildren();
+				}
+			}
+			return result.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(result);
+		}
+	}
+	
+	/**
+	 * Compact {@link Serializer} implementation for storing property bags as part 
+	 * of disk-backed rules. Float values are prefixed by a presence flag.
+	 */
+	private static final class CompactSerializer implements Serializer<PropertyBag> {
+		@Override
+		public void serialize(DataOutput2 out, PropertyBag value) throws IOException {
+			SerializerHelper.writeString(out, value.kingdom);
+			writeFloat(out, value.instanceSeverity);
+			writeFloat(out, value.confidence);
+			SerializerHelper.writeString(out, value.fortifySeverity);
+			SerializerHelper.writeString(out, value.priority);
+			SerializerHelper.writeString(out, value.fortifyRuleId);
+			SerializerHelper.writeString(out, value.ruleKingdom);
+			SerializerHelper.writeString(out, value.type);
+			SerializerHelper.writeString(out, value.subtype);
+			writeFloat(out, value.accuracy);
+			writeFloat(out, value.probability);
+			writeFloat(out, value.impact);
+			SerializerHelper.writeString(out, value.securitySeverity);
+			SerializerHelper.writeStringArray(out, value.tags==null ? null : value.tags.toArray(new String[value.tags.size()]));
+		}
+		
+		@Override
+		public PropertyBag deserialize(DataInput2 in, int available) throws IOException {
+			PropertyBag result = new PropertyBag();
+			result.kingdom = SerializerHelper.readString(in);
+			result.instanceSeverity = readFloat(in);
+			result.confidence = readFloat(in);
+			result.fortifySeverity = SerializerHelper.readString(in);
+			result.priority = SerializerHelper.readString(in);
+			result.fortifyRuleId = SerializerHelper.readString(in);
+			result.ruleKingdom = SerializerHelper.readString(in);
+			result.type = SerializerHelper.readString(in);
+			result.subtype = SerializerHelper.readString(in);
+			result.accuracy = readFloat(in);
+			result.probability = readFloat(in);
+			result.impact = readFloat(in);
+			result.securitySeverity = SerializerHelper.readString(in);
+			String[] tags = SerializerHelper.readStringArray(in);
+			result.tags = tags==null ? null : tags.length==0 ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(tags));
+			return result;
+		}
+		
+		private static final void writeFloat(DataOutput2 out, Float value) throws IOException {
+			out.writeBoolean(value!=null);
+			if ( value!=null ) { out.writeFloat(value); }
+		}
+		
+		private static final Float readFloat(DataInput2 in) throws IOException {
+			return in.readBoolean() ? in.readFloat() : null;
+		}
+	}
+}
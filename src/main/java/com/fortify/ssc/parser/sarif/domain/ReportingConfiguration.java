@@ -34,4 +34,10 @@ import lombok.Getter;
 public final class ReportingConfiguration implements Serializable {
 	private static final long serialVersionUID = 1L;
 	@JsonProperty private Level level = Level.warning;
+	
+	public ReportingConfiguration() {}
+	
+	ReportingConfiguration(Level level) {
+		this.level = level;
+	}
 }
\ No newline at end of file
@@ -24,10 +24,15 @@
  ******************************************************************************/
 package com.fortify.ssc.parser.sarif.domain;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.URI;
 import java.util.Map;
 
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
@@ -41,6 +46,8 @@ import lombok.Getter;
 @Getter
 public final class ReportingDescriptor implements Serializable {
 	private static final long serialVersionUID = 1L;
+	public static final Serializer<ReportingDescriptor> SERIALIZER = new CompactSerializer();
+	private static final Level[] LEVELS = Level.values();
 	
 	@JsonProperty private String id;
 	@JsonProperty private String guid;
@@ -53,7 +60,7 @@ public final class ReportingDescriptor implements Serializable {
 	@JsonDeserialize(using = URIDeserializer.class)
 	private URI helpUri;
 	@JsonProperty private MultiformatMessageString help;
-	@JsonProperty private Map<String, Object> properties;
+	@JsonProperty private PropertyBag properties;
 	
 	public Level getDefaultLevel() {
 		return defaultConfiguration==null ? null : defaultConfiguration.getLevel();
@@ -62,4 +69,45 @@ public final class ReportingDescriptor implements Serializable {
 	public MultiformatMessageString getMessageString(String id) {
 		return messageStrings==null ? null : messageStrings.get(id);
 	}
+	
+	/**
+	 * Compact {@link Serializer} implementation for storing rules in disk-backed
+	 * collections. The default configuration is stored as a single byte; 
+	 * 0 represents a <code>null</code> configuration, 1 represents a configuration
+	 * without level, and any other value represents the level ordinal + 2. 
+	 */
+	private static final class CompactSerializer implements Serializer<ReportingDescriptor> {
+		@Override
+		public void serialize(DataOutput2 out, ReportingDescriptor value) throws IOException {
+			SerializerHelper.writeString(out, value.id);
+			SerializerHelper.writeString(out, value.guid);
+			ReportingConfiguration configuration = value.defaultConfiguration;
+			out.writeByte(configuration==null ? 0 : configuration.getLevel()==null ? 1 : configuration.getLevel().ordinal()+2);
+			SerializerHelper.writeString(out, value.name);
+			SerializerHelper.writeMap(out, value.messageStrings, MultiformatMessageString.SERIALIZER);
+			SerializerHelper.writeNullable(out, value.shortDescription, Message.SERIALIZER);
+			SerializerHelper.writeNullable(out, value.fullDescription, Message.SERIALIZER);
+			SerializerHelper.writeURI(out, value.helpUri);
+			SerializerHelper.writeNullable(out, value.help, MultiformatMessageString.SERIALIZER);
+			SerializerHelper.writeNullable(out, value.properties, PropertyBag.SERIALIZER);
+		}
+		
+		@Override
+		public ReportingDescriptor deserialize(DataInput2 in, int available) throws IOException {
+			ReportingDescriptor result = new ReportingDescriptor();
+			result.id = SerializerHelper.readString(in);
+			result.guid = SerializerHelper.readString(in);
+			int configuration = in.readUnsignedByte();
+			result.defaultConfiguration = configuration==0 ? null 
+					: new ReportingConfiguration(configuration==1 ? null : LEVELS[configuration-2]);
+			result.name = SerializerHelper.readString(in);
+			result.messageStrings = SerializerHelper.readMap(in, MultiformatMessageString.SERIALIZER);
+			result.shortDescription = SerializerHelper.readNullable(in, Message.SERIALIZER);
+			result.fullDescription = SerializerHelper.readNullable(in, Message.SERIALIZER);
+			result.helpUri = SerializerHelper.readURI(in);
+			result.help = SerializerHelper.readNullable(in, MultiformatMessageString.SERIALIZER);
+			result.properties = SerializerHelper.readNullable(in, PropertyBag.SERIALIZER);
+			return result;
+		}
+	}
 }
\ No newline at end of file
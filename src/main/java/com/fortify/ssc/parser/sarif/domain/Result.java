@@ -24,8 +24,8 @@
  ******************************************************************************/
 package com.fortify.ssc.parser.sarif.domain;
 
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -50,22 +50,73 @@ public final class Result {
 	// @JsonProperty private WebResponse webResponse;
 	@JsonProperty private Map<String,String> fingerprints;
 	@JsonProperty private Map<String,String> partialFingerprints;
-	// @JsonProperty private CodeFlow codeFlow;
+	@JsonProperty private CodeFlowSummary codeFlows;
 	// @JsonProperty private Graph[] graphs;
 	// @JsonProperty private GraphTraversal[] graphTraversals;
 	// @JsonProperty private Stack[] stacks;
 	// @JsonProperty private Location[] relatedLocations;
-	// @JsonProperty private Suppression[] suppressions;
-	// @JsonProperty private String baselineState;
+	@JsonProperty private Suppression[] suppressions;
+	@JsonProperty private String baselineState;
 	// @JsonProperty private float rank;
 	// @JsonProperty private Attachment[] attachments;
 	// @JsonProperty private URI[] workItemUris;
 	// @JsonProperty private URI hostedViewerUri;
 	// @JsonProperty private ResultProvenance provenance;
 	// @JsonProperty private Fix[] fixes;
-	@JsonProperty private Map<String, Object> properties;
+	@JsonProperty private PropertyBag properties;
 	
 	private volatile ReportingDescriptor resolvedRule;
+	private volatile Integer resolvedRuleIndex;
+	
+	private static final Result REJECTED = new Result();
+	private static final Map<Kind, Result> KIND_ONLY_RESULTS = new EnumMap<>(Kind.class);
+	static {
+		for ( Kind kind : Kind.values() ) {
+			Result result = new Result();
+			result.kind = kind;
+			KIND_ONLY_RESULTS.put(kind, result);
+		}
+	}
+	
+	/**
+	 * Get a shared {@link Result} instance that only provides the given {@link Kind}, 
+	 * used as a placeholder for results that were skipped without decoding them; 
+	 * see {@link ResultReader}. 
+	 * @param kind
+	 * @return {@link Result} instance for the given {@link Kind}
+	 */
+	static final Result kindOnly(Kind kind) {
+		return KIND_ONLY_RESULTS.get(kind);
+	}
+	
+	/**
+	 * @return Shared {@link Result} instance used as a placeholder for results that 
+	 *         were rejected by a {@link ResultReader.PropertyFilter} without decoding them
+	 */
+	static final Result rejected() {
+		return REJECTED;
+	}
+	
+	/**
+	 * @return true if this {@link Result} is a placeholder for a result that was
+	 *         rejected without decoding it; see {@link ResultReader}
+	 */
+	public final boolean isRejected() {
+		return this==REJECTED;
+	}
+	
+	/**
+	 * @return true if this result has at least one {@link Suppression} that is
+	 *         in effect; see {@link Suppression#isAccepted()}
+	 */
+	public final boolean isSuppressed() {
+		if ( suppressions!=null ) {
+			for ( Suppression suppression : suppressions ) {
+				if ( suppression!=null && suppression.isAccepted() ) { return true; }
+			}
+		}
+		return false;
+	}
 	
 	public String resolveFullFileName(RunData runData, final String defaultValue) {
 		String value = defaultValue;
@@ -74,7 +125,7 @@ public final class Result {
 			if ( locations[0].getMessage()!=null ){
 				value = resolveMessage(locations[0].getMessage(), runData);
 			} else if ( locations[0].getPhysicalLocation()!=null ) {
-				value = locations[0].getPhysicalLocation().resolveArtifactLocation(runData).getFullFileName(runData);
+				value = locations[0].getPhysicalLocation().resolveFullFileName(runData);
 			}
 		} else if ( getAnalysisTarget()!=null ) {
 			value = getAnalysisTarget().getFullFileName(runData);
@@ -82,6 +133,20 @@ public final class Result {
 		return value;
 	}
 	
+	/**
+	 * Get the index of the artifact that determines the file name returned by
+	 * {@link #resolveFullFileName(RunData, String)}, if any.
+	 * @return Artifact index, or null if the file name isn't based on an artifact index
+	 */
+	public Integer resolveArtifactIndex() {
+		Location[] locations = getLocations();
+		if ( locations!=null && locations.length>0 && locations[0].getMessage()==null 
+				&& locations[0].getPhysicalLocation()!=null && locations[0].getPhysicalLocation().getArtifactLocation()!=null ) {
+			return locations[0].getPhysicalLocation().getArtifactLocation().getIndex();
+		}
+		return null;
+	}
+	
 	public Integer resolveLineNumber() {
 		Integer value = null;
 		Location[] locations = getLocations();
@@ -102,33 +167,42 @@ public final class Result {
 
 	public ReportingDescriptor resolveRule(RunData runData) {
 		if ( this.resolvedRule == null ) {
-			this.resolvedRule = resolveRuleByIndex(runData);
-			if ( this.resolvedRule == null ) {
-				this.resolvedRule = resolveRuleById(runData);
-				if ( this.resolvedRule == null ) {
-					this.resolvedRule = resolveRuleByGuid(runData);
-					if ( this.resolvedRule == null ) {
-						this.resolvedRule = new ReportingDescriptor(); // Set empty rule to avoid multiple lookups
+			int ruleIndex = resolveRuleIndex(runData);
+			ReportingDescriptor rule = ruleIndex<0 ? null : runData.getRuleByIndex(ruleIndex);
+			// Set empty rule if not found to avoid multiple lookups
+			this.resolvedRule = rule==null ? new ReportingDescriptor() : rule;
+		}
+		return this.resolvedRule;
+	}
+	
+	/**
+	 * Resolve the index of the rule referenced by this result, based on either
+	 * rule index, rule id or rule guid (in that order).
+	 * @param runData
+	 * @return Rule index, or -1 if no matching rule could be found
+	 */
+	public int resolveRuleIndex(RunData runData) {
+		if ( this.resolvedRuleIndex == null ) {
+			Integer ruleIndex = resolveRuleIndex();
+			if ( !runData.isValidRuleIndex(ruleIndex) ) {
+				ruleIndex = runData.getRuleIndexById(resolveRuleId(runData));
+				if ( !runData.isValidRuleIndex(ruleIndex) ) {
+					ruleIndex = runData.getRuleIndexByGuid(resolveRuleGuid(runData));
+					if ( !runData.isValidRuleIndex(ruleIndex) ) {
+						ruleIndex = -1;
 					}
 				}
 			}
+			this.resolvedRuleIndex = ruleIndex;
 		}
-		return this.resolvedRule;
+		return this.resolvedRuleIndex;
 	}
 	
 	private ReportingDescriptor resolveRuleByIndex(RunData runData) {
 		Integer ruleIndex = resolveRuleIndex();
-		return ruleIndex==null ? null : runData.getRuleByIndex(ruleIndex);
-	}
-	
-	private ReportingDescriptor resolveRuleById(RunData runData) {
-		String ruleId = resolveRuleId(runData);
-		return ruleId==null ? null : runData.getRuleById(ruleId);
-	}
-	
-	private ReportingDescriptor resolveRuleByGuid(RunData runData) {
-		String ruleGuid = resolveRuleGuid(runData);
-		return ruleGuid==null ? null : runData.getRuleByGuid(ruleGuid);
+		// If the explicit rule index is valid, it will always be used to resolve the rule,
+		// so we can use the (cached) resolved rule instead of looking up the rule again.
+		return !runData.isValidRuleIndex(ruleIndex) ? null : resolveRule(runData);
 	}
 	
 	private Integer resolveRuleIndex() {
@@ -190,46 +264,25 @@ public final class Result {
 	public String resolveMessage(Message msg, RunData runData) {
 		String text = msg.getText();
 		if ( StringUtils.isBlank(text) && msg.getId()!=null ) {
-			MultiformatMessageString msgString = getMultiformatMessageStringForId(runData, msg.getId());
-			// TODO Should we throw an exception if msgString==null, instead of just returning null?
-			text = msgString==null ? null : msgString.getText();
+			MessageTemplate template = getMessageTemplateForId(runData, msg.getId());
+			// TODO Should we throw an exception if template==null, instead of just returning null?
+			return template==null ? null : template.render(msg.getArguments());
 		} 
-		if ( StringUtils.isNotBlank(text) ) {
-			// TODO SARIF specification doesn't clearly state whether args should be resolved before replacing links, or vice versa
-			//      (i.e. can args contain links, do link characters need to be escaped in args?)
-			text = resolveArgs(text, msg.getArguments());
-			text = replaceLinks(text, runData);
-		}
-		return text;
+		// TODO SARIF specification doesn't clearly state whether args should be resolved before replacing links, or vice versa
+		//      (i.e. can args contain links, do link characters need to be escaped in args?)
+		return StringUtils.isBlank(text) ? text : MessageTemplate.parse(text).render(msg.getArguments());
 	}
 	
 	protected static final String resolveArgs(String text, String[] args) {
-		// Based on the length of the args array, we produce another array containing placeholders "{0}", "{1}", "{2}", ...
-		// Then we do a simple search and replace for each of these placeholders using StringUtils#replaceEach.
-		// This works better than something like Java's MessageFormat as this has many other characteristics that we don't want.
-		String[] placeholders = args==null ? null 
-				: IntStream.rangeClosed(0, args.length-1).mapToObj(i->String.format("{%d}", i)).toArray(String[]::new);
-		return StringUtils.replaceEach(text, placeholders, args);
+		return MessageTemplate.resolveArgs(text, args);
 	}
 	
-	// For now we simply render the link text; future versions may add extra info from the actual link
-	// as per the example in https://docs.oasis-open.org/sarif/sarif/v2.1.0/os/sarif-v2.1.0-os.html#_Toc34317467
 	protected static final String replaceLinks(String text, RunData runData) {
-		// Use regex (?<!\\)\[(.*?)(?<!\\)\]\(.*?\) to find link texts:
-		// - Find any non-escaped '[':   (?<!\\)\[
-		// - Find link text:             (.*?)
-		// - Find next non-escaped ']':  (?<!\\)\]
-		// - Find link destination:      \(.*?\)
-		text = text.replaceAll("(?<!\\\\)\\[(.*?)(?<!\\\\)\\]\\(.*?\\)", "$1");
-		// Replace all escaped '[', ']' and '\' with non-escaped version
-		text = text.replaceAll("\\\\\\[", "[");
-		text = text.replaceAll("\\\\\\]", "]");
-		text = text.replaceAll("\\\\\\\\", "\\\\");
-		return text;
+		return MessageTemplate.replaceLinks(text);
 	}
 
-	private MultiformatMessageString getMultiformatMessageStringForId(RunData runData, String id) {
-		ReportingDescriptor rule = resolveRule(runData);
-		return rule == null ? null : rule.getMessageString(id);
+	private MessageTemplate getMessageTemplateForId(RunData runData, String id) {
+		int ruleIndex = resolveRuleIndex(runData);
+		return ruleIndex<0 ? null : runData.getRuleMessageTemplate(ruleIndex, id);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+
+/**
+ * This class records input document offsets for a subset of the entries in a 
+ * SARIF <code>results</code> array, allowing the array to be split into shards
+ * on result boundaries without having to scan the array once more. A checkpoint 
+ * is recorded for the first result, and for every result that starts at least 
+ * the configured number of bytes after the previous checkpoint.
+ */
+public final class ResultCheckpoints {
+	private final long interval;
+	private int size = 0;
+	private long[] resultIndexes = new long[16];
+	private long[] starts = new long[16];
+	private long[] previousEnds = new long[16];
+	/** Total number of entries in the <code>results</code> array */
+	@Getter private long resultCount = 0;
+	/** Input document offset of the end of the last entry in the <code>results</code> array */
+	@Getter private long end = -1;
+	
+	/**
+	 * Create a {@link ResultCheckpoints} instance
+	 * @param interval Minimum number of bytes between two checkpoints
+	 */
+	public ResultCheckpoints(long interval) {
+		this.interval = Math.max(1, interval);
+	}
+	
+	/**
+	 * Register the next entry in the <code>results</code> array
+	 * @param start Input document offset of the start of the entry
+	 * @param previousEnd Input document offset of the end of the previous entry
+	 */
+	final void addResult(long start, long previousEnd) {
+		if ( size==0 || start-starts[size-1]>=interval ) {
+			if ( size==starts.length ) {
+				int newLength = size*2;
+				resultIndexes = Arrays.copyOf(resultIndexes, newLength);
+				starts = Arrays.copyOf(starts, newLength);
+				previousEnds = Arrays.copyOf(previousEnds, newLength);
+			}
+			resultIndexes[size] = resultCount;
+			starts[size] = start;
+			previousEnds[size] = previousEnd;
+			size++;
+		}
+		resultCount++;
+	}
+	
+	/**
+	 * Register the end of the last entry in the <code>results</code> array
+	 * @param end
+	 */
+	final void complete(long end) {
+		this.end = end;
+	}
+	
+	/**
+	 * @return Number of recorded checkpoints
+	 */
+	public final int size() {
+		return size;
+	}
+	
+	/**
+	 * @param checkpoint
+	 * @return Index in the <code>results</code> array of the result at the given checkpoint 
+	 */
+	public final long getResultIndex(int checkpoint) {
+		return resultIndexes[checkpoint];
+	}
+	
+	/**
+	 * @param checkpoint
+	 * @return Input document offset of the start of the result at the given checkpoint
+	 */
+	public final long getStart(int checkpoint) {
+		return starts[checkpoint];
+	}
+	
+	/**
+	 * @param checkpoint
+	 * @return Input document offset of the end of the result preceding the given checkpoint
+	 */
+	public final long getPreviousEnd(int checkpoint) {
+		return previousEnds[checkpoint];
+	}
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Interface for processing the {@link Result} objects of a run while the
+ * run is being parsed; see {@link RunData#parseRunData(com.fortify.ssc.parser.sarif.store.RunDataStore, com.fortify.util.json.ExtendedJsonParser, ResultHandler, long, long)}.
+ */
+@FunctionalInterface
+public interface ResultHandler {
+	/**
+	 * Process the given {@link Result}
+	 * @param runData
+	 * @param result
+	 * @throws IOException
+	 */
+	void handleResult(RunData runData, Result result) throws IOException;
+	
+	/**
+	 * Read the result that the given {@link JsonParser} is currently pointing at, 
+	 * to be passed to {@link #handleResult(RunData, Result)}. The default implementation 
+	 * binds the full result; implementations may use a {@link ResultReader} to skip
+	 * results that they would discard anyway.
+	 * @param jsonParser
+	 * @return {@link Result} instance
+	 * @throws IOException
+	 */
+	default Result readResult(JsonParser jsonParser) throws IOException {
+		return jsonParser.readValueAs(Result.class);
+	}
+	
+	/**
+	 * Invoked once no more results will be passed to {@link #handleResult(RunData, Result)}
+	 * for the current <code>results</code> array. Implementations that process results 
+	 * asynchronously must complete processing of all results passed so far before 
+	 * returning from this method, as the {@link RunData} object may be updated afterwards.
+	 * @throws IOException
+	 */
+	default void endResults() throws IOException {}
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * <p>This class reads {@link Result} objects from a JSON parser, skipping results 
+ * with a <code>kind</code> that never produces a vulnerability (<code>pass</code>, 
+ * <code>informational</code> and <code>notApplicable</code>) at the token level, 
+ * rather than binding locations, fingerprints and properties for results that 
+ * will be discarded anyway. Skipped results are represented by a shared {@link Result}
+ * instance that only provides the <code>kind</code> property.</p>
+ * 
+ * <p>As <code>kind</code> may appear anywhere in a result object, any properties
+ * preceding <code>kind</code> are buffered as JSON tokens, up to the configured
+ * number of properties. If the result isn't skipped, the result is bound from 
+ * the buffered tokens followed by the remaining tokens from the input document,
+ * so results are only read from the input document once. If <code>kind</code> 
+ * doesn't appear within the configured number of properties, the result is 
+ * bound as usual.</p>
+ * 
+ * <p>If a {@link PropertyFilter} is configured, every string property read ahead
+ * is also passed to this filter, allowing results to be rejected based on for
+ * example <code>ruleId</code> or <code>level</code> without decoding them. Rejected
+ * results are represented by a shared {@link Result} instance for which 
+ * {@link Result#isRejected()} returns true.</p>
+ * 
+ * <p>As <code>codeFlows</code> may contain an arbitrary number of thread flow 
+ * locations, this property is never buffered; if <code>codeFlows</code> precedes
+ * <code>kind</code>, looking ahead stops at <code>codeFlows</code>, and the result 
+ * is bound as usual.</p>
+ */
+public final class ResultReader {
+	/** {@link ResultReader} instance that binds every result without looking ahead */
+	public static final ResultReader FULL = new ResultReader(0, null);
+	private static final Map<String, Kind> SKIPPED_KINDS = new HashMap<>();
+	static {
+		for ( Kind kind : new Kind[] {Kind.pass, Kind.informational, Kind.notApplicable} ) {
+			SKIPPED_KINDS.put(kind.name(), kind);
+		}
+	}
+	private final int kindLookaheadProperties;
+	private final PropertyFilter propertyFilter;
+	
+	/**
+	 * Interface for rejecting results based on individual string properties
+	 */
+	@FunctionalInterface
+	public interface PropertyFilter {
+		/**
+		 * @param name of a top-level result property
+		 * @param value of that result property
+		 * @return true if the result should be rejected based on the given property value
+		 */
+		boolean rejects(String name, String value);
+	}
+	
+	/**
+	 * Create a {@link ResultReader} instance
+	 * @param kindLookaheadProperties Maximum number of result properties to buffer while 
+	 *        looking for the <code>kind</code> property; 0 disables skipping results
+	 */
+	public ResultReader(int kindLookaheadProperties) {
+		this(kindLookaheadProperties, null);
+	}
+	
+	/**
+	 * Create a {@link ResultReader} instance
+	 * @param kindLookaheadProperties Maximum number of result properties to buffer while 
+	 *        looking for the <code>kind</code> property; 0 disables skipping results
+	 * @param propertyFilter used to reject results based on string properties that are 
+	 *        read ahead, may be null 
+	 */
+	public ResultReader(int kindLookaheadProperties, PropertyFilter propertyFilter) {
+		this.kindLookaheadProperties = kindLookaheadProperties;
+		this.propertyFilter = propertyFilter;
+	}
+	
+	/**
+	 * Read the result that the given {@link JsonParser} is currently pointing at. Like
+	 * {@link JsonParser#readValueAs(Class)}, this method consumes all tokens of the
+	 * result, whether or not the result is skipped. 
+	 * @param jsonParser
+	 * @return Decoded {@link Result}, or a placeholder {@link Result} that only provides
+	 *         the <code>kind</code> property if the result was skipped
+	 * @throws IOException
+	 */
+	public final Result read(JsonParser jsonParser) throws IOException {
+		if ( kindLookaheadProperties<=0 || jsonParser.currentToken()!=JsonToken.START_OBJECT ) {
+			return jsonParser.readValueAs(Result.class);
+		}
+		TokenBuffer buffer = null;
+		int properties = 0;
+		// On exit of this loop, the current token of the given parser is the first 
+		// token that hasn't been copied to the buffer, either FIELD_NAME, END_OBJECT,
+		// or the start of the codeFlows value
+		JsonToken token = jsonParser.nextToken();
+		while ( token==JsonToken.FIELD_NAME && properties++<kindLookaheadProperties ) {
+			String name = jsonParser.getCurrentName();
+			JsonToken valueToken = jsonParser.nextToken();
+			if ( "kind".equals(name) ) {
+				Kind kind = valueToken==JsonToken.VALUE_STRING ? SKIPPED_KINDS.get(jsonParser.getText()) : null;
+				if ( kind!=null ) {
+					skipRemainingProperties(jsonParser);
+					return Result.kindOnly(kind);
+				}
+				if ( propertyFilter==null ) {
+					properties = kindLookaheadProperties; // No need to look any further
+				}
+			} else if ( propertyFilter!=null && valueToken==JsonToken.VALUE_STRING 
+					&& propertyFilter.rejects(name, jsonParser.getText()) ) {
+				skipRemainingProperties(jsonParser);
+				return Result.rejected();
+			} else if ( "codeFlows".equals(name) ) {
+				// Stop looking ahead; binding continues with the codeFlows value
+				buffer = startBuffer(buffer, jsonParser);
+				buffer.writeFieldName(name);
+				break;
+			}
+			buffer = startBuffer(buffer, jsonParser);
+			buffer.writeFieldName(name);
+			buffer.copyCurrentStructure(jsonParser);
+			token = jsonParser.nextToken();
+		}
+		buffer = startBuffer(buffer, jsonParser);
+		// Don't close this parser sequence, as that would close the given parser
+		@SuppressWarnings("resource")
+		JsonParser sequence = JsonParserSequence.createFlattened(true, buffer.asParser(), jsonParser);
+		sequence.nextToken();
+		return sequence.readValueAs(Result.class);
+	}
+	
+	private static final TokenBuffer startBuffer(TokenBuffer buffer, JsonParser jsonParser) throws IOException {
+		if ( buffer==null ) {
+			buffer = new TokenBuffer(jsonParser);
+			buffer.writeStartObject();
+		}
+		return buffer;
+	}
+	
+	private static final void skipRemainingProperties(JsonParser jsonParser) throws IOException {
+		while ( jsonParser.nextToken()==JsonToken.FIELD_NAME ) {
+			jsonParser.nextToken();
+			jsonParser.skipChildren();
+		}
+	}
+}
@@ -25,16 +25,21 @@
 package com.fortify.ssc.parser.sarif.domain;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
-import org.mapdb.DB;
-import org.mapdb.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonToken;
+import com.fortify.ssc.parser.sarif.store.RunDataStore;
 import com.fortify.util.io.Region;
 import com.fortify.util.json.ExtendedJsonParser;
 import com.fortify.util.json.StreamingJsonParser;
@@ -51,60 +56,262 @@ import lombok.Getter;
 public final class RunData {
     private static final Logger LOG = LoggerFactory.getLogger(RunData.class);
 	private final Map<String, ArtifactLocation> originalUriBaseIds;
+	private final Map<String, URI> resolvedBaseURIs = new HashMap<>();
+	private StringTable artifactUris = new StringTable();
+	private StringTable artifactUriBaseIds = new StringTable();
+	private StringTable artifactFullFileNames = null;
+	private boolean artifactFullFileNamesResolved = false;
+	private boolean originalUriBaseIdsParsed = false;
+	private boolean artifactsParsed = false;
+	private boolean artifactUriBaseIdsPresent = false;
+	private final Map<Integer, Map<String, Optional<MessageTemplate>>> ruleMessageTemplates = new ConcurrentHashMap<>();
 	private final List<Artifact> artifactsByIndex;
 	private final Map<String, Integer> ruleIndexesById;
 	private final Map<String, Integer> ruleIndexesByGuid;
 	private final List<ReportingDescriptor> rulesByIndex;
 	@Getter private Region resultsRegion = null;
 	@Getter private String toolName;
+	@Getter private long streamedResultCount = 0;
+	@Getter private ResultCheckpoints resultCheckpoints = null;
+	private ResultHandler resultHandler = null;
+	private long inputOffset = 0;
+	private long resultCheckpointInterval = 0;
 	
 	/**
-	 * Private constructor; instances can be created through the {@link #parseRunData(DB, ExtendedJsonParser)}
+	 * Private constructor; instances can be created through the {@link #parseRunData(RunDataStore, ExtendedJsonParser)}
 	 * method.
 	 * 
-	 * @param db
+	 * @param store
 	 */
-	@SuppressWarnings("unchecked")
-    private RunData(final DB db) {
+    private RunData(final RunDataStore store) {
 		// We assume there's only a limited set of URI base id's, so store in memory
 		this.originalUriBaseIds = new HashMap<>();
-		// We assume large scans may include a lot of artifacts and rules, so we use disk-backed collections.
-		// Note that alternatively we could use a hash & position-based approach like the SARIF .NET SDK
-		// (see DeferredDictionary and DeferredList) to avoid serializing entries to disk, but for now
-		// disk-backed collections seem to perform well and the implementation is much easier to understand.
-		this.artifactsByIndex = (List<Artifact>) db.indexTreeList("artifactsByIndex", Serializer.JAVA).create();
-		this.ruleIndexesById = db.hashMap("ruleIndexesById", Serializer.STRING, Serializer.INTEGER).create();
-		this.ruleIndexesByGuid = db.hashMap("ruleIndexesByGuid", Serializer.STRING, Serializer.INTEGER).create();
-		this.rulesByIndex = (List<ReportingDescriptor>) db.indexTreeList("rulesByIndex", Serializer.JAVA).create();
+		// We assume large scans may include a lot of artifacts and rules, so we let the given store decide 
+		// whether to keep these in memory or in disk-backed collections. Entries are stored using compact, 
+		// purpose-built serializers rather than Java serialization, as every rule or artifact lookup from 
+		// an off-heap store requires deserializing the corresponding entry.
+		this.artifactsByIndex = store.createList("artifactsByIndex", Artifact.SERIALIZER);
+		this.ruleIndexesById = store.createIndexMap("ruleIndexesById");
+		this.ruleIndexesByGuid = store.createIndexMap("ruleIndexesByGuid");
+		this.rulesByIndex = store.createList("rulesByIndex", ReportingDescriptor.SERIALIZER);
+	}
+	
+	/**
+	 * Private constructor; instances can be created through the 
+	 * {@link #parseDeferredRunData(RegionReader, ExtendedJsonParser)} method.
+	 * 
+	 * @param regionReader
+	 */
+	private RunData(final RegionReader regionReader) {
+		// Similar to the SARIF .NET SDK (see DeferredDictionary and DeferredList), we only 
+		// keep the input document offsets of each artifact and rule, together with in-memory 
+		// rule id and guid indexes. Entries are re-read from the input document when accessed,
+		// avoiding the need to write every entry to a disk-backed database. 
+		this.originalUriBaseIds = new HashMap<>();
+		this.artifactsByIndex = new DeferredList<>(regionReader, Artifact.class);
+		this.ruleIndexesById = new HashMap<>();
+		this.ruleIndexesByGuid = new HashMap<>();
+		this.rulesByIndex = new DeferredList<>(regionReader, ReportingDescriptor.class);
+	}
+	
+	/**
+	 * Private constructor; instances can be created through the 
+	 * {@link #withRegionReader(RegionReader)} method. The new instance shares
+	 * all data that is no longer modified once a run has been read with the 
+	 * given {@link RunData} instance, but has its own caches.
+	 * 
+	 * @param runData
+	 * @param regionReader
+	 */
+	private RunData(final RunData runData, final RegionReader regionReader) {
+		this.originalUriBaseIds = runData.originalUriBaseIds;
+		this.resolvedBaseURIs.putAll(runData.resolvedBaseURIs);
+		this.artifactUris = null;
+		this.artifactUriBaseIds = null;
+		this.artifactFullFileNames = runData.artifactFullFileNames;
+		this.artifactFullFileNamesResolved = true;
+		this.originalUriBaseIdsParsed = runData.originalUriBaseIdsParsed;
+		this.artifactsParsed = runData.artifactsParsed;
+		this.artifactUriBaseIdsPresent = runData.artifactUriBaseIdsPresent;
+		this.artifactsByIndex = ((DeferredList<Artifact>)runData.artifactsByIndex).withRegionReader(regionReader);
+		this.ruleIndexesById = runData.ruleIndexesById;
+		this.ruleIndexesByGuid = runData.ruleIndexesByGuid;
+		this.rulesByIndex = ((DeferredList<ReportingDescriptor>)runData.rulesByIndex).withRegionReader(regionReader);
+		this.resultsRegion = runData.resultsRegion;
+		this.toolName = runData.toolName;
+		this.streamedResultCount = runData.streamedResultCount;
+		this.resultCheckpoints = runData.resultCheckpoints;
 	}
 	
 	/**
 	 * This method parses auxiliary data from a SARIF <code>run</code> object;
 	 * the returned {@link RunData} object provides access to this auxiliary data.
 	 * 
-	 * @param db used to temporarily store some data in disk-backed collections
+	 * @param store used to temporarily store rules and artifacts
 	 * @param jsonParser pointing at a <code>run</code> entry in the SARIF <code>runs</code> array
 	 * @return {@link RunData} instance
 	 * @throws IOException
 	 */
-	public static final RunData parseRunData(final DB db, final ExtendedJsonParser jsonParser) throws IOException {
-		RunData runData = new RunData(db);
+	public static final RunData parseRunData(final RunDataStore store, final ExtendedJsonParser jsonParser) throws IOException {
+		return parseRunData(store, jsonParser, null, 0, 0);
+	}
+	
+	/**
+	 * This method parses auxiliary data from a SARIF <code>run</code> object;
+	 * the returned {@link RunData} object provides access to this auxiliary data.
+	 * If all run data referenced by the run results precedes the <code>results</code>
+	 * array in the input document, results will be passed to the given result handler 
+	 * while parsing the run; see {@link #getStreamedResultCount()}.
+	 * 
+	 * @param store used to temporarily store rules and artifacts
+	 * @param jsonParser pointing at a <code>run</code> entry in the SARIF <code>runs</code> array
+	 * @param resultHandler to be invoked for results processed while parsing the run, may be null
+	 * @param inputOffset input document offset at which the given {@link ExtendedJsonParser} 
+	 *        started reading, used to calculate input document offsets for re-reading data 
+	 * @param resultCheckpointInterval if larger than 0, minimum number of bytes between two 
+	 *        {@link ResultCheckpoints} recorded for a <code>results</code> array that needs 
+	 *        to be re-read; see {@link #getResultCheckpoints()}
+	 * @return {@link RunData} instance
+	 * @throws IOException
+	 */
+	public static final RunData parseRunData(final RunDataStore store, final ExtendedJsonParser jsonParser, final ResultHandler resultHandler, final long inputOffset, final long resultCheckpointInterval) throws IOException {
+		RunData runData = new RunData(store);
+		runData.resultHandler = resultHandler;
+		runData.inputOffset = inputOffset;
+		runData.resultCheckpointInterval = resultCheckpointInterval;
 		new StreamingJsonParser()
 			.handler("/originalUriBaseIds/*", runData::addOriginalUriBaseId)
 			.handler("/artifacts/*", Artifact.class, runData::addArtifact)
 			.handler("/tool/driver/rules/*", ReportingDescriptor.class, runData::addRule)
 			.handler("/tool/driver/name", String.class, runData::setToolName)
-			.handler("/results", runData::setResultsRegion)
+			.handler("/results", runData::handleResults)
+			.parseObjectProperties(jsonParser, "/");
+		runData.completeRunData();
+		return runData;
+	}
+	
+	/**
+	 * This method parses auxiliary data from a SARIF <code>run</code> object
+	 * without storing the actual artifacts and rules; the returned {@link RunData} 
+	 * object will use the given {@link RegionReader} to re-read individual 
+	 * artifacts and rules from the input document when accessed.
+	 * 
+	 * @param regionReader used to re-read artifacts and rules from the input document
+	 * @param jsonParser pointing at a <code>run</code> entry in the SARIF <code>runs</code> array
+	 * @return {@link RunData} instance
+	 * @throws IOException
+	 */
+	public static final RunData parseDeferredRunData(final RegionReader regionReader, final ExtendedJsonParser jsonParser) throws IOException {
+		return parseDeferredRunData(regionReader, jsonParser, null, 0, 0);
+	}
+	
+	/**
+	 * This method parses auxiliary data from a SARIF <code>run</code> object
+	 * without storing the actual artifacts and rules, like 
+	 * {@link #parseDeferredRunData(RegionReader, ExtendedJsonParser)}. Results
+	 * may be passed to the given result handler while parsing the run, like
+	 * {@link #parseRunData(RunDataStore, ExtendedJsonParser, ResultHandler, long, long)}.
+	 * 
+	 * @param regionReader used to re-read artifacts and rules from the input document
+	 * @param jsonParser pointing at a <code>run</code> entry in the SARIF <code>runs</code> array
+	 * @param resultHandler to be invoked for results processed while parsing the run, may be null
+	 * @param inputOffset input document offset at which the given {@link ExtendedJsonParser} 
+	 *        started reading, used to calculate input document offsets for re-reading data 
+	 * @param resultCheckpointInterval if larger than 0, minimum number of bytes between two 
+	 *        {@link ResultCheckpoints} recorded for a <code>results</code> array that needs 
+	 *        to be re-read; see {@link #getResultCheckpoints()}
+	 * @return {@link RunData} instance
+	 * @throws IOException
+	 */
+	public static final RunData parseDeferredRunData(final RegionReader regionReader, final ExtendedJsonParser jsonParser, final ResultHandler resultHandler, final long inputOffset, final long resultCheckpointInterval) throws IOException {
+		return parseDeferredRunData(regionReader, jsonParser, new StreamingJsonParser(), resultHandler, inputOffset, resultCheckpointInterval);
+	}
+	
+	/**
+	 * This method parses auxiliary data from a SARIF <code>run</code> object
+	 * without storing the actual artifacts and rules, like 
+	 * {@link #parseDeferredRunData(RegionReader, ExtendedJsonParser)}, while
+	 * also invoking any handlers registered on the given {@link StreamingJsonParser}.
+	 * This allows for collecting other run properties in the same pass, for example
+	 * when building a run index while parsing scan information. Results are never
+	 * processed while parsing the run; the returned {@link RunData} object always
+	 * provides the region of the <code>results</code> array (if available).
+	 * 
+	 * @param regionReader used to re-read artifacts and rules from the input document
+	 * @param jsonParser pointing at a <code>run</code> entry in the SARIF <code>runs</code> array
+	 * @param runParser {@link StreamingJsonParser} with additional handlers, using paths 
+	 *        relative to the <code>run</code> object
+	 * @param resultCheckpointInterval if larger than 0, minimum number of bytes between two 
+	 *        {@link ResultCheckpoints} recorded for the <code>results</code> array
+	 * @return {@link RunData} instance
+	 * @throws IOException
+	 */
+	public static final RunData parseDeferredRunData(final RegionReader regionReader, final ExtendedJsonParser jsonParser, final StreamingJsonParser runParser, final long resultCheckpointInterval) throws IOException {
+		return parseDeferredRunData(regionReader, jsonParser, runParser, null, 0, resultCheckpointInterval);
+	}
+	
+	private static final RunData parseDeferredRunData(final RegionReader regionReader, final ExtendedJsonParser jsonParser, final StreamingJsonParser runParser, final ResultHandler resultHandler, final long inputOffset, final long resultCheckpointInterval) throws IOException {
+		RunData runData = new RunData(regionReader);
+		runData.resultHandler = resultHandler;
+		runData.inputOffset = inputOffset;
+		runData.resultCheckpointInterval = resultCheckpointInterval;
+		runParser
+			.handler("/originalUriBaseIds/*", runData::addOriginalUriBaseId)
+			.handler("/artifacts/*", runData::addDeferredArtifact)
+			.handler("/tool/driver/rules/*", runData::addDeferredRule)
+			.handler("/tool/driver/name", String.class, runData::setToolName)
+			.handler("/results", runData::handleResults)
 			.parseObjectProperties(jsonParser, "/");
+		runData.completeRunData();
 		return runData;
 	}
 
+	/**
+	 * Create a new {@link RunData} instance for the same run as this deferred 
+	 * {@link RunData} instance, re-reading artifacts and rules through the given
+	 * {@link RegionReader}. This allows for re-using a {@link RunData} instance
+	 * that was created while reading the input document through another 
+	 * {@link RegionReader}, for example while parsing scan information.
+	 * 
+	 * @param regionReader used to re-read artifacts and rules from the input document
+	 * @return New {@link RunData} instance
+	 * @throws IllegalStateException if this {@link RunData} instance wasn't created by
+	 *         one of the <code>parseDeferredRunData</code> methods
+	 */
+	public final RunData withRegionReader(final RegionReader regionReader) {
+		if ( !isDeferred() ) {
+			throw new IllegalStateException("Only deferred run data can be re-used with another region reader");
+		}
+		return new RunData(this, regionReader);
+	}
+	
+	/**
+	 * @return true if this {@link RunData} instance re-reads artifacts and rules
+	 *         from the input document when accessed, false otherwise
+	 */
+	public final boolean isDeferred() {
+		return rulesByIndex instanceof DeferredList;
+	}
+
 	private final void addOriginalUriBaseId(ExtendedJsonParser jp) throws IOException {
 		originalUriBaseIds.put(jp.getCurrentName(), jp.readValueAs(ArtifactLocation.class));
+		originalUriBaseIdsParsed = true;
+		artifactFullFileNamesResolved = false;
 	}
 	
 	private final void addArtifact(Artifact artifact) {
 		artifactsByIndex.add(artifact);
+		ArtifactLocation location = artifact==null ? null : artifact.getLocation();
+		URI uri = location==null ? null : location.getUri();
+		addArtifactLocation(uri==null ? null : uri.toString(), location==null ? null : location.getUriBaseId());
+	}
+	
+	private final void addArtifactLocation(String uri, String uriBaseId) {
+		artifactUris.add(uri);
+		artifactUriBaseIds.add(uriBaseId);
+		artifactsParsed = true;
+		artifactUriBaseIdsPresent |= uriBaseId!=null;
+		artifactFullFileNamesResolved = false;
 	}
 
 	private final void addRule(ReportingDescriptor reportingDescriptor) {
@@ -114,24 +321,277 @@ public final class RunData {
 		addRuleIndex(ruleIndexesByGuid, reportingDescriptor.getGuid(), index);
 	}
 	
+	/**
+	 * Record the input document offsets of the current artifact object, collecting
+	 * only the location uri and uriBaseId properties while skipping any other 
+	 * properties at the token level.
+	 */
+	private final void addDeferredArtifact(ExtendedJsonParser jp) throws IOException {
+		long start = getTokenOffset(jp);
+		String uri = null, uriBaseId = null;
+		if ( jp.currentToken()==JsonToken.START_OBJECT ) {
+			while ( jp.nextToken()==JsonToken.FIELD_NAME ) {
+				String name = jp.getCurrentName();
+				if ( jp.nextToken()==JsonToken.START_OBJECT && "location".equals(name) ) {
+					while ( jp.nextToken()==JsonToken.FIELD_NAME ) {
+						String locationName = jp.getCurrentName();
+						JsonToken valueToken = jp.nextToken();
+						if ( valueToken==JsonToken.VALUE_STRING && "uri".equals(locationName) ) {
+							uri = jp.getText();
+						} else if ( valueToken==JsonToken.VALUE_STRING && "uriBaseId".equals(locationName) ) {
+							uriBaseId = jp.getText();
+						} else {
+							jp.skipChildren();
+						}
+					}
+				} else {
+					jp.skipChildren();
+				}
+			}
+		} else {
+			jp.skipChildren();
+		}
+		((DeferredList<Artifact>)artifactsByIndex).addRegion(start, getCurrentOffset(jp));
+		addArtifactLocation(uri, uriBaseId);
+	}
+	
+	/**
+	 * Record the input document offsets of the current rule object, collecting
+	 * only the rule id and guid properties while skipping any other properties 
+	 * at the token level.
+	 */
+	private final void addDeferredRule(ExtendedJsonParser jp) throws IOException {
+		long start = getTokenOffset(jp);
+		String id = null, guid = null;
+		if ( jp.currentToken()==JsonToken.START_OBJECT ) {
+			while ( jp.nextToken()==JsonToken.FIELD_NAME ) {
+				String name = jp.getCurrentName();
+				JsonToken valueToken = jp.nextToken();
+				if ( valueToken==JsonToken.VALUE_STRING && "id".equals(name) ) {
+					id = jp.getText();
+				} else if ( valueToken==JsonToken.VALUE_STRING && "guid".equals(name) ) {
+					guid = jp.getText();
+				} else {
+					jp.skipChildren();
+				}
+			}
+		} else {
+			jp.skipChildren();
+		}
+		DeferredList<ReportingDescriptor> deferredRules = (DeferredList<ReportingDescriptor>)rulesByIndex;
+		deferredRules.addRegion(start, getCurrentOffset(jp));
+		int index = deferredRules.size()-1;
+		addRuleIndex(ruleIndexesById, id, index);
+		addRuleIndex(ruleIndexesByGuid, guid, index);
+	}
+	
 	private final void addRuleIndex(Map<String,Integer> map, String key, int index) {
 		if ( StringUtils.isNotBlank(key) ) {
 			map.put(key, index);
 		}
 	}
 	
+	private final long getTokenOffset(ExtendedJsonParser jp) {
+		return inputOffset+jp.getTokenLocation().getByteOffset();
+	}
+	
+	private final long getCurrentOffset(ExtendedJsonParser jp) {
+		return inputOffset+jp.getCurrentLocation().getByteOffset();
+	}
+	
 	private final void setResultsRegion(ExtendedJsonParser jp) throws IOException {
-		this.resultsRegion = jp.getObjectOrArrayRegion();
+		if ( resultCheckpointInterval>0 && jp.currentToken()==JsonToken.START_ARRAY ) {
+			setResultsRegionWithCheckpoints(jp);
+		} else {
+			Region region = jp.getObjectOrArrayRegion();
+			this.resultsRegion = inputOffset==0 ? region : new Region(inputOffset+region.getStart(), inputOffset+region.getEnd());
+		}
+	}
+	
+	/**
+	 * Record the region of the <code>results</code> array, together with 
+	 * {@link ResultCheckpoints} for splitting the array on result boundaries. 
+	 * Checkpoints are collected while skipping the array, so this doesn't
+	 * require any additional parsing compared to just recording the region. 
+	 */
+	private final void setResultsRegionWithCheckpoints(ExtendedJsonParser jp) throws IOException {
+		long start = getTokenOffset(jp);
+		ResultCheckpoints checkpoints = new ResultCheckpoints(resultCheckpointInterval);
+		long previousEnd = getCurrentOffset(jp);
+		while ( jp.nextToken()!=JsonToken.END_ARRAY ) {
+			checkpoints.addResult(getTokenOffset(jp), previousEnd);
+			jp.skipChildren();
+			previousEnd = getCurrentOffset(jp);
+		}
+		checkpoints.complete(previousEnd);
+		this.resultCheckpoints = checkpoints;
+		this.resultsRegion = new Region(start, getCurrentOffset(jp));
+	}
+	
+	private final void handleResults(ExtendedJsonParser jp) throws IOException {
+		if ( resultHandler!=null && jp.currentToken()==JsonToken.START_ARRAY && isRunDataAvailableForResults() ) {
+			streamResults(jp);
+		} else {
+			setResultsRegion(jp);
+		}
+	}
+	
+	/**
+	 * Pass results to the configured result handler while parsing the run, for
+	 * as long as the run data referenced by these results has already been read. 
+	 * Once a result references run data that may not have been read yet, the remainder 
+	 * of the <code>results</code> array is skipped, and the region of the 
+	 * <code>results</code> array is recorded to allow for re-reading the remaining 
+	 * results once the full run has been read. If a checkpoint interval has been 
+	 * configured, {@link ResultCheckpoints} are recorded for the full array in that
+	 * case, with streamed results being counted in the checkpoint result indexes.
+	 */
+	private final void streamResults(ExtendedJsonParser jp) throws IOException {
+		long start = getTokenOffset(jp);
+		ResultCheckpoints checkpoints = resultCheckpointInterval>0 ? new ResultCheckpoints(resultCheckpointInterval) : null;
+		long previousEnd = getCurrentOffset(jp);
+		resolveArtifactFullFileNames();
+		JsonToken token;
+		while ( (token=jp.nextToken())!=JsonToken.END_ARRAY ) {
+			if ( checkpoints!=null ) { checkpoints.addResult(getTokenOffset(jp), previousEnd); }
+			Result result = token==JsonToken.START_OBJECT ? resultHandler.readResult(jp) : null;
+			if ( result==null || !isRunDataAvailable(result) ) {
+				jp.skipChildren();
+				previousEnd = getCurrentOffset(jp);
+				while ( jp.nextToken()!=JsonToken.END_ARRAY ) {
+					if ( checkpoints!=null ) { checkpoints.addResult(getTokenOffset(jp), previousEnd); }
+					jp.skipChildren();
+					previousEnd = getCurrentOffset(jp);
+				}
+				if ( checkpoints!=null ) {
+					checkpoints.complete(previousEnd);
+					this.resultCheckpoints = checkpoints;
+				}
+				this.resultsRegion = new Region(start, getCurrentOffset(jp));
+				break;
+			}
+			resultHandler.handleResult(this, result);
+			streamedResultCount++;
+			previousEnd = getCurrentOffset(jp);
+		}
+		resultHandler.endResults();
+	}
+	
+	/**
+	 * Rules and tool name are read from the <code>tool</code> property; as 
+	 * <code>tool</code> is a sibling of <code>results</code>, the <code>tool</code> 
+	 * property has been read completely if either of these are available. Artifact 
+	 * file names can only be resolved if either there are no artifacts that refer to 
+	 * a uriBaseId, or if <code>originalUriBaseIds</code> has been read.
+	 */
+	private final boolean isRunDataAvailableForResults() {
+		return (toolName!=null || getRuleCount()>0) 
+				&& (originalUriBaseIdsParsed || !artifactUriBaseIdsPresent);
+	}
+	
+	/**
+	 * Check whether the run data referenced by the given result for resolving the
+	 * result file name has been read. 
+	 */
+	private final boolean isRunDataAvailable(Result result) {
+		Location[] locations = result.getLocations();
+		if ( locations!=null && locations.length>0 ) {
+			PhysicalLocation physicalLocation = locations[0].getPhysicalLocation();
+			return locations[0].getMessage()!=null || physicalLocation==null 
+					|| isRunDataAvailable(physicalLocation.getArtifactLocation());
+		}
+		return isRunDataAvailable(result.getAnalysisTarget());
+	}
+	
+	private final boolean isRunDataAvailable(ArtifactLocation artifactLocation) {
+		if ( artifactLocation==null ) { return true; }
+		Integer index = artifactLocation.getIndex();
+		return (index==null || artifactsParsed) 
+				&& (artifactLocation.getUriBaseId()==null || originalUriBaseIdsParsed);
 	}
 	
 	private final void setToolName(String toolName) {
 		this.toolName = toolName;
 	}
 	
+	/**
+	 * Resolve the full file name for every artifact collected so far, so that 
+	 * looking up the file name for a result that refers to an artifact index doesn't 
+	 * require URI parsing and resolution for every individual result. File names
+	 * are resolved before processing any results while reading the run, and once 
+	 * more after the full run has been read if any artifacts or base URI's have
+	 * been collected since.
+	 */
+	private final void resolveArtifactFullFileNames() {
+		if ( artifactFullFileNamesResolved ) { return; }
+		resolvedBaseURIs.clear();
+		for ( String uriBaseId : originalUriBaseIds.keySet() ) {
+			resolveBaseURI(uriBaseId, new HashSet<>());
+		}
+		StringTable fullFileNames = new StringTable();
+		for ( int i = 0 ; i < artifactUris.size() ; i++ ) {
+			String uri = artifactUris.get(i);
+			fullFileNames.add(uri==null ? null 
+					: ArtifactLocation.getFullFileName(this, URIDeserializer.toURI(uri), artifactUriBaseIds.get(i)));
+		}
+		fullFileNames.trimToSize();
+		this.artifactFullFileNames = fullFileNames;
+		this.artifactFullFileNamesResolved = true;
+	}
+	
+	/**
+	 * Resolve any remaining data once the full run has been read, 
+	 * and release any data that is no longer needed.
+	 */
+	private final void completeRunData() {
+		resolveArtifactFullFileNames();
+		this.artifactUris = null;
+		this.artifactUriBaseIds = null;
+		this.resultHandler = null;
+	}
+	
+	private final URI resolveBaseURI(String uriBaseId, Set<String> visitedUriBaseIds) {
+		if ( resolvedBaseURIs.containsKey(uriBaseId) ) { return resolvedBaseURIs.get(uriBaseId); }
+		ArtifactLocation baseLocation = originalUriBaseIds.get(uriBaseId);
+		if ( baseLocation==null ) { return null; }
+		if ( !visitedUriBaseIds.add(uriBaseId) ) {
+			LOG.warn("SARIF input error: Ignoring circular reference to uriBaseId "+uriBaseId);
+			return null;
+		}
+		URI result = baseLocation.getUri();
+		URI baseUri = baseLocation.getUriBaseId()==null ? null : resolveBaseURI(baseLocation.getUriBaseId(), visitedUriBaseIds);
+		if ( baseUri!=null && result!=null ) {
+			result = baseUri.resolve(result);
+		}
+		resolvedBaseURIs.put(uriBaseId, result);
+		return result;
+	}
+	
 	public final ArtifactLocation getBaseLocation(String uriBaseId) {
 		return uriBaseId==null ? null : originalUriBaseIds.get(uriBaseId);
 	}
 	
+	/**
+	 * @param uriBaseId
+	 * @return Absolute base URI for the given uriBaseId, resolved against any parent base URI's, or null if not available
+	 */
+	public final URI getResolvedBaseURI(String uriBaseId) {
+		return uriBaseId==null ? null : resolvedBaseURIs.get(uriBaseId);
+	}
+	
+	/**
+	 * @param index
+	 * @return Pre-computed full file name for the artifact at the given index, or null if not available 
+	 */
+	public final String getArtifactFullFileName(Integer index) {
+		if ( index==null || artifactFullFileNames==null || artifactFullFileNames.size()==0 ) { return null; }
+		if ( index<0 || index>=artifactFullFileNames.size() ) {
+			LOG.warn("SARIF input error: Ignoring non-existing artifact index "+index);
+			return null;
+		}
+		return artifactFullFileNames.get(index);
+	}
+	
 	public final Artifact getArtifactByIndex(Integer index) {
 		if ( index==null || artifactsByIndex==null || artifactsByIndex.isEmpty() ) { return null; }
         if ( index<0 || index>=artifactsByIndex.size() ) {
@@ -142,19 +602,57 @@ public final class RunData {
 	}
 	
 	public final ReportingDescriptor getRuleById(String id) {
-		return getRuleByIndex(ruleIndexesById.get(id));
+		return getRuleByIndex(getRuleIndexById(id));
 	}
 	
 	public final ReportingDescriptor getRuleByGuid(String guid) {
-		return getRuleByIndex(ruleIndexesByGuid.get(guid));
+		return getRuleByIndex(getRuleIndexByGuid(guid));
+	}
+	
+	public final Integer getRuleIndexById(String id) {
+		return id==null ? null : ruleIndexesById.get(id);
+	}
+	
+	public final Integer getRuleIndexByGuid(String guid) {
+		return guid==null ? null : ruleIndexesByGuid.get(guid);
 	}
 	
 	public final ReportingDescriptor getRuleByIndex(Integer index) {
-	    if ( index==null || rulesByIndex==null || rulesByIndex.isEmpty() ) { return null; }
+		return isValidRuleIndex(index) ? rulesByIndex.get(index) : null;
+	}
+	
+	/**
+	 * Get the parsed message string with the given id for the rule at the given index. 
+	 * Parsed message strings are cached, so every rule message string is parsed only 
+	 * once, no matter how many results refer to it.
+	 * @param ruleIndex
+	 * @param messageId
+	 * @return {@link MessageTemplate} for the given rule message string, or null if not available
+	 */
+	public final MessageTemplate getRuleMessageTemplate(int ruleIndex, String messageId) {
+		return ruleMessageTemplates
+			.computeIfAbsent(ruleIndex, i->new ConcurrentHashMap<>())
+			.computeIfAbsent(messageId, id->Optional.ofNullable(getRuleByIndex(ruleIndex))
+					.map(rule->rule.getMessageString(id))
+					.map(MultiformatMessageString::getText)
+					.map(MessageTemplate::parse))
+			.orElse(null);
+	}
+	
+	public final int getArtifactCount() {
+		return artifactsByIndex==null ? 0 : artifactsByIndex.size();
+	}
+	
+	public final int getRuleCount() {
+		return rulesByIndex==null ? 0 : rulesByIndex.size();
+	}
+	
+	public final boolean isValidRuleIndex(Integer index) {
+	    if ( index==null || rulesByIndex==null || rulesByIndex.isEmpty() ) { return false; }
 	    if ( index<0 || index>=rulesByIndex.size() ) {
 	       LOG.warn("SARIF input error: Ignoring non-existing rule index "+index);
-	       return null;
+	       return false;
 	    }
-		return rulesByIndex.get(index);
+		return true;
 	}
 }
\ No newline at end of file
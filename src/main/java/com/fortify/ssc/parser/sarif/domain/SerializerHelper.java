@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+import org.mapdb.serializer.SerializerCompressionWrapper;
+
+/**
+ * This class provides the low-level encoding methods shared by the compact
+ * {@link Serializer} implementations of our domain classes. All values are
+ * written using a varint/length-prefixed layout; nullable values are prefixed
+ * by either a presence flag or a length that is offset by one, such that 0 can
+ * be used to indicate <code>null</code>. Large text values (like rule help text)
+ * are LZF-compressed using MapDB's built-in compression support.
+ */
+final class SerializerHelper {
+	/** Text values longer than this number of characters will be compressed */
+	private static final int COMPRESSION_THRESHOLD = 512;
+	private static final Serializer<String> COMPRESSED_STRING = new SerializerCompressionWrapper<>(Serializer.STRING);
+	
+	private static final int STRING_NULL = 0;
+	private static final int STRING_PLAIN = 1;
+	private static final int STRING_COMPRESSED = 2;
+	
+	private SerializerHelper() {}
+	
+	static final void writeString(DataOutput2 out, String value) throws IOException {
+		if ( value==null ) {
+			out.packInt(0);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.packInt(bytes.length+1);
+			out.write(bytes);
+		}
+	}
+	
+	static final String readString(DataInput2 in) throws IOException {
+		int length = in.unpackInt()-1;
+		if ( length<0 ) { return null; }
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	static final void writeCompressibleString(DataOutput2 out, String value) throws IOException {
+		if ( value==null ) {
+			out.writeByte(STRING_NULL);
+		} else if ( value.length()<=COMPRESSION_THRESHOLD ) {
+			out.writeByte(STRING_PLAIN);
+			writeString(out, value);
+		} else {
+			out.writeByte(STRING_COMPRESSED);
+			COMPRESSED_STRING.serialize(out, value);
+		}
+	}
+	
+	static final String readCompressibleString(DataInput2 in) throws IOException {
+		switch ( in.readByte() ) {
+		case STRING_NULL: return null;
+		case STRING_PLAIN: return readString(in);
+		case STRING_COMPRESSED: return COMPRESSED_STRING.deserialize(in, -1);
+		default: throw new IOException("Corrupt compressible string encoding");
+		}
+	}
+	
+	static final void writeStringArray(DataOutput2 out, String[] values) throws IOException {
+		if ( values==null ) {
+			out.packInt(0);
+		} else {
+			out.packInt(values.length+1);
+			for ( String value : values ) { writeString(out, value); }
+		}
+	}
+	
+	static final String[] readStringArray(DataInput2 in) throws IOException {
+		int length = in.unpackInt()-1;
+		if ( length<0 ) { return null; }
+		String[] result = new String[length];
+		for ( int i = 0 ; i < length ; i++ ) { result[i] = readString(in); }
+		return result;
+	}
+	
+	static final void writeInteger(DataOutput2 out, Integer value) throws IOException {
+		out.writeBoolean(value!=null);
+		if ( value!=null ) { out.packLong(zigZag(value)); }
+	}
+	
+	static final Integer readInteger(DataInput2 in) throws IOException {
+		return in.readBoolean() ? (int)unZigZag(in.unpackLong()) : null;
+	}
+	
+	static final void writeURI(DataOutput2 out, URI value) throws IOException {
+		writeString(out, value==null ? null : value.toString());
+	}
+	
+	static final URI readURI(DataInput2 in) throws IOException {
+		String value = readString(in);
+		return value==null ? null : URI.create(value);
+	}
+	
+	static final <T> void writeNullable(DataOutput2 out, T value, Serializer<T> serializer) throws IOException {
+		out.writeBoolean(value!=null);
+		if ( value!=null ) { serializer.serialize(out, value); }
+	}
+	
+	static final <T> T readNullable(DataInput2 in, Serializer<T> serializer) throws IOException {
+		return in.readBoolean() ? serializer.deserialize(in, -1) : null;
+	}
+	
+	static final <V> void writeMap(DataOutput2 out, Map<String, V> map, Serializer<V> valueSerializer) throws IOException {
+		if ( map==null ) {
+			out.packInt(0);
+		} else {
+			out.packInt(map.size()+1);
+			for ( Map.Entry<String, V> entry : map.entrySet() ) {
+				writeString(out, entry.getKey());
+				writeNullable(out, entry.getValue(), valueSerializer);
+			}
+		}
+	}
+	
+	static final <V> Map<String, V> readMap(DataInput2 in, Serializer<V> valueSerializer) throws IOException {
+		int size = in.unpackInt()-1;
+		if ( size<0 ) { return null; }
+		Map<String, V> result = new LinkedHashMap<>(size*4/3+1);
+		for ( int i = 0 ; i < size ; i++ ) {
+			result.put(readString(in), readNullable(in, valueSerializer));
+		}
+		return result;
+	}
+	
+	private static final long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+	
+	private static final long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
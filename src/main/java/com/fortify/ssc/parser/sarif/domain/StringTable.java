@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import java.util.Arrays;
+
+/**
+ * Compact, append-only table of strings. All characters are stored in a single 
+ * character array, with an end offset for each string, avoiding the per-object 
+ * overhead of storing large numbers of individual {@link String} instances. 
+ * Strings are re-created on every {@link #get(int)} call.
+ */
+public final class StringTable {
+	private char[] chars = new char[1024];
+	private int[] ends = new int[64];
+	private boolean[] nulls = new boolean[64];
+	private int size = 0;
+	
+	/**
+	 * Append the given string (which may be null) to this table.
+	 * @param value
+	 * @return Index of the appended string
+	 */
+	public final int add(String value) {
+		if ( size==ends.length ) {
+			ends = Arrays.copyOf(ends, Math.max(64, size*2));
+			nulls = Arrays.copyOf(nulls, Math.max(64, size*2));
+		}
+		int start = size==0 ? 0 : ends[size-1];
+		int length = value==null ? 0 : value.length();
+		if ( start+length > chars.length ) {
+			chars = Arrays.copyOf(chars, Math.max(chars.length*2, start+length));
+		}
+		if ( value!=null ) {
+			value.getChars(0, length, chars, start);
+		}
+		ends[size] = start+length;
+		nulls[size] = value==null;
+		return size++;
+	}
+	
+	/**
+	 * @param index
+	 * @return String at the given index, or null if a null value was stored at this index
+	 */
+	public final String get(int index) {
+		if ( index<0 || index>=size ) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		}
+		if ( nulls[index] ) { return null; }
+		int start = index==0 ? 0 : ends[index-1];
+		return new String(chars, start, ends[index]-start);
+	}
+	
+	public final int size() {
+		return size;
+	}
+	
+	/**
+	 * Release any unused capacity.
+	 */
+	public final void trimToSize() {
+		int length = size==0 ? 0 : ends[size-1];
+		chars = Arrays.copyOf(chars, length);
+		ends = Arrays.copyOf(ends, size);
+		nulls = Arrays.copyOf(nulls, size);
+	}
+}
@@ -18,7 +18,14 @@ public class URIDeserializer extends JsonDeserializer<URI> {
 
     @Override
     public URI deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
-        String value = p.getValueAsString();
+        return toURI(p.getValueAsString());
+    }
+
+    /**
+     * Convert the given string value to a {@link URI}, using the same approach
+     * as used for deserializing URI fields.
+     */
+    public static URI toURI(String value) {
         if (value == null || value.isEmpty()) {
             return null;
         }
@@ -30,7 +37,7 @@ public class URIDeserializer extends JsonDeserializer<URI> {
         }
     }
 
-    private URI handleAsFilePath(String value) {
+    private static URI handleAsFilePath(String value) {
         try {
             Path path = Paths.get(value);
             return path.toUri();
@@ -43,7 +50,7 @@ public class URIDeserializer extends JsonDeserializer<URI> {
      * Creates a URI by manually encoding special characters.
      * This is a fallback for cases where the value cannot be parsed as a Path.
      */
-    private URI createEncodedURI(String value) {
+    private static URI createEncodedURI(String value) {
         try {
             // Replace spaces and other problematic characters
             String encoded = value.replace(" ", "%20")
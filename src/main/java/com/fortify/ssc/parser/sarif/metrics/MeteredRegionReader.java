@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.metrics;
+
+import java.io.IOException;
+
+import com.fortify.ssc.parser.sarif.domain.RegionReader;
+
+/**
+ * {@link RegionReader} implementation that wraps another {@link RegionReader},
+ * registering each region read with the given {@link ParserMetrics}. Reads 
+ * are registered as lookups named after the type being read, prefixed with
+ * <code>deferred</code>; note that these only include lookups that couldn't be 
+ * served from the cache maintained by {@link com.fortify.ssc.parser.sarif.domain.DeferredList}.
+ */
+public final class MeteredRegionReader implements RegionReader {
+	private final RegionReader delegate;
+	private final ParserMetrics metrics;
+	
+	public MeteredRegionReader(RegionReader delegate, ParserMetrics metrics) {
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+	
+	@Override
+	public <T> T read(Class<T> type, long start, long end) throws IOException {
+		long startNanos = System.nanoTime();
+		try {
+			return delegate.read(type, start, end);
+		} finally {
+			metrics.addLookup("deferred"+type.getSimpleName(), System.nanoTime()-startNanos);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
+
+/**
+ * {@link ScanData} implementation that wraps another {@link ScanData} instance,
+ * registering the number of bytes read from any of the input streams opened
+ * through this instance with the given {@link ParserMetrics}.
+ */
+public final class MeteredScanData implements ScanData {
+	private final ScanData delegate;
+	private final ParserMetrics metrics;
+	
+	public MeteredScanData(ScanData delegate, ParserMetrics metrics) {
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public String getSessionId() {
+		return delegate.getSessionId();
+	}
+
+	@Override
+	public List<ScanEntry> getScanEntries() {
+		return delegate.getScanEntries();
+	}
+
+	@Override
+	public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+		return meter(delegate.getInputStream(matcher));
+	}
+
+	@Override
+	public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+		return meter(delegate.getInputStream(scanEntry));
+	}
+	
+	private InputStream meter(InputStream is) {
+		return is==null ? null : new CountingInputStream(is);
+	}
+	
+	/**
+	 * {@link InputStream} that registers the number of bytes read or skipped
+	 * when the stream is closed
+	 */
+	private final class CountingInputStream extends FilterInputStream {
+		private long count = 0;
+		private boolean closed = false;
+		
+		private CountingInputStream(InputStream in) {
+			super(in);
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int result = super.read();
+			if ( result>=0 ) { count++; }
+			return result;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int result = super.read(b, off, len);
+			if ( result>0 ) { count += result; }
+			return result;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long result = super.skip(n);
+			if ( result>0 ) { count += result; }
+			return result;
+		}
+		
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if ( !closed ) {
+				closed = true;
+				metrics.addBytesRead(count);
+			}
+			super.close();
+		}
+	}
+}
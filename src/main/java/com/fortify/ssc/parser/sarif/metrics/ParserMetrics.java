@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fortify.ssc.parser.sarif.domain.Kind;
+
+import lombok.Getter;
+
+/**
+ * This class collects metrics for a single SARIF import, i.e. a single invocation
+ * of either <code>parseScan</code> or <code>parseVulnerabilities</code>. All methods
+ * are thread-safe, as metrics may be collected from multiple worker threads 
+ * concurrently. Phase timings are summed over all runs, so with concurrent 
+ * run or result processing, the sum of phase timings may exceed the elapsed
+ * time of the import.
+ */
+public final class ParserMetrics {
+	/**
+	 * Phases for which timings are collected
+	 */
+	public static enum Phase {
+		/** Pass over the input document to collect scan metadata (<code>parseScan</code>) */
+		scan, 
+		/** First pass over each run to collect run data, including any results processed in this pass */
+		runData, 
+		/** Pass over the <code>results</code> array of each run that needs to be re-read */
+		results
+	}
+	
+	/** Estimated String object plus char[] header size in bytes */
+	private static final long STRING_OVERHEAD_BYTES = 24+16;
+	
+	@Getter private final String operation;
+	@Getter private final String sessionId;
+	private final long startNanos = System.nanoTime();
+	@Getter private long elapsedNanos = -1;
+	@Getter private boolean succeeded = false;
+	private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+	private final LongAdder bytesRead = new LongAdder();
+	private final LongAdder runs = new LongAdder();
+	private final LongAdder rules = new LongAdder();
+	private final LongAdder artifacts = new LongAdder();
+	private final LongAdder resultsSeen = new LongAdder();
+	private final Map<Kind, LongAdder> resultsSkipped = new EnumMap<>(Kind.class);
+	private final LongAdder resultsFiltered = new LongAdder();
+	private final LongAdder vulnerabilitiesEmitted = new LongAdder();
+	private final LongAdder storageBytes = new LongAdder();
+	private final LongAdder stringPoolHits = new LongAdder();
+	private final LongAdder stringPoolMisses = new LongAdder();
+	private final LongAdder stringPoolBytesSaved = new LongAdder();
+	private final Map<String, LookupStats> lookups = new ConcurrentHashMap<>();
+	private final Set<String> toolNames = ConcurrentHashMap.newKeySet();
+	
+	/**
+	 * Create a {@link ParserMetrics} instance
+	 * @param operation Name of the operation for which metrics are collected 
+	 * @param sessionId SSC session id for the current import, may be null
+	 */
+	public ParserMetrics(String operation, String sessionId) {
+		this.operation = operation;
+		this.sessionId = sessionId;
+		for ( Phase phase : Phase.values() ) { phaseNanos.put(phase, new LongAdder()); }
+		for ( Kind kind : Kind.values() ) { resultsSkipped.put(kind, new LongAdder()); }
+	}
+	
+	public final void addPhaseNanos(Phase phase, long nanos) {
+		phaseNanos.get(phase).add(nanos);
+	}
+	
+	public final void addBytesRead(long bytes) {
+		bytesRead.add(bytes);
+	}
+	
+	/**
+	 * Register a run that has been fully read
+	 * @param toolName of the run, may be null
+	 * @param ruleCount number of rules in the run
+	 * @param artifactCount number of artifacts in the run
+	 */
+	public final void addRun(String toolName, long ruleCount, long artifactCount) {
+		runs.increment();
+		rules.add(ruleCount);
+		artifacts.add(artifactCount);
+		if ( toolName!=null ) { toolNames.add(toolName); }
+	}
+	
+	public final void resultSeen() {
+		resultsSeen.increment();
+	}
+	
+	public final void resultSkipped(Kind kind) {
+		resultsSkipped.get(kind).increment();
+	}
+	
+	/**
+	 * Register a result that was rejected by the configured result filters
+	 */
+	public final void resultFiltered() {
+		resultsFiltered.increment();
+	}
+	
+	public final void vulnerabilityEmitted() {
+		vulnerabilitiesEmitted.increment();
+	}
+	
+	/**
+	 * Register the number of bytes written to off-heap storage by a single
+	 * {@link com.fortify.ssc.parser.sarif.store.RunDataStore}
+	 * @param bytes
+	 */
+	public final void addStorageBytes(long bytes) {
+		storageBytes.add(bytes);
+	}
+	
+	/**
+	 * Register a string pool lookup that returned a previously pooled instance, 
+	 * avoiding retention of a duplicate string of the given length. The number of
+	 * bytes saved is estimated based on the String and char[] sizes for a 64-bit 
+	 * JVM with compressed oops. 
+	 * @param length of the de-duplicated string
+	 */
+	public final void stringPoolHit(int length) {
+		stringPoolHits.increment();
+		stringPoolBytesSaved.add(STRING_OVERHEAD_BYTES+2L*length);
+	}
+	
+	/**
+	 * Register a string pool lookup that didn't find an equal pooled instance
+	 */
+	public final void stringPoolMiss() {
+		stringPoolMisses.increment();
+	}
+	
+	/**
+	 * Register a single lookup from the given collection
+	 * @param collection name, for example <code>rulesByIndex</code>
+	 * @param nanos lookup duration
+	 */
+	public final void addLookup(String collection, long nanos) {
+		lookups.computeIfAbsent(collection, c->new LookupStats()).add(nanos);
+	}
+	
+	/**
+	 * Mark the import as completed, recording the elapsed time 
+	 * @param succeeded whether the import completed successfully
+	 */
+	public final void complete(boolean succeeded) {
+		this.succeeded = succeeded;
+		this.elapsedNanos = System.nanoTime()-startNanos;
+	}
+	
+	public final long getPhaseNanos(Phase phase) {
+		return phaseNanos.get(phase).sum();
+	}
+	
+	public final long getBytesRead() {
+		return bytesRead.sum();
+	}
+	
+	public final long getRuns() {
+		return runs.sum();
+	}
+	
+	public final long getRules() {
+		return rules.sum();
+	}
+	
+	public final long getArtifacts() {
+		return artifacts.sum();
+	}
+	
+	public final long getResultsSeen() {
+		return resultsSeen.sum();
+	}
+	
+	public final long getResultsFiltered() {
+		return resultsFiltered.sum();
+	}
+	
+	public final long getResultsSkipped(Kind kind) {
+		return resultsSkipped.get(kind).sum();
+	}
+	
+	public final long getVulnerabilitiesEmitted() {
+		return vulnerabilitiesEmitted.sum();
+	}
+	
+	public final long getStorageBytes() {
+		return storageBytes.sum();
+	}
+	
+	public final long getStringPoolHits() {
+		return stringPoolHits.sum();
+	}
+	
+	public final long getStringPoolMisses() {
+		return stringPoolMisses.sum();
+	}
+	
+	public final long getStringPoolBytesSaved() {
+		return stringPoolBytesSaved.sum();
+	}
+	
+	/**
+	 * @return Lookup statistics indexed by collection name
+	 */
+	public final Map<String, LookupStats> getLookups() {
+		return Collections.unmodifiableMap(new TreeMap<>(lookups));
+	}
+	
+	/**
+	 * @return Names of the tools that produced the imported runs
+	 */
+	public final Set<String> getToolNames() {
+		return Collections.unmodifiableSet(toolNames);
+	}
+	
+	/**
+	 * @return Single-line summary of all metrics
+	 */
+	public final String toSummary() {
+		StringBuilder sb = new StringBuilder("SARIF ").append(operation)
+			.append(succeeded ? " completed" : " failed")
+			.append(" in ").append(toMillis(elapsedNanos)).append("ms")
+			.append(": session=").append(sessionId)
+			.append(", tools=").append(new TreeSet<>(toolNames))
+			.append(", bytesRead=").append(getBytesRead());
+		for ( Phase phase : Phase.values() ) {
+			sb.append(", ").append(phase).append("Ms=").append(toMillis(getPhaseNanos(phase)));
+		}
+		sb.append(", runs=").append(getRuns())
+			.append(", rules=").append(getRules())
+			.append(", artifacts=").append(getArtifacts())
+			.append(", resultsSeen=").append(getResultsSeen());
+		for ( Kind kind : Kind.values() ) {
+			long skipped = getResultsSkipped(kind);
+			if ( skipped>0 ) { sb.append(", skipped.").append(kind).append('=').append(skipped); }
+		}
+		if ( getResultsFiltered()>0 ) { sb.append(", filtered=").append(getResultsFiltered()); }
+		sb.append(", vulnerabilities=").append(getVulnerabilitiesEmitted())
+			.append(", storageBytes=").append(getStorageBytes());
+		if ( getStringPoolHits()+getStringPoolMisses()>0 ) {
+			sb.append(", stringPool.hits=").append(getStringPoolHits())
+				.append(", stringPool.misses=").append(getStringPoolMisses())
+				.append(", stringPool.bytesSaved=").append(getStringPoolBytesSaved());
+		}
+		getLookups().forEach((collection, stats) -> sb.append(", ").append(collection)
+				.append(".lookups=").append(stats.getCount())
+				.append(", ").append(collection).append(".avgLookupUs=").append(String.format(Locale.ROOT, "%.2f", stats.getAverageMicros())));
+		return sb.toString();
+	}
+	
+	private static final long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+	
+	/**
+	 * Lookup count and accumulated lookup duration for a single collection
+	 */
+	public static final class LookupStats {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+		
+		private void add(long nanos) {
+			this.count.increment();
+			this.nanos.add(nanos);
+		}
+		
+		public final long getCount() {
+			return count.sum();
+		}
+		
+		public final long getNanos() {
+			return nanos.sum();
+		}
+		
+		public final double getAverageMicros() {
+			long count = getCount();
+			return count==0 ? 0 : getNanos()/1000.0/count;
+		}
+	}
+}
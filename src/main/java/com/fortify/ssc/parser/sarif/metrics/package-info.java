@@ -0,0 +1,10 @@
+/**
+ * This package contains the classes used to collect and report metrics for 
+ * individual SARIF imports, like phase timings, input size, result counts and
+ * rule and artifact lookup latencies. Metrics for each import are collected
+ * in a {@link com.fortify.ssc.parser.sarif.metrics.ParserMetrics} instance,
+ * which is passed to the configured 
+ * {@link com.fortify.ssc.parser.sarif.metrics.ParserMetricsListener} once 
+ * the import has completed.
+ */
+package com.fortify.ssc.parser.sarif.metrics;
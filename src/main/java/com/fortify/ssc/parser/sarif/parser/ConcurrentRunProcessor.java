@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+
+import com.fortify.ssc.parser.sarif.domain.ResultHandler;
+import com.fortify.util.io.Region;
+import com.fortify.util.json.ExtendedJsonParser;
+
+/**
+ * <p>This class allows for processing multiple SARIF runs concurrently. For each 
+ * run in the SARIF <code>runs</code> array, the importing thread only records the 
+ * input document region for that run, and then submits the run to a worker thread.
+ * The worker thread re-reads the run from the input document, and produces 
+ * vulnerabilities for all results in that run into a {@link VulnerabilityBatchQueue}.</p>
+ * 
+ * <p>The importing thread replays the recorded vulnerabilities one run at a time, 
+ * in input order, so vulnerabilities are passed to SSC in the same order as for 
+ * sequential processing. As the number of runs being processed concurrently is 
+ * limited to the number of worker threads, every submitted run has its own worker 
+ * thread, and workers that have filled their queue simply wait until the importing 
+ * thread gets to their run.</p>
+ */
+final class ConcurrentRunProcessor implements Closeable {
+	private final VulnerabilitiesProducer vulnerabilitiesProducer;
+	private final RunParser runParser;
+	private final ExecutorService executor;
+	private final int maxConcurrentRuns;
+	private final int batchSize;
+	private final Deque<VulnerabilityBatchQueue> pendingRuns = new ArrayDeque<>();
+	
+	/**
+	 * Interface for parsing and processing a single run from the input document
+	 */
+	@FunctionalInterface
+	public interface RunParser {
+		/**
+		 * Parse the run located in the given input document {@link Region}, 
+		 * passing all results in that run to the given {@link ResultHandler} 
+		 * @param region
+		 * @param resultHandler
+		 * @throws IOException
+		 */
+		void parseRun(Region region, ResultHandler resultHandler) throws IOException;
+	}
+	
+	/**
+	 * Interface for processing a single run, as submitted through {@link ConcurrentRunProcessor#submit(RunTask)}
+	 */
+	@FunctionalInterface
+	public interface RunTask {
+		/**
+		 * Process a single run, passing all results in that run to the given {@link ResultHandler}
+		 * @param resultHandler
+		 * @throws IOException
+		 */
+		void processRun(ResultHandler resultHandler) throws IOException;
+	}
+	
+	/**
+	 * Create a {@link ConcurrentRunProcessor} instance
+	 * @param vulnerabilitiesProducer used to produce vulnerabilities
+	 * @param runParser used to parse individual runs on worker threads
+	 * @param threads Maximum number of runs to process concurrently
+	 * @param batchSize Number of results per batch of vulnerabilities passed to the importing thread
+	 */
+	public ConcurrentRunProcessor(VulnerabilitiesProducer vulnerabilitiesProducer, RunParser runParser, int threads, int batchSize) {
+		this.vulnerabilitiesProducer = vulnerabilitiesProducer;
+		this.runParser = runParser;
+		this.executor = WorkerThreads.newFixedThreadPool("run-processor", threads);
+		this.maxConcurrentRuns = threads;
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Submit the run that the given {@link ExtendedJsonParser} is currently 
+	 * pointing at for processing on a worker thread. If the maximum number of 
+	 * concurrent runs has been reached, vulnerabilities for the oldest pending 
+	 * run are passed to SSC before submitting the current run.
+	 * @param jsonParser
+	 * @throws IOException
+	 */
+	public void submitRun(ExtendedJsonParser jsonParser) throws IOException {
+		final Region region = jsonParser.getObjectOrArrayRegion();
+		submit(resultHandler->runParser.parseRun(region, resultHandler));
+	}
+	
+	/**
+	 * Submit the given {@link RunTask} for processing on a worker thread, for 
+	 * example for processing the results of a run for which the run data is 
+	 * already available. If the maximum number of concurrent runs has been 
+	 * reached, vulnerabilities for the oldest pending run are passed to SSC 
+	 * before submitting the given task.
+	 * @param runTask
+	 * @throws IOException
+	 */
+	public void submit(RunTask runTask) throws IOException {
+		submit(runTask, vulnerabilitiesProducer);
+	}
+	
+	/**
+	 * Submit the given {@link RunTask} for processing on a worker thread, producing
+	 * vulnerabilities using the given {@link VulnerabilitiesProducer}, which must
+	 * share its {@link VulnerabilitiesProducer#getVulnerabilityHandler()} with the 
+	 * {@link VulnerabilitiesProducer} passed to the constructor, for example a 
+	 * producer returned by {@link VulnerabilitiesProducer#withInstanceIdScope(String)}.
+	 * @param runTask
+	 * @param vulnerabilitiesProducer
+	 * @throws IOException
+	 */
+	public void submit(RunTask runTask, VulnerabilitiesProducer vulnerabilitiesProducer) throws IOException {
+		while ( pendingRuns.size()>=maxConcurrentRuns ) {
+			pendingRuns.removeFirst().replay();
+		}
+		final VulnerabilityBatchQueue queue = new VulnerabilityBatchQueue(vulnerabilitiesProducer, batchSize);
+		pendingRuns.add(queue);
+		executor.execute(()->queue.process(()->runTask.processRun(queue)));
+	}
+	
+	/**
+	 * Pass the vulnerabilities for all pending runs to SSC, waiting for
+	 * these runs to be processed.
+	 * @throws IOException
+	 */
+	public void complete() throws IOException {
+		while ( !pendingRuns.isEmpty() ) {
+			pendingRuns.removeFirst().replay();
+		}
+	}
+	
+	/**
+	 * Shut down the worker pool, waiting for running workers to stop; any 
+	 * pending runs will be discarded.
+	 */
+	@Override
+	public void close() {
+		WorkerThreads.shutdown(executor);
+	}
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
+
+/**
+ * <p>{@link ScanData} implementation that wraps another {@link ScanData} instance,
+ * reading any input streams backed by a local file through the corresponding
+ * {@link FileChannel}. Skipping forward on such streams, for example to re-read 
+ * a <code>results</code> region, only updates the read position, so re-reading a 
+ * region costs O(region) rather than O(offset + region), independent of how 
+ * skipping is implemented by any intermediate streams. Input streams that are
+ * not backed by a local file, like zip entries, are returned as-is; these
+ * still skip to the start of a region by reading the preceding input.</p>
+ * 
+ * <p>If a map window size larger than 0 is configured, file contents are read
+ * through {@link MappedByteBuffer}s covering at most the given number of bytes,
+ * avoiding a system call and copy for every buffer fill. As mapped buffers are 
+ * only released once garbage collected, this is disabled by default; file contents 
+ * are then read into a heap buffer using positional {@link FileChannel} reads.</p>
+ */
+public final class FileChannelScanData implements ScanData {
+	private static final int BUFFER_SIZE = 64*1024;
+	private final ScanData delegate;
+	private final int mapWindowBytes;
+	
+	/**
+	 * Create a {@link FileChannelScanData} instance
+	 * @param delegate {@link ScanData} to be wrapped
+	 * @param mapWindowBytes maximum size of mapped file regions, or 0 to read 
+	 *        file contents without memory-mapping
+	 */
+	public FileChannelScanData(ScanData delegate, int mapWindowBytes) {
+		this.delegate = delegate;
+		this.mapWindowBytes = mapWindowBytes;
+	}
+
+	@Override
+	public String getSessionId() {
+		return delegate.getSessionId();
+	}
+
+	@Override
+	public List<ScanEntry> getScanEntries() {
+		return delegate.getScanEntries();
+	}
+
+	@Override
+	public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+		return wrap(delegate.getInputStream(matcher));
+	}
+
+	@Override
+	public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+		return wrap(delegate.getInputStream(scanEntry));
+	}
+	
+	private InputStream wrap(InputStream is) throws IOException {
+		return is instanceof FileInputStream ? new FileChannelInputStream((FileInputStream)is, mapWindowBytes) : is;
+	}
+	
+	/**
+	 * {@link InputStream} that reads file contents through the {@link FileChannel} of a 
+	 * {@link FileInputStream}, starting at the current channel position. Reads use 
+	 * absolute channel positions, and {@link #skip(long)} just moves the read position, 
+	 * re-using the current buffer if the new position is within the buffered range.
+	 */
+	static final class FileChannelInputStream extends InputStream {
+		private final FileInputStream fileInputStream;
+		private final FileChannel channel;
+		private final int mapWindowBytes;
+		private ByteBuffer heapBuffer;
+		private ByteBuffer buffer;
+		private long bufferStart;
+		private long position;
+		
+		FileChannelInputStream(FileInputStream fileInputStream, int mapWindowBytes) throws IOException {
+			this.fileInputStream = fileInputStream;
+			this.channel = fileInputStream.getChannel();
+			this.mapWindowBytes = mapWindowBytes;
+			this.position = channel.position();
+		}
+		
+		@Override
+		public int read() throws IOException {
+			if ( !fill() ) { return -1; }
+			position++;
+			return buffer.get() & 0xff;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if ( len==0 ) { return 0; }
+			if ( !fill() ) { return -1; }
+			int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			position += n;
+			return n;
+		}
+		
+		/**
+		 * Move the read position forward by the given number of bytes, or up to 
+		 * the end of the file, without reading the skipped file contents.
+		 */
+		@Override
+		public long skip(long n) throws IOException {
+			if ( n<=0 ) { return 0; }
+			long target = Math.min(position+n, Math.max(position, channel.size()));
+			long skipped = target-position;
+			if ( buffer!=null && target<=bufferStart+buffer.limit() ) {
+				buffer.position((int)(target-bufferStart));
+			} else {
+				buffer = null;
+			}
+			position = target;
+			return skipped;
+		}
+		
+		@Override
+		public int available() throws IOException {
+			return (int)Math.min(Integer.MAX_VALUE, Math.max(0, channel.size()-position));
+		}
+		
+		@Override
+		public void close() throws IOException {
+			buffer = null;
+			fileInputStream.close();
+		}
+		
+		/**
+		 * Make sure that {@link #buffer} has remaining bytes, mapping or reading the
+		 * file contents at the current read position if necessary.
+		 * @return false if the end of the file has been reached, true otherwise
+		 */
+		private boolean fill() throws IOException {
+			if ( buffer!=null && buffer.hasRemaining() ) { return true; }
+			long remaining = channel.size()-position;
+			if ( remaining<=0 ) { return false; }
+			if ( mapWindowBytes>0 ) {
+				buffer = channel.map(MapMode.READ_ONLY, position, Math.min(mapWindowBytes, remaining));
+			} else {
+				if ( heapBuffer==null ) { heapBuffer = ByteBuffer.allocate(BUFFER_SIZE); }
+				heapBuffer.clear();
+				int n = channel.read(heapBuffer, position);
+				if ( n<=0 ) { return false; }
+				heapBuffer.flip();
+				buffer = heapBuffer;
+			}
+			bufferStart = position;
+			return true;
+		}
+	}
+}
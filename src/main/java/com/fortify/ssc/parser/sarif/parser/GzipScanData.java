@@ -0,0 +1,372 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
+
+/**
+ * {@link ScanData} implementation that wraps another {@link ScanData} instance,
+ * transparently decompressing any gzip-compressed input streams. Compressed
+ * input is detected based on the gzip magic bytes rather than the scan entry 
+ * name, and is decompressed in streaming fashion.
+ * 
+ * <p>Region re-reads skip to the start of the region in the decompressed stream.
+ * To avoid re-inflating from the start of the document for every re-read, the 
+ * input streams returned by this class record the compressed and decompressed 
+ * offsets of every gzip member in a seek table shared by all streams for the same 
+ * input. When skipping forward, a stream jumps to the last recorded member 
+ * preceding the target offset, skipping the compressed input up to that member 
+ * without inflating it, and only inflates the remainder. Documents compressed as
+ * multiple members (for example by <code>bgzip</code>, or by concatenating gzip
+ * files) thus support efficient region access; for single-member documents, a 
+ * re-read still needs to inflate all data preceding the region, as 
+ * {@link Inflater} doesn't allow for resuming decompression at an arbitrary 
+ * position within a member. For that reason, {@link VulnerabilitiesParser} 
+ * doesn't use deferred run data storage, concurrent run processing or result 
+ * sharding for compressed input.</p>
+ */
+public final class GzipScanData implements ScanData {
+	private static final int GZIP_MAGIC_1 = 0x1f;
+	private static final int GZIP_MAGIC_2 = 0x8b;
+	private static final String MATCHER_KEY = "";
+	private final ScanData delegate;
+	private final Map<String, SeekTable> seekTables = new ConcurrentHashMap<>();
+	
+	public GzipScanData(ScanData delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public String getSessionId() {
+		return delegate.getSessionId();
+	}
+
+	@Override
+	public List<ScanEntry> getScanEntries() {
+		return delegate.getScanEntries();
+	}
+
+	@Override
+	public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+		return decompress(delegate.getInputStream(matcher), MATCHER_KEY);
+	}
+
+	@Override
+	public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+		return decompress(delegate.getInputStream(scanEntry), "entry:"+scanEntry.getEntryName());
+	}
+	
+	/**
+	 * @return true if the SARIF document provided by this {@link ScanData} instance 
+	 *         is gzip-compressed, false otherwise
+	 * @throws IOException
+	 */
+	public boolean isCompressed() throws IOException {
+		try ( InputStream is = getInputStream(SarifScanDataStreamingJsonParser.SCAN_ENTRY_MATCHER) ) {
+			return is instanceof SeekableGzipInputStream;
+		}
+	}
+	
+	/**
+	 * @param scanEntry
+	 * @return true if the given {@link ScanEntry} is gzip-compressed, false otherwise
+	 * @throws IOException
+	 */
+	public boolean isCompressed(ScanEntry scanEntry) throws IOException {
+		try ( InputStream is = getInputStream(scanEntry) ) {
+			return is instanceof SeekableGzipInputStream;
+		}
+	}
+	
+	/**
+	 * @param scanData
+	 * @return true if the SARIF document provided by the given {@link ScanData} 
+	 *         instance is decompressed by {@link GzipScanData}, false otherwise
+	 * @throws IOException
+	 */
+	static final boolean isCompressed(ScanData scanData) throws IOException {
+		if ( scanData instanceof ScanEntryScanData ) {
+			return ((ScanEntryScanData)scanData).isCompressed();
+		}
+		return scanData instanceof GzipScanData && ((GzipScanData)scanData).isCompressed();
+	}
+	
+	private InputStream decompress(InputStream is, String seekTableKey) throws IOException {
+		if ( is==null ) { return null; }
+		PushbackInputStream pis = new PushbackInputStream(is, 2);
+		try {
+			int b1 = pis.read();
+			int b2 = b1<0 ? -1 : pis.read();
+			if ( b2>=0 ) { pis.unread(b2); }
+			if ( b1>=0 ) { pis.unread(b1); }
+			boolean isGzip = b1==GZIP_MAGIC_1 && b2==GZIP_MAGIC_2;
+			return !isGzip ? pis : new SeekableGzipInputStream(pis, seekTables.computeIfAbsent(seekTableKey, k->new SeekTable()));
+		} catch ( IOException | RuntimeException e ) {
+			pis.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Seek table mapping decompressed offsets of gzip members to their
+	 * corresponding compressed offsets
+	 */
+	private static final class SeekTable {
+		private final ConcurrentNavigableMap<Long, Long> compressedOffsets = new ConcurrentSkipListMap<>();
+		
+		private void add(long uncompressedOffset, long compressedOffset) {
+			if ( uncompressedOffset>0 ) {
+				compressedOffsets.putIfAbsent(uncompressedOffset, compressedOffset);
+			}
+		}
+		
+		private Map.Entry<Long, Long> floor(long uncompressedOffset) {
+			return compressedOffsets.floorEntry(uncompressedOffset);
+		}
+	}
+	
+	/**
+	 * {@link InputStream} for decompressing (multi-member) gzip input, recording member
+	 * offsets in a {@link SeekTable} and using these offsets to efficiently skip
+	 * forward. As opposed to {@link java.util.zip.GZIPInputStream}, this class 
+	 * manages its own input buffer, allowing for exact tracking of compressed 
+	 * input offsets.
+	 */
+	private static final class SeekableGzipInputStream extends InputStream {
+		private static final int FHCRC = 2;
+		private static final int FEXTRA = 4;
+		private static final int FNAME = 8;
+		private static final int FCOMMENT = 16;
+		private final InputStream in;
+		private final SeekTable seekTable;
+		private final Inflater inflater = new Inflater(true);
+		private final CRC32 crc = new CRC32();
+		private final byte[] buffer = new byte[64*1024];
+		private final byte[] singleByte = new byte[1];
+		/** Compressed input offset of buffer[0] */
+		private long bufferOffset = 0;
+		private int bufferPos = 0;
+		private int bufferLength = 0;
+		private long uncompressedOffset = 0;
+		private long memberStartOffset = 0;
+		private boolean inMember = false;
+		private boolean eof = false;
+		private boolean closed = false;
+		
+		private SeekableGzipInputStream(InputStream in, SeekTable seekTable) {
+			this.in = in;
+			this.seekTable = seekTable;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			return read(singleByte, 0, 1)<0 ? -1 : singleByte[0]&0xff;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if ( closed ) { throw new IOException("Stream closed"); }
+			if ( len==0 ) { return 0; }
+			while ( !eof ) {
+				if ( !inMember && !startMember() ) { 
+					eof = true;
+					break;
+				}
+				int n = inflate(b, off, len);
+				if ( n>0 ) {
+					crc.update(b, off, n);
+					uncompressedOffset += n;
+					return n;
+				} else if ( inflater.finished() ) {
+					bufferPos = bufferLength-inflater.getRemaining();
+					finishMember();
+				} else if ( inflater.needsInput() ) {
+					bufferPos = bufferLength;
+					if ( !fill() ) { throw new EOFException("Unexpected end of gzip input"); }
+					inflater.setInput(buffer, bufferPos, bufferLength-bufferPos);
+				} else if ( inflater.needsDictionary() ) {
+					throw new ZipException("Unsupported gzip input: preset dictionary required");
+				}
+			}
+			return -1;
+		}
+		
+		/**
+		 * Skip the given number of decompressed bytes. If the seek table contains a
+		 * member that starts after the current position and at or before the target 
+		 * position, we skip the compressed input up to that member before inflating
+		 * the remaining bytes to be skipped.
+		 */
+		@Override
+		public long skip(long n) throws IOException {
+			if ( n<=0 ) { return 0; }
+			long target = uncompressedOffset+n;
+			Map.Entry<Long, Long> member = seekTable.floor(target);
+			if ( member!=null && member.getKey()>uncompressedOffset ) {
+				seek(member.getValue());
+				uncompressedOffset = member.getKey();
+				inflater.reset();
+				inMember = false;
+			}
+			byte[] discard = new byte[(int)Math.min(target-uncompressedOffset, 8192)];
+			while ( uncompressedOffset<target ) {
+				if ( read(discard, 0, (int)Math.min(target-uncompressedOffset, discard.length))<0 ) { break; }
+			}
+			return n-(target-uncompressedOffset);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			if ( !closed ) {
+				closed = true;
+				inflater.end();
+				in.close();
+			}
+		}
+		
+		private int inflate(byte[] b, int off, int len) throws IOException {
+			try {
+				return inflater.inflate(b, off, len);
+			} catch ( DataFormatException e ) {
+				throw new ZipException("Invalid gzip input: "+e.getMessage());
+			}
+		}
+		
+		/**
+		 * Read the header of the next gzip member, if available, and prepare the
+		 * {@link Inflater} for decompressing the member contents. Any trailing
+		 * data that doesn't start with the gzip magic bytes is ignored, similar 
+		 * to {@link java.util.zip.GZIPInputStream}.
+		 * @return false if there are no more members
+		 */
+		private boolean startMember() throws IOException {
+			long memberOffset = bufferOffset+bufferPos;
+			if ( !available(2) || readUByte()!=GZIP_MAGIC_1 || readUByte()!=GZIP_MAGIC_2 ) { return false; }
+			if ( readUByte()!=8 ) { throw new ZipException("Unsupported gzip compression method"); }
+			int flags = readUByte();
+			skipBytes(6); // mtime, xfl, os
+			if ( (flags & FEXTRA)!=0 ) { skipBytes(readUByte() | (readUByte()<<8)); }
+			if ( (flags & FNAME)!=0 ) { while ( readUByte()!=0 ) {} }
+			if ( (flags & FCOMMENT)!=0 ) { while ( readUByte()!=0 ) {} }
+			if ( (flags & FHCRC)!=0 ) { skipBytes(2); }
+			seekTable.add(uncompressedOffset, memberOffset);
+			memberStartOffset = uncompressedOffset;
+			crc.reset();
+			inflater.reset();
+			inflater.setInput(buffer, bufferPos, bufferLength-bufferPos);
+			inMember = true;
+			return true;
+		}
+		
+		private void finishMember() throws IOException {
+			long expectedCrc = readUInt();
+			long expectedSize = readUInt();
+			if ( expectedCrc!=crc.getValue() || expectedSize!=((uncompressedOffset-memberStartOffset) & 0xffffffffL) ) {
+				throw new ZipException("Corrupt gzip input: member checksum or size mismatch");
+			}
+			inMember = false;
+		}
+		
+		/**
+		 * Skip compressed input up to the given compressed offset, which must be 
+		 * equal to or larger than the current compressed offset
+		 */
+		private void seek(long compressedOffset) throws IOException {
+			if ( compressedOffset<=bufferOffset+bufferLength ) {
+				bufferPos = (int)(compressedOffset-bufferOffset);
+			} else {
+				long bytesToSkip = compressedOffset-bufferOffset-bufferLength;
+				while ( bytesToSkip>0 ) {
+					long skipped = in.skip(bytesToSkip);
+					if ( skipped<=0 ) {
+						if ( in.read()<0 ) { throw new EOFException("Unexpected end of gzip input while seeking"); }
+						skipped = 1;
+					}
+					bytesToSkip -= skipped;
+				}
+				bufferOffset = compressedOffset;
+				bufferPos = bufferLength = 0;
+			}
+		}
+		
+		private boolean fill() throws IOException {
+			if ( bufferPos<bufferLength ) { return true; }
+			bufferOffset += bufferLength;
+			bufferPos = bufferLength = 0;
+			int n;
+			while ( (n = in.read(buffer))==0 ) {}
+			if ( n<0 ) { return false; }
+			bufferLength = n;
+			return true;
+		}
+		
+		/**
+		 * @return true if at least the given number of bytes is available, 
+		 *         false if end of input is reached before
+		 */
+		private boolean available(int count) throws IOException {
+			if ( bufferLength-bufferPos>=count ) { return true; }
+			System.arraycopy(buffer, bufferPos, buffer, 0, bufferLength-bufferPos);
+			bufferOffset += bufferPos;
+			bufferLength -= bufferPos;
+			bufferPos = 0;
+			while ( bufferLength<count ) {
+				int n = in.read(buffer, bufferLength, buffer.length-bufferLength);
+				if ( n<0 ) { return false; }
+				bufferLength += n;
+			}
+			return true;
+		}
+		
+		private int readUByte() throws IOException {
+			if ( !fill() ) { throw new EOFException("Unexpected end of gzip input"); }
+			return buffer[bufferPos++] & 0xff;
+		}
+		
+		private long readUInt() throws IOException {
+			return readUByte() | (readUByte()<<8) | (readUByte()<<16) | ((long)readUByte()<<24);
+		}
+		
+		private void skipBytes(int count) throws IOException {
+			for ( int i = 0 ; i < count ; i++ ) { readUByte(); }
+		}
+	}
+}
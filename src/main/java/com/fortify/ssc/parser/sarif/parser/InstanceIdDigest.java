@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * <p>This class calculates SHA-256 based instance id's by feeding id components 
+ * directly into a reused, per-thread {@link MessageDigest}, without building an
+ * intermediate id string. Strings are UTF-8 encoded into a reused byte buffer,
+ * and the resulting digest is hex-encoded using a reused char buffer.</p>
+ * 
+ * <p>The calculated id's are identical to calculating <code>DigestUtils.sha256Hex()</code>
+ * on the concatenated id string; in particular, {@link #appendMap(Map)} produces
+ * the same encoding as <code>new TreeMap&lt;&gt;(map).toString()</code>, and
+ * {@link #append(String)} encodes null values as <code>"null"</code>, like
+ * {@link String#join(CharSequence, CharSequence...)}.</p>
+ * 
+ * <p>Instances are not thread-safe; use {@link #start()} to get a reset instance
+ * for the current thread.</p>
+ */
+final class InstanceIdDigest {
+	private static final ThreadLocal<InstanceIdDigest> INSTANCE = ThreadLocal.withInitial(InstanceIdDigest::new);
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final int DIGEST_LENGTH = 32;
+	private final MessageDigest messageDigest;
+	private final byte[] buffer = new byte[1024];
+	private final byte[] digest = new byte[DIGEST_LENGTH];
+	private final char[] hex = new char[DIGEST_LENGTH*2];
+	private String[] keys = new String[16];
+	private int pos = 0;
+	
+	private InstanceIdDigest() {
+		try {
+			this.messageDigest = MessageDigest.getInstance("SHA-256");
+		} catch ( NoSuchAlgorithmException e ) {
+			throw new IllegalStateException("SHA-256 not supported by this JVM", e);
+		}
+	}
+	
+	/**
+	 * @return {@link InstanceIdDigest} instance for the current thread, reset to its initial state 
+	 */
+	static final InstanceIdDigest start() {
+		InstanceIdDigest result = INSTANCE.get();
+		result.messageDigest.reset();
+		result.pos = 0;
+		return result;
+	}
+	
+	/**
+	 * Append the UTF-8 representation of the given string, or <code>"null"</code> 
+	 * if the given string is null. Like {@link String#getBytes(java.nio.charset.Charset)}, 
+	 * unpaired surrogates are encoded as <code>'?'</code>.
+	 * @param s
+	 * @return Self for chaining
+	 */
+	final InstanceIdDigest append(String s) {
+		if ( s==null ) { s = "null"; }
+		int length = s.length();
+		for ( int i = 0 ; i < length ; i++ ) {
+			if ( pos > buffer.length-4 ) { flush(); }
+			char c = s.charAt(i);
+			if ( c < 0x80 ) {
+				buffer[pos++] = (byte)c;
+			} else if ( c < 0x800 ) {
+				buffer[pos++] = (byte)(0xc0 | (c >> 6));
+				buffer[pos++] = (byte)(0x80 | (c & 0x3f));
+			} else if ( Character.isSurrogate(c) ) {
+				if ( Character.isHighSurrogate(c) && i+1<length && Character.isLowSurrogate(s.charAt(i+1)) ) {
+					int codePoint = Character.toCodePoint(c, s.charAt(++i));
+					buffer[pos++] = (byte)(0xf0 | (codePoint >> 18));
+					buffer[pos++] = (byte)(0x80 | ((codePoint >> 12) & 0x3f));
+					buffer[pos++] = (byte)(0x80 | ((codePoint >> 6) & 0x3f));
+					buffer[pos++] = (byte)(0x80 | (codePoint & 0x3f));
+				} else {
+					buffer[pos++] = '?';
+				}
+			} else {
+				buffer[pos++] = (byte)(0xe0 | (c >> 12));
+				buffer[pos++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+				buffer[pos++] = (byte)(0x80 | (c & 0x3f));
+			}
+		}
+		return this;
+	}
+	
+	/**
+	 * Append the given ASCII character
+	 * @param c
+	 * @return Self for chaining
+	 */
+	final InstanceIdDigest append(char c) {
+		if ( pos == buffer.length ) { flush(); }
+		buffer[pos++] = (byte)c;
+		return this;
+	}
+	
+	/**
+	 * Append the given map, using the same representation as 
+	 * <code>new TreeMap&lt;&gt;(map).toString()</code>, i.e. 
+	 * <code>{key1=value1, key2=value2}</code> with keys in natural order.
+	 * @param map
+	 * @return Self for chaining
+	 */
+	final InstanceIdDigest appendMap(Map<String, String> map) {
+		int size = map.size();
+		if ( keys.length < size ) { keys = new String[Math.max(size, keys.length*2)]; }
+		int index = 0;
+		for ( String key : map.keySet() ) {
+			keys[index++] = key;
+		}
+		Arrays.sort(keys, 0, size);
+		append('{');
+		for ( int i = 0 ; i < size ; i++ ) {
+			if ( i>0 ) { append(',').append(' '); }
+			append(keys[i]).append('=').append(map.get(keys[i]));
+		}
+		Arrays.fill(keys, 0, size, null);
+		return append('}');
+	}
+	
+	/**
+	 * Complete the digest calculation, writing the SHA-256 digest into the internal 
+	 * digest buffer
+	 * @return Internal digest buffer, valid until this instance is reset
+	 */
+	final byte[] digest() {
+		flush();
+		try {
+			messageDigest.digest(digest, 0, DIGEST_LENGTH);
+		} catch ( DigestException e ) {
+			throw new IllegalStateException("Error calculating SHA-256 digest", e);
+		}
+		return digest;
+	}
+	
+	/**
+	 * Complete the digest calculation
+	 * @return Lower-case hex representation of the SHA-256 digest
+	 */
+	final String toHex() {
+		byte[] digest = digest();
+		for ( int i = 0 ; i < DIGEST_LENGTH ; i++ ) {
+			hex[i*2] = HEX[(digest[i] >> 4) & 0x0f];
+			hex[i*2+1] = HEX[digest[i] & 0x0f];
+		}
+		return new String(hex);
+	}
+	
+	private void flush() {
+		if ( pos>0 ) {
+			messageDigest.update(buffer, 0, pos);
+			pos = 0;
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>Compact set of instance id's, used to detect duplicate instance id's in 
+ * large imports. Instance id's that consist of 64 lower-case hex characters, 
+ * like the SHA-256 based id's generated by {@link VulnerabilitiesProducer}, are 
+ * stored as 32-byte digests in a primitive open-addressing hash table, using
+ * about 50 bytes per id instead of the 150+ bytes needed for storing the
+ * id as a {@link String} in a {@link HashSet}. Any other id's, like id's with a 
+ * duplicate suffix, are stored in a regular {@link HashSet}.</p>
+ * 
+ * <p>Instances are not thread-safe.</p>
+ */
+final class InstanceIdSet {
+	private static final int HEX_ID_LENGTH = 64;
+	private static final int LONGS_PER_DIGEST = 4;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final double MAX_LOAD_FACTOR = 0.6;
+	private final Set<String> otherIds = new HashSet<>();
+	private final long[] digest = new long[LONGS_PER_DIGEST];
+	private long[] table = new long[INITIAL_CAPACITY*LONGS_PER_DIGEST];
+	private long[] occupied = new long[INITIAL_CAPACITY/64];
+	private int capacity = INITIAL_CAPACITY;
+	private int size = 0;
+	
+	/**
+	 * Add the given instance id to this set
+	 * @param id
+	 * @return true if the given id was added, false if this set already contained the given id
+	 */
+	final boolean add(String id) {
+		if ( !parseHexId(id, digest) ) {
+			return otherIds.add(id);
+		}
+		if ( size+1 > capacity*MAX_LOAD_FACTOR ) {
+			resize();
+		}
+		return insert(digest);
+	}
+	
+	/**
+	 * @return Number of id's in this set
+	 */
+	final int size() {
+		return size+otherIds.size();
+	}
+	
+	private boolean insert(long[] digest) {
+		int mask = capacity-1;
+		// SHA-256 digests are uniformly distributed, so we can use the first long as hash code
+		int slot = (int)(digest[0] ^ (digest[0]>>>32)) & mask;
+		while ( isOccupied(slot) ) {
+			if ( equalsDigest(slot, digest) ) { return false; }
+			slot = (slot+1) & mask;
+		}
+		System.arraycopy(digest, 0, table, slot*LONGS_PER_DIGEST, LONGS_PER_DIGEST);
+		occupied[slot>>>6] |= 1L << slot;
+		size++;
+		return true;
+	}
+	
+	private boolean isOccupied(int slot) {
+		return (occupied[slot>>>6] & (1L << slot)) != 0;
+	}
+	
+	private boolean equalsDigest(int slot, long[] digest) {
+		int offset = slot*LONGS_PER_DIGEST;
+		return table[offset]==digest[0] && table[offset+1]==digest[1] 
+				&& table[offset+2]==digest[2] && table[offset+3]==digest[3];
+	}
+	
+	private void resize() {
+		long[] oldTable = table;
+		long[] oldOccupied = occupied;
+		int oldCapacity = capacity;
+		capacity = oldCapacity*2;
+		table = new long[capacity*LONGS_PER_DIGEST];
+		occupied = new long[capacity/64];
+		size = 0;
+		long[] entry = new long[LONGS_PER_DIGEST];
+		for ( int slot = 0 ; slot < oldCapacity ; slot++ ) {
+			if ( (oldOccupied[slot>>>6] & (1L << slot)) != 0 ) {
+				System.arraycopy(oldTable, slot*LONGS_PER_DIGEST, entry, 0, LONGS_PER_DIGEST);
+				insert(entry);
+			}
+		}
+	}
+	
+	/**
+	 * Parse the given id into the given digest array if it consists of exactly 
+	 * 64 lower-case hex characters. Upper-case hex characters are not accepted,
+	 * to guarantee that every parsed digest corresponds to exactly one id.
+	 * @return true if the id was parsed, false otherwise
+	 */
+	private static boolean parseHexId(String id, long[] digest) {
+		if ( id==null || id.length()!=HEX_ID_LENGTH ) { return false; }
+		for ( int i = 0 ; i < LONGS_PER_DIGEST ; i++ ) {
+			long value = 0;
+			for ( int j = i*16 ; j < (i+1)*16 ; j++ ) {
+				int nibble = hexValue(id.charAt(j));
+				if ( nibble<0 ) { return false; }
+				value = (value<<4) | nibble;
+			}
+			digest[i] = value;
+		}
+		return true;
+	}
+	
+	private static int hexValue(char c) {
+		if ( c>='0' && c<='9' ) { return c-'0'; }
+		if ( c>='a' && c<='f' ) { return c-'a'+10; }
+		return -1;
+	}
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fortify.ssc.parser.sarif.domain.Result;
+import com.fortify.ssc.parser.sarif.domain.ResultHandler;
+import com.fortify.ssc.parser.sarif.domain.RunData;
+import com.fortify.util.json.ExtendedJsonParser;
+
+/**
+ * <p>This {@link ResultHandler} implementation processes results on a pool of worker
+ * threads. Results are collected into batches on the importing thread, either as 
+ * {@link Result} objects or as raw JSON tokens. Each batch is then decoded and 
+ * converted into vulnerabilities by a worker thread, using a {@link RecordingVulnerabilityHandler}
+ * to record the produced vulnerabilities.</p>
+ * 
+ * <p>Completed batches are replayed on the importing thread to the {@link VulnerabilitiesProducer#getVulnerabilityHandler()}, 
+ * strictly in input order, so the SSC {@link com.fortify.plugin.api.VulnerabilityHandler} 
+ * (and the wrapper that handles duplicate instance id's) never sees concurrent calls, and 
+ * vulnerabilities are passed to SSC in the same order as for sequential processing.
+ * The number of batches being processed concurrently is bounded, limiting the 
+ * amount of memory used for pending results and vulnerabilities.</p>
+ */
+final class ParallelResultProcessor implements ResultHandler, Closeable {
+	private final VulnerabilitiesProducer vulnerabilitiesProducer;
+	private final ExecutorService executor;
+	private final int batchSize;
+	private final int maxPendingBatches;
+	private final Deque<Future<RecordingVulnerabilityHandler>> pendingBatches = new ArrayDeque<>();
+	private List<Object> currentBatch = null;
+	private RunData currentRunData = null;
+	
+	/**
+	 * Create a {@link ParallelResultProcessor} instance
+	 * @param vulnerabilitiesProducer used to produce vulnerabilities
+	 * @param threads Number of worker threads
+	 * @param batchSize Number of results per batch
+	 */
+	public ParallelResultProcessor(VulnerabilitiesProducer vulnerabilitiesProducer, int threads, int batchSize) {
+		this.vulnerabilitiesProducer = vulnerabilitiesProducer;
+		this.executor = WorkerThreads.newFixedThreadPool("result-processor", threads);
+		this.batchSize = Math.max(1, batchSize);
+		this.maxPendingBatches = threads*2;
+	}
+	
+	@Override
+	public void handleResult(RunData runData, Result result) throws IOException {
+		addToBatch(runData, result);
+	}
+	
+	@Override
+	public Result readResult(JsonParser jsonParser) throws IOException {
+		return vulnerabilitiesProducer.readResult(jsonParser);
+	}
+	
+	/**
+	 * Collect the raw JSON tokens for the result object that the given {@link ExtendedJsonParser}
+	 * is currently pointing at; the result will be decoded by a worker thread.
+	 * @param runData
+	 * @param jsonParser
+	 * @throws IOException
+	 */
+	public void handleRawResult(RunData runData, ExtendedJsonParser jsonParser) throws IOException {
+		TokenBuffer tokenBuffer = new TokenBuffer(jsonParser);
+		tokenBuffer.copyCurrentStructure(jsonParser);
+		addToBatch(runData, tokenBuffer);
+	}
+	
+	/**
+	 * Process all pending batches, passing the produced vulnerabilities to SSC.
+	 */
+	@Override
+	public void endResults() throws IOException {
+		submitCurrentBatch();
+		while ( !pendingBatches.isEmpty() ) {
+			replayNextBatch();
+		}
+	}
+	
+	/**
+	 * Shut down the worker pool, waiting for running workers to stop; any 
+	 * pending batches will be discarded.
+	 */
+	@Override
+	public void close() {
+		WorkerThreads.shutdown(executor);
+	}
+	
+	private void addToBatch(RunData runData, Object result) throws IOException {
+		if ( currentRunData!=runData ) {
+			submitCurrentBatch();
+			this.currentRunData = runData;
+		}
+		if ( currentBatch==null ) {
+			currentBatch = new ArrayList<>(batchSize);
+		}
+		currentBatch.add(result);
+		if ( currentBatch.size()>=batchSize ) {
+			submitCurrentBatch();
+		}
+	}
+	
+	private void submitCurrentBatch() throws IOException {
+		if ( currentBatch!=null ) {
+			final List<Object> batch = currentBatch;
+			final RunData runData = currentRunData;
+			this.currentBatch = null;
+			while ( pendingBatches.size()>=maxPendingBatches ) {
+				replayNextBatch();
+			}
+			pendingBatches.add(executor.submit(()->processBatch(runData, batch)));
+		}
+	}
+	
+	private RecordingVulnerabilityHandler processBatch(RunData runData, List<Object> batch) throws IOException {
+		RecordingVulnerabilityHandler recorder = new RecordingVulnerabilityHandler();
+		for ( Object entry : batch ) {
+			Result result = entry instanceof TokenBuffer ? readResult((TokenBuffer)entry) : (Result)entry;
+			vulnerabilitiesProducer.produceVulnerability(runData, result, recorder.getHandler());
+		}
+		return recorder;
+	}
+	
+	private Result readResult(TokenBuffer tokenBuffer) throws IOException {
+		try ( JsonParser jsonParser = tokenBuffer.asParser() ) {
+			jsonParser.nextToken();
+			return vulnerabilitiesProducer.readResult(jsonParser);
+		}
+	}
+	
+	private void replayNextBatch() throws IOException {
+		try {
+			pendingBatches.removeFirst().get().replay(vulnerabilitiesProducer.getVulnerabilityHandler());
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for results to be processed");
+		} catch ( ExecutionException e ) {
+			Throwable cause = e.getCause();
+			if ( cause instanceof IOException ) { throw (IOException)cause; }
+			if ( cause instanceof RuntimeException ) { throw (RuntimeException)cause; }
+			if ( cause instanceof Error ) { throw (Error)cause; }
+			throw new IOException("Error processing results", cause);
+		}
+	}
+}
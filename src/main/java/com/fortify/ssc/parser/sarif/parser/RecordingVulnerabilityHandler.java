@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fortify.plugin.api.VulnerabilityHandler;
+
+/**
+ * This class provides a {@link VulnerabilityHandler} implementation that records
+ * all calls to the handler and to any vulnerability builders returned by the handler,
+ * allowing vulnerabilities to be produced on a worker thread, and then to be replayed 
+ * on the thread that owns the actual {@link VulnerabilityHandler}. As the recorder 
+ * is based on dynamic proxies, all handler and builder methods are supported without 
+ * having to mirror the SSC plugin API in this class. 
+ */
+final class RecordingVulnerabilityHandler {
+	private final VulnerabilityHandler handler = createProxy(VulnerabilityHandler.class);
+	private final List<Call> calls = new ArrayList<>();
+	
+	/**
+	 * @return {@link VulnerabilityHandler} instance that records all calls
+	 */
+	public VulnerabilityHandler getHandler() {
+		return handler;
+	}
+	
+	/**
+	 * @return Number of recorded calls
+	 */
+	public int getCallCount() {
+		return calls.size();
+	}
+	
+	/**
+	 * Replay all recorded calls, in the order that they were recorded, on the 
+	 * given {@link VulnerabilityHandler} and the vulnerability builders returned 
+	 * by that handler.
+	 * @param target
+	 */
+	public void replay(VulnerabilityHandler target) {
+		Map<Object, Object> targets = new IdentityHashMap<>();
+		targets.put(handler, target);
+		for ( Call call : calls ) {
+			Object returnValue = call.invoke(targets.get(call.proxy));
+			if ( call.returnedProxy!=null ) {
+				targets.put(call.returnedProxy, returnValue);
+			}
+		}
+	}
+	
+	private <T> T createProxy(Class<T> type) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, new RecordingInvocationHandler()));
+	}
+	
+	private final class RecordingInvocationHandler implements InvocationHandler {
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if ( method.getDeclaringClass()==Object.class ) {
+				switch ( method.getName() ) {
+				case "equals": return proxy==args[0];
+				case "hashCode": return System.identityHashCode(proxy);
+				default: return "Recording "+proxy.getClass().getInterfaces()[0].getName();
+				}
+			}
+			Class<?> returnType = method.getReturnType();
+			Object returnedProxy = returnType.isInterface() ? createProxy(returnType) : null;
+			calls.add(new Call(proxy, method, args, returnedProxy));
+			return returnedProxy!=null ? returnedProxy : getDefaultValue(returnType);
+		}
+		
+		private Object getDefaultValue(Class<?> type) {
+			if ( !type.isPrimitive() || type==void.class ) { return null; }
+			if ( type==boolean.class ) { return false; }
+			if ( type==char.class ) { return '\0'; }
+			if ( type==long.class ) { return 0L; }
+			if ( type==float.class ) { return 0f; }
+			if ( type==double.class ) { return 0d; }
+			if ( type==byte.class ) { return (byte)0; }
+			if ( type==short.class ) { return (short)0; }
+			return 0;
+		}
+	}
+	
+	private static final class Call {
+		private final Object proxy;
+		private final Method method;
+		private final Object[] args;
+		private final Object returnedProxy;
+		
+		private Call(Object proxy, Method method, Object[] args, Object returnedProxy) {
+			this.proxy = proxy;
+			this.method = method;
+			this.args = args;
+			this.returnedProxy = returnedProxy;
+		}
+		
+		private Object invoke(Object target) {
+			try {
+				return method.invoke(target, args);
+			} catch ( InvocationTargetException e ) {
+				Throwable cause = e.getCause();
+				if ( cause instanceof RuntimeException ) { throw (RuntimeException)cause; }
+				if ( cause instanceof Error ) { throw (Error)cause; }
+				throw new IllegalStateException("Error replaying "+method.getName(), cause);
+			} catch ( IllegalAccessException e ) {
+				throw new IllegalStateException("Error replaying "+method.getName(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fortify.plugin.api.BasicVulnerabilityBuilder.Priority;
+import com.fortify.ssc.parser.sarif.SARIFParserConfig;
+import com.fortify.ssc.parser.sarif.domain.Level;
+import com.fortify.ssc.parser.sarif.domain.Result;
+import com.fortify.ssc.parser.sarif.domain.ResultReader;
+
+/**
+ * <p>This class filters results based on the result filter settings provided 
+ * by {@link SARIFParserConfig}. Instances are compiled once per import; rule id
+ * sets are copied, and path globs are compiled into a single regular expression
+ * for include and exclude globs.</p>
+ * 
+ * <p>As a {@link ResultReader.PropertyFilter}, this class allows {@link ResultReader}
+ * to reject results based on <code>ruleId</code>, <code>level</code> and 
+ * <code>baselineState</code> properties before these results are decoded. Results
+ * that pass this stage are checked once more by {@link VulnerabilitiesProducer}, 
+ * before generating instance id's or passing vulnerabilities to SSC. Decisions 
+ * that depend only on the rule referenced by a result are cached per rule index 
+ * by {@link VulnerabilitiesProducer}.</p>
+ */
+final class ResultFilter implements ResultReader.PropertyFilter {
+	private final Level minimumLevel;
+	private final Priority minimumPriority;
+	private final Set<String> includeRuleIds;
+	private final Set<String> excludeRuleIds;
+	private final Pattern includePaths;
+	private final Pattern excludePaths;
+	private final Set<String> excludeBaselineStates;
+	private final boolean excludeSuppressed;
+	
+	private ResultFilter(SARIFParserConfig config) {
+		this.minimumLevel = config.getMinimumLevel();
+		this.minimumPriority = config.getMinimumPriority();
+		this.includeRuleIds = copy(config.getIncludeRuleIds());
+		this.excludeRuleIds = copy(config.getExcludeRuleIds());
+		this.includePaths = compileGlobs(config.getIncludePaths());
+		this.excludePaths = compileGlobs(config.getExcludePaths());
+		this.excludeBaselineStates = copy(config.getExcludeBaselineStates());
+		this.excludeSuppressed = config.isExcludeSuppressed();
+	}
+	
+	/**
+	 * Compile the result filter settings provided by the given {@link SARIFParserConfig}
+	 * @param config
+	 * @return {@link ResultFilter} instance, or null if no result filters have been configured
+	 */
+	static final ResultFilter compile(SARIFParserConfig config) {
+		ResultFilter filter = new ResultFilter(config);
+		return filter.isEmpty() ? null : filter;
+	}
+	
+	private boolean isEmpty() {
+		return minimumLevel==null && minimumPriority==null && includeRuleIds==null && excludeRuleIds==null
+				&& includePaths==null && excludePaths==null && excludeBaselineStates==null && !excludeSuppressed;
+	}
+	
+	@Override
+	public boolean rejects(String name, String value) {
+		switch (name) {
+		case "ruleId": return StringUtils.isNotBlank(value) && !acceptsRuleId(value);
+		case "level": return !acceptsLevel(toLevel(value));
+		case "baselineState": return excludeBaselineStates!=null && excludeBaselineStates.contains(value);
+		default: return false;
+		}
+	}
+	
+	/**
+	 * Check the given result against the filters that only depend on result properties,
+	 * i.e. <code>baselineState</code> and <code>suppressions</code> 
+	 * @param result
+	 * @return true if the given result is accepted, false otherwise
+	 */
+	final boolean acceptsResult(Result result) {
+		return (excludeBaselineStates==null || !excludeBaselineStates.contains(result.getBaselineState()))
+				&& (!excludeSuppressed || !result.isSuppressed());
+	}
+	
+	/**
+	 * @param ruleId Rule id of the result, or of the rule referenced by the result, may be null
+	 * @return true if the given rule id is accepted by the rule id include and exclude lists
+	 */
+	final boolean acceptsRuleId(String ruleId) {
+		return (includeRuleIds==null || (ruleId!=null && includeRuleIds.contains(ruleId)))
+				&& (excludeRuleIds==null || ruleId==null || !excludeRuleIds.contains(ruleId));
+	}
+	
+	/**
+	 * @param level Effective level of a result, or null if unknown
+	 * @return true if the given level is equal to or higher than the configured minimum level
+	 */
+	final boolean acceptsLevel(Level level) {
+		// Level may be null for invalid level values, or if a rule doesn't define a default 
+		// level; in both cases, we accept the result and leave it up to other filters
+		return minimumLevel==null || level==null || getRank(level)>=getRank(minimumLevel);
+	}
+	
+	/**
+	 * @param priority Effective Fortify priority of a result
+	 * @return true if the given priority is equal to or higher than the configured minimum priority
+	 */
+	final boolean acceptsPriority(Priority priority) {
+		return minimumPriority==null || getRank(priority)>=getRank(minimumPriority);
+	}
+	
+	/**
+	 * @param fileName Full file name of a result
+	 * @return true if the given file name matches the include globs (if any), and 
+	 *         doesn't match any of the exclude globs
+	 */
+	final boolean acceptsPath(String fileName) {
+		if ( includePaths==null && excludePaths==null ) { return true; }
+		String path = fileName==null ? "" : fileName.replace('\\', '/');
+		return (includePaths==null || includePaths.matcher(path).matches())
+				&& (excludePaths==null || !excludePaths.matcher(path).matches());
+	}
+	
+	private static final int getRank(Level level) {
+		switch (level) {
+		case error: return 3;
+		case warning: return 2;
+		case note: return 1;
+		default: return 0;
+		}
+	}
+	
+	private static final int getRank(Priority priority) {
+		switch (priority) {
+		case Critical: return 3;
+		case High: return 2;
+		case Medium: return 1;
+		default: return 0;
+		}
+	}
+	
+	private static final Level toLevel(String value) {
+		try {
+			return Level.valueOf(value);
+		} catch ( IllegalArgumentException e ) {
+			return null;
+		}
+	}
+	
+	private static final Set<String> copy(Set<String> values) {
+		return values==null || values.isEmpty() ? null : Collections.unmodifiableSet(new HashSet<>(values));
+	}
+	
+	/**
+	 * Compile the given globs into a single regular expression. Within a glob,
+	 * <code>**</code> matches any number of characters including path separators,
+	 * <code>*</code> matches any number of characters except path separators, and 
+	 * <code>?</code> matches a single character except path separators. A leading
+	 * <code>**&#47;</code> also matches paths without any directory.
+	 */
+	static final Pattern compileGlobs(Set<String> globs) {
+		if ( globs==null || globs.isEmpty() ) { return null; }
+		StringBuilder regex = new StringBuilder();
+		for ( String glob : globs ) {
+			if ( regex.length()>0 ) { regex.append('|'); }
+			regex.append("(?:");
+			String normalized = glob.trim().replace('\\', '/');
+			for ( int i = 0 ; i < normalized.length() ; i++ ) {
+				char c = normalized.charAt(i);
+				if ( c=='*' && normalized.startsWith("**/", i) ) {
+					regex.append("(?:.*/)?");
+					i += 2;
+				} else if ( c=='*' && normalized.startsWith("**", i) ) {
+					regex.append(".*");
+					i++;
+				} else if ( c=='*' ) {
+					regex.append("[^/]*");
+				} else if ( c=='?' ) {
+					regex.append("[^/]");
+				} else {
+					if ( "\\.[]{}()<>+-=^$|!".indexOf(c)>=0 ) { regex.append('\\'); }
+					regex.append(c);
+				}
+			}
+			regex.append(')');
+		}
+		return Pattern.compile(regex.toString());
+	}
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fortify.plugin.api.ScanData;
+import com.fortify.ssc.parser.sarif.domain.RunData;
+
+/**
+ * <p>This class caches the run index built by {@link ScanParser}, allowing the 
+ * subsequent {@link VulnerabilitiesParser} invocation for the same upload to
+ * re-use the recorded input document offsets of rules, artifacts and results, 
+ * rather than parsing all rules and artifacts once more. The run index consists
+ * of one deferred {@link RunData} instance for every SARIF run.</p>
+ * 
+ * <p>Entries are keyed by {@link ScanData#getSessionId()}; uploads without a 
+ * session id are not cached. As an additional safety measure, every entry
+ * records a SHA-256 hash of the start of the input document, and entries are 
+ * only re-used if the input document hash matches. Entries are removed once 
+ * they've been taken by {@link VulnerabilitiesParser}, once they've expired, 
+ * if the maximum number of entries has been reached, or once {@link #clear()}
+ * is called.</p>
+ */
+public final class RunIndexCache {
+	private static final Logger LOG = LoggerFactory.getLogger(RunIndexCache.class);
+	private static final int CONTENT_HASH_BYTES = 64*1024;
+	private final long ttlNanos;
+	private final int maxEntries;
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+	
+	/**
+	 * Create a {@link RunIndexCache} instance
+	 * @param ttlMillis Number of milliseconds after which unused entries expire
+	 * @param maxEntries Maximum number of cached entries; the oldest entry is 
+	 *        removed if this maximum is exceeded
+	 */
+	public RunIndexCache(long ttlMillis, int maxEntries) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		this.maxEntries = maxEntries;
+	}
+	
+	/**
+	 * Store the run index for the given {@link ScanData}
+	 * @param scanData
+	 * @param runs Deferred {@link RunData} instances for every run in the input document
+	 * @throws IOException
+	 */
+	final void put(ScanData scanData, List<RunData> runs) throws IOException {
+		String sessionId = scanData.getSessionId();
+		if ( sessionId!=null ) {
+			Entry entry = new Entry(getContentHash(scanData), runs, System.nanoTime()+ttlNanos);
+			synchronized (entries) {
+				removeExpiredEntries();
+				entries.remove(sessionId);
+				entries.put(sessionId, entry);
+				while ( entries.size()>maxEntries ) {
+					Iterator<String> iterator = entries.keySet().iterator();
+					LOG.debug("Removing run index for session {}; maximum number of cached run indexes exceeded", iterator.next());
+					iterator.remove();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Take the run index for the given {@link ScanData}, removing it from this cache. 
+	 * @param scanData
+	 * @return Deferred {@link RunData} instances for every run in the input document, 
+	 *         or null if no run index is available for the given {@link ScanData}
+	 * @throws IOException
+	 */
+	final List<RunData> take(ScanData scanData) throws IOException {
+		String sessionId = scanData.getSessionId();
+		if ( sessionId==null ) { return null; }
+		Entry entry;
+		synchronized (entries) {
+			removeExpiredEntries();
+			entry = entries.remove(sessionId);
+		}
+		if ( entry==null ) { return null; }
+		if ( !Arrays.equals(entry.contentHash, getContentHash(scanData)) ) {
+			LOG.warn("Ignoring run index for session {}; input document doesn't match", sessionId);
+			return null;
+		}
+		LOG.debug("Using run index for session {}", sessionId);
+		return entry.runs;
+	}
+	
+	/**
+	 * Remove all entries from this cache
+	 */
+	public final void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+	
+	/**
+	 * @return Number of entries currently held by this cache, including expired 
+	 *         entries that haven't been removed yet
+	 */
+	public final int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+	
+	private final void removeExpiredEntries() {
+		long now = System.nanoTime();
+		entries.values().removeIf(entry -> now-entry.expiryNanos>0);
+	}
+	
+	private static final byte[] getContentHash(ScanData scanData) throws IOException {
+		try ( InputStream is = scanData.getInputStream(SarifScanDataStreamingJsonParser.SCAN_ENTRY_MATCHER) ) {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			int remaining = CONTENT_HASH_BYTES;
+			int read;
+			while ( remaining>0 && (read=is.read(buffer, 0, Math.min(buffer.length, remaining)))>=0 ) {
+				messageDigest.update(buffer, 0, read);
+				remaining -= read;
+			}
+			return messageDigest.digest();
+		} catch ( NoSuchAlgorithmException e ) {
+			throw new IllegalStateException("SHA-256 algorithm not available", e);
+		}
+	}
+	
+	private static final class Entry {
+		private final byte[] contentHash;
+		private final List<RunData> runs;
+		private final long expiryNanos;
+		
+		private Entry(byte[] contentHash, List<RunData> runs, long expiryNanos) {
+			this.contentHash = contentHash;
+			this.runs = runs;
+			this.expiryNanos = expiryNanos;
+		}
+	}
+}
@@ -24,10 +24,19 @@
  ******************************************************************************/
 package com.fortify.ssc.parser.sarif.parser;
 
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.StringUtils;
+
 import com.fortify.util.ssc.parser.json.AbstractScanDataStreamingJsonParser;
 
 public class SarifScanDataStreamingJsonParser extends AbstractScanDataStreamingJsonParser<SarifScanDataStreamingJsonParser> {
+	/** Gzip-compressed input is decompressed by {@link GzipScanData} */
+	private static final String[] SUPPORTED_EXTENSIONS = {".sarif", ".json", ".sarif.gz", ".json.gz"};
+	/** Matches the same scan entries as the ones processed by this parser */
+	public static final Predicate<String> SCAN_ENTRY_MATCHER = name -> StringUtils.endsWithAny(name, SUPPORTED_EXTENSIONS);
+	
 	public SarifScanDataStreamingJsonParser() {
-		super(".sarif", ".json");
+		super(SUPPORTED_EXTENSIONS);
 	}
 }
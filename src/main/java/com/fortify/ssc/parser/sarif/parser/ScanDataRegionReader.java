@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fortify.plugin.api.ScanData;
+import com.fortify.ssc.parser.sarif.domain.RegionReader;
+import com.fortify.util.json.ExtendedJsonParser;
+
+/**
+ * {@link RegionReader} implementation that re-reads individual JSON values
+ * from the SARIF document provided by a {@link ScanData} instance. Each read
+ * re-opens the {@link ScanData} input stream and skips to the start of the
+ * requested region; see {@link FileChannelScanData} for skipping without 
+ * reading the preceding input.
+ */
+public final class ScanDataRegionReader implements RegionReader {
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	private final ScanData scanData;
+	
+	public ScanDataRegionReader(final ScanData scanData) {
+		this.scanData = scanData;
+	}
+	
+	@Override
+	public <T> T read(Class<T> type, long start, long end) throws IOException {
+		try ( InputStream is = scanData.getInputStream(SarifScanDataStreamingJsonParser.SCAN_ENTRY_MATCHER) ) {
+			skipFully(is, start);
+			try ( JsonParser jsonParser = OBJECT_MAPPER.getFactory().createParser(is) ) {
+				return jsonParser.readValueAs(type);
+			}
+		}
+	}
+
+	/**
+	 * Open an {@link ExtendedJsonParser} for reading the input document, starting
+	 * at the given input document offset. Note that the byte offsets reported by 
+	 * the returned parser are relative to the given offset. The caller is responsible
+	 * for closing the returned parser, which will also close the underlying input stream.
+	 * @param start
+	 * @return {@link ExtendedJsonParser} positioned at the given offset
+	 * @throws IOException
+	 */
+	public ExtendedJsonParser openParser(long start) throws IOException {
+		InputStream is = scanData.getInputStream(SarifScanDataStreamingJsonParser.SCAN_ENTRY_MATCHER);
+		try {
+			skipFully(is, start);
+			return new ExtendedJsonParser(OBJECT_MAPPER.getFactory().createParser(is));
+		} catch ( IOException | RuntimeException e ) {
+			is.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Open a {@link JsonParser} for reading the given input document region as a
+	 * JSON array. The given region is expected to contain a comma-separated list 
+	 * of JSON values, for example a consecutive sub-range of entries in a JSON
+	 * array, without the surrounding brackets. The caller is responsible for closing 
+	 * the returned parser, which will also close the underlying input stream.
+	 * @param start
+	 * @param end
+	 * @return {@link JsonParser} for reading the given region as a JSON array 
+	 * @throws IOException
+	 */
+	public JsonParser openArrayParser(long start, long end) throws IOException {
+		InputStream is = scanData.getInputStream(SarifScanDataStreamingJsonParser.SCAN_ENTRY_MATCHER);
+		try {
+			skipFully(is, start);
+			InputStream arrayStream = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+					toInputStream("["), new BoundedInputStream(is, end-start), toInputStream("]"))));
+			return OBJECT_MAPPER.getFactory().createParser(arrayStream);
+		} catch ( IOException | RuntimeException e ) {
+			is.close();
+			throw e;
+		}
+	}
+	
+	private static final InputStream toInputStream(String s) {
+		return new ByteArrayInputStream(s.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static final void skipFully(InputStream is, long bytesToSkip) throws IOException {
+		while ( bytesToSkip > 0 ) {
+			long skipped = is.skip(bytesToSkip);
+			if ( skipped <= 0 ) {
+				if ( is.read()<0 ) {
+					throw new EOFException("Unexpected end of input while skipping to region start");
+				}
+				skipped = 1;
+			}
+			bytesToSkip -= skipped;
+		}
+	}
+	
+	/**
+	 * {@link InputStream} that returns at most the given number of bytes 
+	 * from the wrapped {@link InputStream}
+	 */
+	private static final class BoundedInputStream extends FilterInputStream {
+		private long remaining;
+		
+		private BoundedInputStream(InputStream in, long length) {
+			super(in);
+			this.remaining = length;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			if ( remaining<=0 ) { return -1; }
+			int result = super.read();
+			if ( result>=0 ) { remaining--; }
+			return result;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if ( remaining<=0 ) { return -1; }
+			int result = super.read(b, off, (int)Math.min(len, remaining));
+			if ( result>0 ) { remaining -= result; }
+			return result;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long result = super.skip(Math.min(n, remaining));
+			if ( result>0 ) { remaining -= result; }
+			return result;
+		}
+		
+		@Override
+		public int available() throws IOException {
+			return (int)Math.min(super.available(), remaining);
+		}
+		
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
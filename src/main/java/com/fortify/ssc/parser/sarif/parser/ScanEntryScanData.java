@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
+
+/**
+ * {@link ScanData} implementation that provides a single {@link ScanEntry} 
+ * of another {@link ScanData} instance, used for processing uploads that 
+ * contain multiple SARIF documents, like zip bundles. Input streams are 
+ * always opened for the configured {@link ScanEntry}, and the session id 
+ * is scoped to the entry name, such that session-based caches like 
+ * {@link RunIndexCache} hold separate entries for every {@link ScanEntry}.
+ */
+final class ScanEntryScanData implements ScanData {
+	private static final Logger LOG = LoggerFactory.getLogger(ScanEntryScanData.class);
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private final ScanData delegate;
+	private final ScanEntry scanEntry;
+	
+	ScanEntryScanData(ScanData delegate, ScanEntry scanEntry) {
+		this.delegate = delegate;
+		this.scanEntry = scanEntry;
+	}
+	
+	/**
+	 * @param scanData
+	 * @return All entries of the given {@link ScanData} that contain a SARIF document, 
+	 *         based on {@link SarifScanDataStreamingJsonParser#SCAN_ENTRY_MATCHER}
+	 */
+	static final List<ScanEntry> getSarifScanEntries(ScanData scanData) {
+		List<ScanEntry> scanEntries = scanData.getScanEntries();
+		return scanEntries==null ? Collections.emptyList() : scanEntries.stream()
+				.filter(e->e!=null && e.getEntryName()!=null && SarifScanDataStreamingJsonParser.SCAN_ENTRY_MATCHER.test(e.getEntryName()))
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Get a {@link ScanEntryScanData} instance for each of the given {@link ScanEntry} 
+	 * instances that contains a SARIF document with a supported version. Other entries,
+	 * like unrelated JSON files in a zip bundle, are logged and skipped.
+	 * @param scanData
+	 * @param scanEntries as returned by {@link #getSarifScanEntries(ScanData)}
+	 * @return {@link ScanEntryScanData} instances for all supported entries
+	 * @throws IOException
+	 */
+	static final List<ScanEntryScanData> getSupportedScanEntryScanData(ScanData scanData, List<ScanEntry> scanEntries) throws IOException {
+		List<ScanEntryScanData> result = new ArrayList<>(scanEntries.size());
+		for ( ScanEntry scanEntry : scanEntries ) {
+			ScanEntryScanData scanEntryScanData = new ScanEntryScanData(scanData, scanEntry);
+			String version = scanEntryScanData.readVersion();
+			if ( ScanParser.SUPPORTED_VERSION.equals(version) ) {
+				result.add(scanEntryScanData);
+			} else {
+				LOG.warn("Skipping {}: not a SARIF {} document (version: {})", scanEntry.getEntryName(), ScanParser.SUPPORTED_VERSION, version);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Read the top-level <code>version</code> property of the document provided by 
+	 * this instance. As SARIF documents usually list this property before the 
+	 * <code>runs</code> array, this usually requires reading only the start of 
+	 * the document.
+	 * @return Document version, or null if the document isn't a JSON object 
+	 *         or doesn't have a <code>version</code> property
+	 * @throws IOException
+	 */
+	final String readVersion() throws IOException {
+		try ( InputStream is = getInputStream(scanEntry); JsonParser jp = JSON_FACTORY.createParser(is) ) {
+			if ( jp.nextToken()!=JsonToken.START_OBJECT ) { return null; }
+			while ( jp.nextToken()==JsonToken.FIELD_NAME ) {
+				String name = jp.getCurrentName();
+				jp.nextToken();
+				if ( "version".equals(name) ) { return jp.getValueAsString(); }
+				jp.skipChildren();
+			}
+			return null;
+		} catch ( JsonProcessingException e ) {
+			return null;
+		}
+	}
+	
+	/**
+	 * @return Name of the {@link ScanEntry} provided by this instance
+	 */
+	final String getEntryName() {
+		return scanEntry.getEntryName();
+	}
+
+	@Override
+	public String getSessionId() {
+		String sessionId = delegate.getSessionId();
+		return sessionId==null ? null : sessionId+"!"+scanEntry.getEntryName();
+	}
+
+	@Override
+	public List<ScanEntry> getScanEntries() {
+		return Collections.singletonList(scanEntry);
+	}
+
+	@Override
+	public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+		return delegate.getInputStream(scanEntry);
+	}
+
+	@Override
+	public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+		return delegate.getInputStream(scanEntry);
+	}
+	
+	/**
+	 * @return true if the {@link ScanEntry} provided by this instance is 
+	 *         decompressed by the underlying {@link GzipScanData}
+	 * @throws IOException
+	 */
+	final boolean isCompressed() throws IOException {
+		return delegate instanceof GzipScanData && ((GzipScanData)delegate).isCompressed(scanEntry);
+	}
+}
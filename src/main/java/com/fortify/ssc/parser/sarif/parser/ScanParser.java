@@ -1,49 +1,197 @@
 package com.fortify.ssc.parser.sarif.parser;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 import com.fortify.plugin.api.ScanBuilder;
 import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
 import com.fortify.plugin.api.ScanParsingException;
+import com.fortify.ssc.parser.sarif.SARIFParserConfig;
+import com.fortify.ssc.parser.sarif.SARIFParserConfig.RunDataStorage;
+import com.fortify.ssc.parser.sarif.domain.RegionReader;
+import com.fortify.ssc.parser.sarif.domain.RunData;
+import com.fortify.util.json.AbstractStreamingJsonParser;
+import com.fortify.util.json.ExtendedJsonParser;
+import com.fortify.util.json.StreamingJsonParser;
 
 /**
- * This class parses the SARIF JSON to set the various {@link ScanBuilder}
- * properties. If the input file contains multiple runs or invocations,
- * the corresponding {@link ScanBuilder} properties may be set multiple
- * times. As such, for example the scan date will be set to the end time 
- * of the last invocation of the last run, based on the order of runs and
- * invocations in the input file.
+ * This class parses scan information like scan date and number of files from 
+ * a SARIF JSON input document. If a {@link RunIndexCache} is configured and 
+ * rules and artifacts are configured to be re-read from the input document 
+ * (see {@link RunDataStorage#deferred}), this class also builds a run index 
+ * in the same pass, to be re-used by {@link VulnerabilitiesParser} for the 
+ * same upload.
  * 
- * @author Ruud Senden
+ * If the upload contains multiple SARIF documents, like a zip bundle, scan 
+ * information is aggregated across all documents; the number of files is the
+ * total over all documents, the scan date is the latest scan date of all 
+ * documents, and the host name lists the distinct host names of all documents.
+ * Within a single document, the last invocation end time and machine are used
+ * as scan date and host name, as for single-document uploads. Documents that 
+ * are not SARIF 2.1.0 documents, like unrelated JSON files, are skipped; see
+ * {@link ScanEntryScanData#getSupportedScanEntryScanData(ScanData, List)}.
  */
 public class ScanParser {
 	public static final String MSG_UNSUPPORTED_INPUT_FILE_VERSION = "Unsupported input file version";
+	static final String SUPPORTED_VERSION = "2.1.0";
 	private final ScanData scanData;
     private final ScanBuilder scanBuilder;
+    private final SARIFParserConfig config;
+    private final RunIndexCache runIndexCache;
     private String version;
     private int numFiles = 0;
+    private boolean aggregateEntries;
+    private Date entryScanDate;
+    private String entryHostName;
+    private Date scanDate;
+    private final Set<String> hostNames = new LinkedHashSet<>();
     
 	public ScanParser(final ScanData scanData, final ScanBuilder scanBuilder) {
+		this(scanData, scanBuilder, null, null);
+	}
+	
+	/**
+	 * Constructor for storing {@link ScanData}, {@link ScanBuilder}, {@link SARIFParserConfig}
+	 * and {@link RunIndexCache} instances.
+	 * @param scanData
+	 * @param scanBuilder
+	 * @param config
+	 * @param runIndexCache used to store the run index for the given {@link ScanData}, may be null 
+	 */
+	public ScanParser(final ScanData scanData, final ScanBuilder scanBuilder, final SARIFParserConfig config, final RunIndexCache runIndexCache) {
 		this.scanData = scanData;
 		this.scanBuilder = scanBuilder;
+		this.config = config;
+		this.runIndexCache = runIndexCache;
 	}
 	
 	public final void parse() throws ScanParsingException, IOException {
-		new SarifScanDataStreamingJsonParser()
-			.handler("/version", jp -> version=jp.getValueAsString())
-			.handler("/runs/invocations/endTimeUtc", jp -> scanBuilder.setScanDate(jp.readValueAs(Date.class)))
-			.handler("/runs/invocations/machine", jp -> scanBuilder.setHostName(jp.getValueAsString()))
-			.handler("/runs/automationId/guid", jp -> scanBuilder.setBuildId(jp.getValueAsString()))
-			.handler("/runs/automationId/id", jp -> scanBuilder.setScanLabel(jp.getValueAsString()))
-			.handler("/runs/artifacts", jp -> numFiles+=jp.countArrayEntries())
-			.parse(scanData);
-		
-		if ( !"2.1.0".equals(version) ) {
-			throw new ScanParsingException(MSG_UNSUPPORTED_INPUT_FILE_VERSION+": "+version);
+		final List<ScanEntry> scanEntries = ScanEntryScanData.getSarifScanEntries(scanData);
+		if ( scanEntries.size()>1 ) {
+			final List<ScanEntryScanData> supportedScanEntries = ScanEntryScanData.getSupportedScanEntryScanData(scanData, scanEntries);
+			if ( supportedScanEntries.isEmpty() ) {
+				throw new ScanParsingException(MSG_UNSUPPORTED_INPUT_FILE_VERSION+": no SARIF "+SUPPORTED_VERSION+" documents found");
+			}
+			aggregateEntries = true;
+			for ( ScanEntryScanData scanEntryScanData : supportedScanEntries ) {
+				entryScanDate = null;
+				entryHostName = null;
+				parse(scanEntryScanData, scanEntryScanData.getEntryName()+": ");
+				addScanDate(entryScanDate);
+				addHostName(entryHostName);
+			}
+			if ( scanDate!=null ) {
+				scanBuilder.setScanDate(scanDate);
+			}
+			if ( !hostNames.isEmpty() ) {
+				scanBuilder.setHostName(String.join(", ", hostNames));
+			}
+		} else {
+			parse(scanData, "");
 		}
+		
 		scanBuilder.setEngineVersion(version);
 		scanBuilder.setNumFiles(numFiles);
 		scanBuilder.completeScan();
 	}
+	
+	private final void parse(ScanData scanData, String errorPrefix) throws ScanParsingException, IOException {
+		version = null;
+		if ( isRunIndexEnabled(config, runIndexCache, scanData) && scanData.getSessionId()!=null ) {
+			parseWithRunIndex(scanData);
+		} else {
+			addRunHandlers(new SarifScanDataStreamingJsonParser(), "/runs")
+				.handler("/version", jp -> version=jp.getValueAsString())
+				.handler("/runs/artifacts", jp -> numFiles+=jp.countArrayEntries())
+				.parse(scanData);
+		}
+		if ( !SUPPORTED_VERSION.equals(version) ) {
+			throw new ScanParsingException(errorPrefix+MSG_UNSUPPORTED_INPUT_FILE_VERSION+": "+version);
+		}
+	}
+	
+	/**
+	 * Parse scan information, building a deferred {@link RunData} instance for
+	 * every run in the same pass. The resulting run index is stored in the
+	 * configured {@link RunIndexCache} once the full document has been parsed.
+	 */
+	private final void parseWithRunIndex(ScanData scanData) throws ScanParsingException, IOException {
+		final RegionReader regionReader = new ScanDataRegionReader(scanData);
+		final long resultCheckpointInterval = VulnerabilitiesParser.getResultCheckpointInterval(config, scanData);
+		final List<RunData> runs = new ArrayList<>();
+		new SarifScanDataStreamingJsonParser()
+			.handler("/version", jp -> version=jp.getValueAsString())
+			.handler("/runs/*", jp -> runs.add(parseRun(regionReader, jp, resultCheckpointInterval)))
+			.parse(scanData);
+		if ( SUPPORTED_VERSION.equals(version) ) {
+			runIndexCache.put(scanData, runs);
+		}
+	}
+	
+	private final RunData parseRun(RegionReader regionReader, ExtendedJsonParser jp, long resultCheckpointInterval) throws IOException {
+		RunData runData = RunData.parseDeferredRunData(regionReader, jp, 
+				addRunHandlers(new StreamingJsonParser(), ""), resultCheckpointInterval);
+		numFiles += runData.getArtifactCount();
+		return runData;
+	}
+	
+	private final <T extends AbstractStreamingJsonParser<T>> T addRunHandlers(T parser, String runPath) {
+		return parser
+			.handler(runPath+"/invocations/endTimeUtc", jp -> setScanDate(jp.readValueAs(Date.class)))
+			.handler(runPath+"/invocations/machine", jp -> setHostName(jp.getValueAsString()))
+			.handler(runPath+"/automationId/guid", jp -> scanBuilder.setBuildId(jp.getValueAsString()))
+			.handler(runPath+"/automationId/id", jp -> scanBuilder.setScanLabel(jp.getValueAsString()));
+	}
+	
+	/**
+	 * Set the scan date for a single-document upload, or remember it as the 
+	 * scan date of the current document for multi-document uploads. In both
+	 * cases, the last invocation end time in the document wins.
+	 */
+	private final void setScanDate(Date date) {
+		if ( aggregateEntries ) {
+			entryScanDate = date;
+		} else {
+			scanBuilder.setScanDate(date);
+		}
+	}
+	
+	/**
+	 * Set the host name for a single-document upload, or remember it as the 
+	 * host name of the current document for multi-document uploads. In both
+	 * cases, the last invocation machine in the document wins.
+	 */
+	private final void setHostName(String hostName) {
+		if ( aggregateEntries ) {
+			entryHostName = hostName;
+		} else {
+			scanBuilder.setHostName(hostName);
+		}
+	}
+	
+	private final void addScanDate(Date date) {
+		if ( date!=null && (scanDate==null || date.after(scanDate)) ) {
+			scanDate = date;
+		}
+	}
+	
+	private final void addHostName(String hostName) {
+		if ( hostName!=null && !hostName.trim().isEmpty() ) {
+			hostNames.add(hostName);
+		}
+	}
+	
+	/**
+	 * @return true if a run index should be built by {@link ScanParser} and re-used by 
+	 *         {@link VulnerabilitiesParser} for the given {@link ScanData}, false otherwise
+	 */
+	static final boolean isRunIndexEnabled(SARIFParserConfig config, RunIndexCache runIndexCache, ScanData scanData) throws IOException {
+		return runIndexCache!=null && config!=null 
+				&& VulnerabilitiesParser.getRunDataStorage(config, scanData)==RunDataStorage.deferred;
+	}
 }
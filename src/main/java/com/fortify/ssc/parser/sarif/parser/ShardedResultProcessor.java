@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fortify.plugin.api.ScanData;
+import com.fortify.ssc.parser.sarif.domain.Result;
+import com.fortify.ssc.parser.sarif.domain.ResultCheckpoints;
+import com.fortify.ssc.parser.sarif.domain.ResultHandler;
+import com.fortify.ssc.parser.sarif.domain.RunData;
+
+/**
+ * <p>This class allows for processing a single, large SARIF <code>results</code> 
+ * array on multiple worker threads. Based on the {@link ResultCheckpoints} recorded
+ * while reading the run, the <code>results</code> array is split into shards on 
+ * result boundaries. Each shard is re-read from the input document and processed 
+ * by a worker thread, using its own JSON parser while sharing the read-only 
+ * {@link RunData} for the current run.</p>
+ * 
+ * <p>Like {@link ConcurrentRunProcessor}, the importing thread replays the 
+ * vulnerabilities produced for each shard in input order, with the number of 
+ * shards being processed concurrently limited to the number of worker threads.</p>
+ * 
+ * <p>Results that are passed to this processor directly through {@link #handleResult(RunData, Result)}
+ * are processed on the calling thread.</p>
+ */
+final class ShardedResultProcessor implements ResultHandler, Closeable {
+	private static final int SHARDS_PER_THREAD = 4;
+	private final VulnerabilitiesProducer vulnerabilitiesProducer;
+	private final ScanDataRegionReader regionReader;
+	private final ExecutorService executor;
+	private final int threads;
+	private final int batchSize;
+	
+	/**
+	 * Create a {@link ShardedResultProcessor} instance
+	 * @param vulnerabilitiesProducer used to produce vulnerabilities
+	 * @param scanData used to re-read shards from the input document
+	 * @param threads Number of worker threads
+	 * @param batchSize Number of results per batch of vulnerabilities passed to the importing thread
+	 */
+	public ShardedResultProcessor(VulnerabilitiesProducer vulnerabilitiesProducer, ScanData scanData, int threads, int batchSize) {
+		this.vulnerabilitiesProducer = vulnerabilitiesProducer;
+		this.regionReader = new ScanDataRegionReader(scanData);
+		this.executor = WorkerThreads.newFixedThreadPool("result-shard", threads);
+		this.threads = threads;
+		this.batchSize = batchSize;
+	}
+	
+	@Override
+	public void handleResult(RunData runData, Result result) throws IOException {
+		vulnerabilitiesProducer.produceVulnerability(runData, result);
+	}
+	
+	@Override
+	public Result readResult(JsonParser jsonParser) throws IOException {
+		return vulnerabilitiesProducer.readResult(jsonParser);
+	}
+	
+	/**
+	 * Process the <code>results</code> array for the given {@link RunData} in
+	 * shards. If no or only a single {@link ResultCheckpoints} entry has been 
+	 * recorded for the <code>results</code> array, this method returns false 
+	 * without processing any results, and the caller should process the
+	 * <code>results</code> array sequentially. Checkpoints that only cover 
+	 * results already processed while reading the run are ignored.
+	 * @param runData
+	 * @return true if the <code>results</code> array has been processed, false otherwise
+	 * @throws IOException
+	 */
+	public boolean processResults(RunData runData) throws IOException {
+		ResultCheckpoints checkpoints = runData.getResultCheckpoints();
+		if ( checkpoints==null || checkpoints.size()<2 ) { return false; }
+		final long streamedResultCount = runData.getStreamedResultCount();
+		int checkpoint = 0;
+		while ( checkpoint+1<checkpoints.size() && checkpoints.getResultIndex(checkpoint+1)<=streamedResultCount ) {
+			checkpoint++;
+		}
+		long shardBytes = (checkpoints.getEnd()-checkpoints.getStart(checkpoint))/((long)threads*SHARDS_PER_THREAD);
+		Deque<VulnerabilityBatchQueue> pendingShards = new ArrayDeque<>();
+		while ( checkpoint<checkpoints.size() ) {
+			int nextCheckpoint = checkpoint+1;
+			while ( nextCheckpoint<checkpoints.size() 
+					&& checkpoints.getStart(nextCheckpoint)-checkpoints.getStart(checkpoint)<shardBytes ) {
+				nextCheckpoint++;
+			}
+			final long start = checkpoints.getStart(checkpoint);
+			final long end = nextCheckpoint<checkpoints.size() ? checkpoints.getPreviousEnd(nextCheckpoint) : checkpoints.getEnd();
+			final long firstResultIndex = checkpoints.getResultIndex(checkpoint);
+			while ( pendingShards.size()>=threads ) {
+				pendingShards.removeFirst().replay();
+			}
+			final VulnerabilityBatchQueue queue = new VulnerabilityBatchQueue(vulnerabilitiesProducer, batchSize);
+			pendingShards.add(queue);
+			executor.execute(()->queue.process(()->parseShard(runData, start, end, firstResultIndex, queue)));
+			checkpoint = nextCheckpoint;
+		}
+		while ( !pendingShards.isEmpty() ) {
+			pendingShards.removeFirst().replay();
+		}
+		return true;
+	}
+	
+	/**
+	 * Parse the results in the given shard, skipping any results that were already 
+	 * processed while reading the run; see {@link RunData#getStreamedResultCount()}. 
+	 */
+	private void parseShard(RunData runData, long start, long end, long firstResultIndex, ResultHandler resultHandler) throws IOException {
+		final long streamedResultCount = runData.getStreamedResultCount();
+		long resultIndex = firstResultIndex;
+		try ( JsonParser jsonParser = regionReader.openArrayParser(start, end) ) {
+			jsonParser.nextToken();
+			while ( jsonParser.nextToken()!=JsonToken.END_ARRAY ) {
+				if ( resultIndex++<streamedResultCount ) {
+					jsonParser.skipChildren();
+				} else {
+					resultHandler.handleResult(runData, resultHandler.readResult(jsonParser));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Shut down the worker pool, waiting for running workers to stop; any 
+	 * pending shards will be discarded.
+	 */
+	@Override
+	public void close() {
+		WorkerThreads.shutdown(executor);
+	}
+}
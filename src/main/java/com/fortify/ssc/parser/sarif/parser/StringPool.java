@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import com.fortify.ssc.parser.sarif.metrics.ParserMetrics;
+
+/**
+ * Bounded pool for de-duplicating strings that are repeated across many
+ * vulnerabilities within a single import, like file names, categories, 
+ * rule guids and messages. Each pool is scoped to a single {@link VulnerabilitiesProducer}.
+ * 
+ * <p>The pool is a direct-mapped table; each value maps to a single slot based on 
+ * its hash code. If a slot holds an equal value, the pooled instance is returned; 
+ * otherwise the given value replaces the slot contents. As such, the pool never 
+ * grows beyond the configured number of slots, and frequently repeated values 
+ * tend to remain pooled. Values that can be keyed by rule or artifact index are 
+ * cached by {@link VulnerabilitiesProducer} before falling back to this pool;
+ * see {@link #indexHit(String)}.</p>
+ * 
+ * <p>This class may be used concurrently from multiple threads; slots are read
+ * and written without synchronization, as any slot contents is a valid pooled
+ * value. Pool hits and the estimated number of bytes saved are registered with 
+ * the given {@link ParserMetrics}.</p>
+ */
+final class StringPool {
+	private final String[] slots;
+	private final int mask;
+	private final ParserMetrics metrics;
+	
+	/**
+	 * Create a {@link StringPool} instance
+	 * @param size Number of slots, rounded up to the next power of two; 0 or less disables pooling
+	 * @param metrics used to register pool hits
+	 */
+	StringPool(int size, ParserMetrics metrics) {
+		int slotCount = size<=0 ? 0 : Integer.highestOneBit(Math.min(size, 1<<30)*2-1);
+		this.slots = slotCount==0 ? null : new String[slotCount];
+		this.mask = slotCount-1;
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * @return Pooled instance equal to the given value, or the given value itself
+	 *         if no equal instance is pooled or pooling is disabled
+	 */
+	final String intern(String value) {
+		if ( value==null || slots==null ) { return value; }
+		int hash = value.hashCode();
+		int slot = (hash ^ (hash>>>16)) & mask;
+		String pooled = slots[slot];
+		if ( pooled==value ) { return value; }
+		if ( pooled!=null && pooled.equals(value) ) {
+			metrics.stringPoolHit(value.length());
+			return pooled;
+		}
+		slots[slot] = value;
+		metrics.stringPoolMiss();
+		return value;
+	}
+	
+	/**
+	 * Register a hit for a pooled value that was looked up by rule or artifact 
+	 * index, rather than through {@link #intern(String)}
+	 * @return the given value
+	 */
+	final String indexHit(String value) {
+		metrics.stringPoolHit(value.length());
+		return value;
+	}
+	
+	/**
+	 * @return Maximum number of index-keyed values to cache per run; this is
+	 *         equal to the number of pool slots, or 0 if pooling is disabled 
+	 */
+	final int getMaxIndexedEntries() {
+		return slots==null ? 0 : slots.length;
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fortify.plugin.api.StaticVulnerabilityBuilder;
+import com.fortify.plugin.api.VulnerabilityHandler;
+
+/**
+ * {@link VulnerabilityHandler} implementation that wraps another {@link VulnerabilityHandler},
+ * making sure that every instance id passed to the wrapped handler is unique. If an
+ * instance id has been seen before, a <code>-1</code>, <code>-2</code>, ... suffix is 
+ * appended until a unique instance id is found, like the 
+ * <code>HandleDuplicateIdVulnerabilityHandler</code> provided by the parser utilities.
+ * Instance id's seen so far are tracked in a compact {@link InstanceIdSet}, allowing
+ * for imports with millions of results without keeping every instance id string 
+ * on the heap.
+ * <p>
+ * Instances are not thread-safe; all vulnerabilities are expected to be passed 
+ * to this handler from the importing thread.
+ */
+final class UniqueIdVulnerabilityHandler implements VulnerabilityHandler {
+	private static final Logger LOG = LoggerFactory.getLogger(UniqueIdVulnerabilityHandler.class);
+	private final VulnerabilityHandler vulnerabilityHandler;
+	private final InstanceIdSet instanceIds = new InstanceIdSet();
+	
+	UniqueIdVulnerabilityHandler(VulnerabilityHandler vulnerabilityHandler) {
+		this.vulnerabilityHandler = vulnerabilityHandler;
+	}
+	
+	@Override
+	public StaticVulnerabilityBuilder startStaticVulnerability(String instanceId) {
+		return vulnerabilityHandler.startStaticVulnerability(getUniqueId(instanceId));
+	}
+	
+	private String getUniqueId(String instanceId) {
+		String uniqueId = instanceId;
+		for ( int i = 1 ; !instanceIds.add(uniqueId) ; i++ ) {
+			uniqueId = instanceId+"-"+i;
+		}
+		if ( uniqueId!=instanceId ) {
+			LOG.debug("Duplicate instance id {} replaced with {}", instanceId, uniqueId);
+		}
+		return uniqueId;
+	}
+}
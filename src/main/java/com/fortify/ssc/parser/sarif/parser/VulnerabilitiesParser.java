@@ -1,17 +1,34 @@
 package com.fortify.ssc.parser.sarif.parser;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
 import com.fortify.plugin.api.ScanParsingException;
 import com.fortify.plugin.api.VulnerabilityHandler;
+import com.fortify.ssc.parser.sarif.SARIFParserConfig;
+import com.fortify.ssc.parser.sarif.SARIFParserConfig.RunDataStorage;
+import com.fortify.ssc.parser.sarif.domain.RegionReader;
 import com.fortify.ssc.parser.sarif.domain.Result;
+import com.fortify.ssc.parser.sarif.domain.ResultCheckpoints;
+import com.fortify.ssc.parser.sarif.domain.ResultHandler;
 import com.fortify.ssc.parser.sarif.domain.RunData;
+import com.fortify.ssc.parser.sarif.metrics.MeteredRegionReader;
+import com.fortify.ssc.parser.sarif.metrics.ParserMetrics;
+import com.fortify.ssc.parser.sarif.metrics.ParserMetrics.Phase;
+import com.fortify.ssc.parser.sarif.store.HeapRunDataStore;
+import com.fortify.ssc.parser.sarif.store.MapDBRunDataStore.SharedDB;
+import com.fortify.ssc.parser.sarif.store.MeteredRunDataStore;
+import com.fortify.ssc.parser.sarif.store.RunDataStore;
+import com.fortify.ssc.parser.sarif.store.TieredRunDataStore;
+import com.fortify.ssc.parser.sarif.store.TieredRunDataStore.Tier;
 import com.fortify.util.io.Region;
 import com.fortify.util.json.ExtendedJsonParser;
 
@@ -23,10 +40,13 @@ import com.fortify.util.json.ExtendedJsonParser;
  *       method for each entry in the SARIF <code>runs</code> array.</li>
  *   <li>The {@link #parseRun(JsonParser)} method first collects some auxiliary
  *       data from the current run, like rules and base URI's. This data is then
- *       passed to the {@link #parseResults(RunData)} method, which will parse 
+ *       passed to the {@link #parseResults(RunData, ResultHandler)} method, which will parse 
  *       and process the actual vulnerability data.</li>
- *   <li>The {@link #parseResults(RunData)} method re-parses the region of the 
- *       input document that contains the SARIF <code>results</code> array.
+ *   <li>If the <code>results</code> array is preceded by the run data referenced 
+ *       by these results, results are processed directly while collecting the 
+ *       auxiliary data. Otherwise, the {@link #parseResults(RunData, ResultHandler)} method 
+ *       re-parses the region of the input document that contains the SARIF 
+ *       <code>results</code> array.
  *       For each entry in the <code>results</code> array, the JSON contents 
  *       are mapped to a {@link Result} object, and passed to the  
  *       {@link #produceVulnerability(Result, RunData)} method.</li>
@@ -38,75 +58,418 @@ import com.fortify.util.json.ExtendedJsonParser;
  *       be produced, ignoring any results for which the <code>level</code> property
  *       indicates a non-interesting result.
  * </ol>
+ * If {@link SARIFParserConfig#getResultProcessingThreads()} is larger than 1, results 
+ * are decoded and converted into vulnerabilities by a {@link ParallelResultProcessor},
+ * which passes the produced vulnerabilities to the {@link VulnerabilityHandler} in 
+ * input order. Similarly, if {@link SARIFParserConfig#getRunProcessingThreads()} is 
+ * larger than 1, individual runs are parsed and processed concurrently by a 
+ * {@link ConcurrentRunProcessor}, and if {@link SARIFParserConfig#getResultShardingThreads()}
+ * is larger than 1, large <code>results</code> arrays are split into shards that
+ * are processed concurrently by a {@link ShardedResultProcessor}.
+ * If a {@link RunIndexCache} provides the run index built by {@link ScanParser} for
+ * the same upload, runs are not parsed again; only the <code>results</code> array 
+ * of each run is read from the input document.
+ * Runs that store rules and artifacts in direct memory or in a temporary file
+ * share a single MapDB instance per storage type for the duration of the 
+ * {@link #parse()} call; see {@link SharedDB}.
+ * If the upload contains multiple SARIF documents, like a zip bundle, every
+ * document is processed as described above, using instance id's that are scoped 
+ * to the document name. If {@link SARIFParserConfig#getScanEntryProcessingThreads()} 
+ * is larger than 1, documents are processed concurrently, passing the produced 
+ * vulnerabilities to the {@link VulnerabilityHandler} in document order.
  * 
  * @author Ruud Senden
  */
 public final class VulnerabilitiesParser {
+	private static final Logger LOG = LoggerFactory.getLogger(VulnerabilitiesParser.class);
 	private final ScanData scanData;
+	private final SARIFParserConfig config;
+	private final ParserMetrics metrics;
 	private final VulnerabilitiesProducer vulnerabilitiesProducer;
+	private final RunIndexCache runIndexCache;
+	private final SharedDB directDB;
+	private final SharedDB fileDB;
+	private RunDataStorage runDataStorage;
+	private long resultCheckpointInterval;
 	
 	/**
 	 * Constructor for storing {@link ScanData} and {@link VulnerabilityHandler}
-	 * instances.
+	 * instances, using the configuration loaded from system properties.
 	 * @param scanData
 	 * @param vulnerabilityHandler
 	 */
 	public VulnerabilitiesParser(final ScanData scanData, final VulnerabilityHandler vulnerabilityHandler) {
+		this(scanData, vulnerabilityHandler, SARIFParserConfig.fromSystemProperties());
+	}
+	
+	/**
+	 * Constructor for storing {@link ScanData}, {@link VulnerabilityHandler} and
+	 * {@link SARIFParserConfig} instances.
+	 * @param scanData
+	 * @param vulnerabilityHandler
+	 * @param config
+	 */
+	public VulnerabilitiesParser(final ScanData scanData, final VulnerabilityHandler vulnerabilityHandler, final SARIFParserConfig config) {
+		this(scanData, vulnerabilityHandler, config, new ParserMetrics("parseVulnerabilities", scanData.getSessionId()));
+	}
+	
+	/**
+	 * Constructor for storing {@link ScanData}, {@link VulnerabilityHandler},
+	 * {@link SARIFParserConfig} and {@link ParserMetrics} instances.
+	 * @param scanData
+	 * @param vulnerabilityHandler
+	 * @param config
+	 * @param metrics used to register phase timings, run statistics and lookups
+	 */
+	public VulnerabilitiesParser(final ScanData scanData, final VulnerabilityHandler vulnerabilityHandler, final SARIFParserConfig config, final ParserMetrics metrics) {
+		this(scanData, vulnerabilityHandler, config, metrics, null);
+	}
+	
+	/**
+	 * Constructor for storing {@link ScanData}, {@link VulnerabilityHandler},
+	 * {@link SARIFParserConfig}, {@link ParserMetrics} and {@link RunIndexCache} instances.
+	 * If the given {@link RunIndexCache} provides a run index for the given {@link ScanData},
+	 * as built by {@link ScanParser}, runs are processed based on that index rather than 
+	 * parsing every run from the input document.
+	 * @param scanData
+	 * @param vulnerabilityHandler
+	 * @param config
+	 * @param metrics used to register phase timings, run statistics and lookups
+	 * @param runIndexCache used to look up the run index for the given {@link ScanData}, may be null
+	 */
+	public VulnerabilitiesParser(final ScanData scanData, final VulnerabilityHandler vulnerabilityHandler, final SARIFParserConfig config, final ParserMetrics metrics, final RunIndexCache runIndexCache) {
+		this(scanData, config, metrics, runIndexCache, new VulnerabilitiesProducer(vulnerabilityHandler, metrics, config), 
+				SharedDB.directMemory(), SharedDB.tempFile());
+	}
+	
+	private VulnerabilitiesParser(final ScanData scanData, final SARIFParserConfig config, final ParserMetrics metrics, final RunIndexCache runIndexCache, 
+			final VulnerabilitiesProducer vulnerabilitiesProducer, final SharedDB directDB, final SharedDB fileDB) {
 		this.scanData = scanData;
-		this.vulnerabilitiesProducer = new VulnerabilitiesProducer(vulnerabilityHandler);
+		this.config = config;
+		this.metrics = metrics;
+		this.vulnerabilitiesProducer = vulnerabilitiesProducer;
+		this.runIndexCache = runIndexCache;
+		this.directDB = directDB;
+		this.fileDB = fileDB;
 	}
 	
 	/**
-	 * Main method to commence parsing the SARIF document provided by the
+	 * Main method to commence parsing the SARIF document(s) provided by the
 	 * configured {@link ScanData}.
 	 * @throws IOException
 	 */
 	public final void parse() throws ScanParsingException, IOException {
-		new SarifScanDataStreamingJsonParser()
-			.handler("/runs/*", this::parseRun)
-			.parse(scanData);
+		try {
+			final List<ScanEntry> scanEntries = ScanEntryScanData.getSarifScanEntries(scanData);
+			if ( scanEntries.size()>1 ) {
+				parseScanEntries(scanEntries);
+			} else {
+				parseScanData();
+			}
+		} finally {
+			directDB.close();
+			fileDB.close();
+		}
+	}
+	
+	/**
+	 * Process each of the given {@link ScanEntry} instances by a separate 
+	 * {@link VulnerabilitiesParser} instance, either sequentially or concurrently 
+	 * depending on {@link SARIFParserConfig#getScanEntryProcessingThreads()}.
+	 * As documents are processed concurrently by a {@link ConcurrentRunProcessor}, 
+	 * the produced vulnerabilities are passed to the {@link VulnerabilityHandler} 
+	 * on the importing thread, in document order. Entries that don't contain a 
+	 * SARIF 2.1.0 document are logged and skipped.
+	 * @param sarifScanEntries
+	 * @throws ScanParsingException
+	 * @throws IOException
+	 */
+	private final void parseScanEntries(final List<ScanEntry> sarifScanEntries) throws ScanParsingException, IOException {
+		final List<ScanEntryScanData> scanEntries = ScanEntryScanData.getSupportedScanEntryScanData(scanData, sarifScanEntries);
+		final int threads = config.getScanEntryProcessingThreads();
+		if ( threads>1 && scanEntries.size()>1 ) {
+			try ( ConcurrentRunProcessor entryProcessor = new ConcurrentRunProcessor(
+					vulnerabilitiesProducer, null, Math.min(threads, scanEntries.size()), config.getResultBatchSize()) ) {
+				for ( ScanEntryScanData scanEntry : scanEntries ) {
+					final VulnerabilitiesParser entryParser = forScanEntry(scanEntry);
+					entryProcessor.submit(resultHandler->entryParser.parseScanEntry(resultHandler), entryParser.vulnerabilitiesProducer);
+				}
+				entryProcessor.complete();
+			}
+		} else {
+			for ( ScanEntryScanData scanEntry : scanEntries ) {
+				final VulnerabilitiesParser entryParser = forScanEntry(scanEntry);
+				entryParser.parseScanEntry(entryParser.vulnerabilitiesProducer);
+			}
+		}
+	}
+	
+	private final VulnerabilitiesParser forScanEntry(ScanEntryScanData scanEntry) {
+		return new VulnerabilitiesParser(scanEntry, config, metrics, runIndexCache, 
+				vulnerabilitiesProducer.withInstanceIdScope(scanEntry.getEntryName()), directDB, fileDB);
+	}
+	
+	/**
+	 * Process all runs in the {@link ScanEntry} provided by the configured {@link ScanEntryScanData},
+	 * passing all results to the given {@link ResultHandler}.
+	 * @param resultHandler
+	 * @throws IOException
+	 */
+	private final void parseScanEntry(final ResultHandler resultHandler) throws IOException {
+		this.runDataStorage = getRunDataStorage(config, scanData);
+		this.resultCheckpointInterval = getResultCheckpointInterval(config, scanData);
+		try {
+			parseRuns(takeRunIndex(), resultHandler);
+		} catch ( ScanParsingException e ) {
+			throw new IOException("Error parsing "+((ScanEntryScanData)scanData).getEntryName()+": "+e.getMessage(), e);
+		}
+	}
+	
+	private final List<RunData> takeRunIndex() throws IOException {
+		return ScanParser.isRunIndexEnabled(config, runIndexCache, scanData) ? runIndexCache.take(scanData) : null;
+	}
+	
+	/**
+	 * Parse the single SARIF document provided by the configured {@link ScanData},
+	 * using the concurrency options provided by the configured {@link SARIFParserConfig}. 
+	 * Concurrent run processing and result sharding re-read parts of the input 
+	 * document on every worker thread. For compressed input, every such re-read 
+	 * inflates the document from the start, so we use parallel result processing 
+	 * with the same number of threads instead.
+	 * @throws ScanParsingException
+	 * @throws IOException
+	 */
+	private final void parseScanData() throws ScanParsingException, IOException {
+		this.runDataStorage = getRunDataStorage(config, scanData);
+		this.resultCheckpointInterval = getResultCheckpointInterval(config, scanData);
+		final List<RunData> runIndex = takeRunIndex();
+		final boolean compressed = GzipScanData.isCompressed(scanData);
+		int resultProcessingThreads = config.getResultProcessingThreads();
+		if ( compressed && (config.getRunProcessingThreads()>1 || config.getResultShardingThreads()>1) ) {
+			LOG.info("Using parallel result processing instead of concurrent run processing or result sharding for compressed input");
+			resultProcessingThreads = Math.max(resultProcessingThreads, 
+					Math.max(config.getRunProcessingThreads(), config.getResultShardingThreads()));
+		}
+		if ( !compressed && config.getRunProcessingThreads()>1 ) {
+			try ( ConcurrentRunProcessor runProcessor = new ConcurrentRunProcessor(
+					vulnerabilitiesProducer, this::parseRun, config.getRunProcessingThreads(), config.getResultBatchSize()) ) {
+				if ( runIndex!=null ) {
+					for ( RunData runData : runIndex ) {
+						runProcessor.submit(resultHandler->processIndexedRun(runData, resultHandler));
+					}
+				} else {
+					new SarifScanDataStreamingJsonParser()
+						.handler("/runs/*", runProcessor::submitRun)
+						.parse(scanData);
+				}
+				runProcessor.complete();
+			}
+		} else if ( resultCheckpointInterval>0 ) {
+			try ( ShardedResultProcessor shardedResultProcessor = new ShardedResultProcessor(
+					vulnerabilitiesProducer, scanData, config.getResultShardingThreads(), config.getResultBatchSize()) ) {
+				parseRuns(runIndex, shardedResultProcessor);
+			}
+		} else if ( resultProcessingThreads>1 ) {
+			try ( ParallelResultProcessor parallelResultProcessor = new ParallelResultProcessor(
+					vulnerabilitiesProducer, resultProcessingThreads, config.getResultBatchSize()) ) {
+				parseRuns(runIndex, parallelResultProcessor);
+			}
+		} else {
+			parseRuns(runIndex, vulnerabilitiesProducer);
+		}
+	}
+	
+	private final void parseRuns(final List<RunData> runIndex, final ResultHandler resultHandler) throws ScanParsingException, IOException {
+		if ( runIndex!=null ) {
+			for ( RunData runData : runIndex ) {
+				processIndexedRun(runData, resultHandler);
+			}
+		} else {
+			new SarifScanDataStreamingJsonParser()
+				.handler("/runs/*", jp->parseRun(jp, 0, resultHandler))
+				.parse(scanData);
+		}
+	}
+	
+	/**
+	 * This method processes an individual run from the run index built by
+	 * {@link ScanParser}, re-using the rule and artifact offsets, rule indexes
+	 * and <code>results</code> region recorded in the given deferred {@link RunData}
+	 * instance, so only the <code>results</code> array needs to be read.
+	 * @param indexedRunData
+	 * @param resultHandler
+	 * @throws IOException
+	 */
+	private final void processIndexedRun(RunData indexedRunData, ResultHandler resultHandler) throws IOException {
+		long startNanos = System.nanoTime();
+		RegionReader regionReader = new MeteredRegionReader(new ScanDataRegionReader(scanData), metrics);
+		processRun(indexedRunData.withRegionReader(regionReader), resultHandler, startNanos);
+	}
+	
+	/**
+	 * This method parses an individual run located in the given input document
+	 * {@link Region}, as submitted by {@link ConcurrentRunProcessor}.
+	 * @param region
+	 * @param resultHandler
+	 * @throws IOException
+	 */
+	private final void parseRun(Region region, ResultHandler resultHandler) throws IOException {
+		try ( ExtendedJsonParser jsonParser = new ScanDataRegionReader(scanData).openParser(region.getStart()) ) {
+			jsonParser.nextToken();
+			parseRun(jsonParser, region.getStart(), resultHandler);
+		}
 	}
 
 	/**
 	 * This method parses an individual run from the SARIF <code>runs</code>
 	 * array using the following steps:
 	 * <ol>
-	 *   <li>Initialize a temporary disk-backed database</li>
+	 *   <li>Initialize a {@link RunDataStore} based on the configured {@link RunDataStorage}</li>
 	 *   <li>Parse SARIF data into a {@link RunData} object (which stores some 
-	 *       of the data in the disk-backed database</li>
-	 *   <li>Invoke {@link #parseResults(RunData)} to parse and process the 
-	 *       SARIF <code>results</code> array</li>
-	 *   <li>Close the temporary database once parsing has completed</li>
+	 *       of the data in the {@link RunDataStore})</li>
+	 *   <li>Invoke {@link #parseResults(RunData, ResultHandler)} to parse and 
+	 *       process the SARIF <code>results</code> array</li>
+	 *   <li>Close the {@link RunDataStore} once parsing has completed</li>
+	 * </ol>
+	 * If the configured {@link RunDataStorage} is {@link RunDataStorage#deferred},
+	 * no temporary database is used; instead, the {@link RunData} object will
+	 * re-read artifacts and rules from the input document when needed.
 	 * @param jsonParser
+	 * @param inputOffset input document offset at which the given {@link ExtendedJsonParser} started reading
+	 * @param resultHandler used to process results
 	 * @throws IOException
 	 */
-	private final void parseRun(ExtendedJsonParser jsonParser) throws IOException {
-		try ( DB db = DBMaker.tempFileDB()
-				.closeOnJvmShutdown().fileDeleteAfterClose()
-				.fileMmapEnableIfSupported()
-				.make() ) {
-			RunData runData = RunData.parseRunData(db, jsonParser);
-			parseResults(runData);
+	private final void parseRun(ExtendedJsonParser jsonParser, long inputOffset, ResultHandler resultHandler) throws IOException {
+		// Results streamed during the first pass are decoded on the current thread, so for
+		// sharded and parallel processing, results are always read from the results region.
+		boolean sharded = resultCheckpointInterval>0;
+		boolean singlePass = config.isSinglePassResults() && !sharded && !(resultHandler instanceof ParallelResultProcessor);
+		ResultHandler singlePassResultHandler = singlePass ? resultHandler : null;
+		long startNanos = System.nanoTime();
+		if ( runDataStorage==RunDataStorage.deferred ) {
+			RegionReader regionReader = new MeteredRegionReader(new ScanDataRegionReader(scanData), metrics);
+			RunData runData = RunData.parseDeferredRunData(regionReader, jsonParser, singlePassResultHandler, inputOffset, resultCheckpointInterval);
+			processRun(runData, resultHandler, startNanos);
+		} else {
+			try ( RunDataStore store = new MeteredRunDataStore(createRunDataStore(), metrics) ) {
+				RunData runData = RunData.parseRunData(store, jsonParser, singlePassResultHandler, inputOffset, resultCheckpointInterval);
+				processRun(runData, resultHandler, startNanos);
+			}
+		}
+	}
+	
+	/**
+	 * Invoke {@link #parseResults(RunData, ResultHandler)} for the given {@link RunData},
+	 * registering phase timings and run statistics with the configured {@link ParserMetrics}.
+	 * @param runData
+	 * @param resultHandler
+	 * @param startNanos {@link System#nanoTime()} at which reading the run started
+	 * @throws IOException
+	 */
+	private final void processRun(RunData runData, ResultHandler resultHandler, long startNanos) throws IOException {
+		long runDataNanos = System.nanoTime();
+		metrics.addPhaseNanos(Phase.runData, runDataNanos-startNanos);
+		parseResults(runData, resultHandler);
+		metrics.addPhaseNanos(Phase.results, System.nanoTime()-runDataNanos);
+		metrics.addRun(runData.getToolName(), runData.getRuleCount(), runData.getArtifactCount());
+	}
+	
+	/**
+	 * Results are processed by a {@link ShardedResultProcessor} only for single-document
+	 * uploads that are not compressed, if result sharding is enabled and concurrent 
+	 * run processing is disabled. This method is used both by {@link ScanParser} 
+	 * when building the run index, and by {@link VulnerabilitiesParser} when choosing
+	 * how to process results, so checkpoints are only recorded if they are used.
+	 * @param config
+	 * @param scanData
+	 * @return Minimum number of bytes between two {@link ResultCheckpoints} recorded 
+	 *         for <code>results</code> arrays that are processed by a {@link ShardedResultProcessor}
+	 *         for the given configuration and {@link ScanData}, or 0 if results are not sharded
+	 * @throws IOException
+	 */
+	static final long getResultCheckpointInterval(SARIFParserConfig config, ScanData scanData) throws IOException {
+		boolean sharded = !(scanData instanceof ScanEntryScanData)
+				&& config.getRunProcessingThreads()<=1 && config.getResultShardingThreads()>1 
+				&& !GzipScanData.isCompressed(scanData);
+		return sharded ? Math.max(1, config.getResultShardMinBytes()) : 0;
+	}
+	
+	/**
+	 * Get the {@link RunDataStorage} to be used for the given {@link ScanData}. As
+	 * {@link RunDataStorage#deferred} storage re-reads individual rules and artifacts
+	 * from the input document, which requires (partially) inflating compressed input 
+	 * for every re-read, we use {@link RunDataStorage#tiered} storage instead if the 
+	 * input document is compressed.
+	 * @param config
+	 * @param scanData
+	 * @return Configured {@link RunDataStorage}, or {@link RunDataStorage#tiered} if
+	 *         deferred storage was configured for compressed input 
+	 * @throws IOException
+	 */
+	static final RunDataStorage getRunDataStorage(SARIFParserConfig config, ScanData scanData) throws IOException {
+		RunDataStorage result = config.getRunDataStorage();
+		if ( result==RunDataStorage.deferred && GzipScanData.isCompressed(scanData) ) {
+			LOG.info("Using tiered instead of deferred run data storage for compressed input");
+			result = RunDataStorage.tiered;
+		}
+		return result;
+	}
+	
+	private final RunDataStore createRunDataStore() {
+		switch ( runDataStorage ) {
+		case heap: return new HeapRunDataStore();
+		case direct: return directDB.createStore();
+		case file: return fileDB.createStore();
+		default: return new TieredRunDataStore(
+				new Tier("heap", HeapRunDataStore::new, config.getHeapStorageMaxEntries(), config.getHeapStorageMaxBytes()),
+				new Tier("direct", directDB::createStore, Long.MAX_VALUE, config.getDirectStorageMaxBytes()),
+				new Tier("file", fileDB::createStore));
 		}
 	}
 	
 	/**
 	 * This method re-parses the SARIF <code>results</code> array, based on the
 	 * input document {@link Region} previously collected in the given {@link RunData}
-	 * object. For each entry in the <code>results</code> array:
+	 * object. Any results that were already processed while parsing the run (see 
+	 * {@link RunData#getStreamedResultCount()}) are skipped. For each remaining 
+	 * entry in the <code>results</code> array:
 	 * <ol>
 	 *  <li>The JSON contents are mapped to a {@link Result} object</li>
 	 *  <li>The {@link Result} and {@link RunData} objects are passed to the
 	 *      {@link VulnerabilitiesProducer#produceVulnerability(RunData, Result)} method to produce
 	 *      the actual Fortify vulnerability (if applicable)</li>
 	 * </ol>
+	 * If all results were processed while parsing the run, the {@link RunData}
+	 * object doesn't provide a results region, and this method doesn't need to
+	 * re-read the input document. If the given {@link ResultHandler} is a 
+	 * {@link ParallelResultProcessor}, raw results are passed to this processor 
+	 * for decoding on its worker threads. If the given {@link ResultHandler} is a
+	 * {@link ShardedResultProcessor}, the <code>results</code> array is processed
+	 * in shards by that processor if large enough.
 	 * @param runData
+	 * @param resultHandler used to process results
 	 * @throws IOException
 	 */
-	private final void parseResults(final RunData runData) throws IOException {
-		new SarifScanDataStreamingJsonParser()
-			.expectedStartTokens(JsonToken.START_ARRAY)
-			.handler("/*", Result.class, result->vulnerabilitiesProducer.produceVulnerability(runData, result))
-			.parse(scanData, runData.getResultsRegion());
+	private final void parseResults(final RunData runData, final ResultHandler resultHandler) throws IOException {
+		if ( resultHandler instanceof ShardedResultProcessor 
+				&& ((ShardedResultProcessor)resultHandler).processResults(runData) ) {
+			resultHandler.endResults();
+		} else if ( runData.getResultsRegion()!=null ) {
+			final long streamedResultCount = runData.getStreamedResultCount();
+			final AtomicLong resultIndex = new AtomicLong();
+			new SarifScanDataStreamingJsonParser()
+				.expectedStartTokens(JsonToken.START_ARRAY)
+				.handler("/*", jp->{
+					if ( resultIndex.getAndIncrement()<streamedResultCount ) {
+						jp.skipChildren();
+					} else if ( resultHandler instanceof ParallelResultProcessor ) {
+						((ParallelResultProcessor)resultHandler).handleRawResult(runData, jp);
+					} else {
+						resultHandler.handleResult(runData, resultHandler.readResult(jp));
+					}
+				})
+				.parse(scanData, runData.getResultsRegion());
+			resultHandler.endResults();
+		}
 	}
 }
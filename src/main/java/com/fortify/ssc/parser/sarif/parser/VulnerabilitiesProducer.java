@@ -1,39 +1,134 @@
 package com.fortify.ssc.parser.sarif.parser;
 
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.WeakHashMap;
 import java.util.stream.Collectors;
 
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fortify.plugin.api.BasicVulnerabilityBuilder.Priority;
 import com.fortify.plugin.api.StaticVulnerabilityBuilder;
 import com.fortify.plugin.api.VulnerabilityHandler;
 import com.fortify.ssc.parser.sarif.CustomVulnAttribute;
+import com.fortify.ssc.parser.sarif.SARIFParserConfig;
+import com.fortify.ssc.parser.sarif.domain.CodeFlowSummary;
+import com.fortify.ssc.parser.sarif.domain.CodeFlowSummary.FlowLocation;
 import com.fortify.ssc.parser.sarif.domain.Kind;
+import com.fortify.ssc.parser.sarif.domain.PropertyBag;
 import com.fortify.ssc.parser.sarif.domain.ReportingDescriptor;
 import com.fortify.ssc.parser.sarif.domain.Result;
+import com.fortify.ssc.parser.sarif.domain.ResultHandler;
+import com.fortify.ssc.parser.sarif.domain.ResultReader;
 import com.fortify.ssc.parser.sarif.domain.RunData;
+import com.fortify.ssc.parser.sarif.metrics.ParserMetrics;
 import com.fortify.util.ssc.parser.EngineTypeHelper;
-import com.fortify.util.ssc.parser.HandleDuplicateIdVulnerabilityHandler;
 
-public final class VulnerabilitiesProducer {
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+public final class VulnerabilitiesProducer implements ResultHandler {
 	private static final Logger LOG = LoggerFactory.getLogger(VulnerabilitiesProducer.class);
 	private static final String ENGINE_TYPE = EngineTypeHelper.getEngineType();
+	private static final String NOT_AVAILABLE = "Not Available";
 	private final VulnerabilityHandler vulnerabilityHandler;
+	private final ParserMetrics metrics;
+	private final ResultReader resultReader;
+	private final ResultFilter resultFilter;
+	private final StringPool stringPool;
+	private final String instanceIdScope;
+	private volatile RunCache runCache;
+	private final Map<RunData, RunCache> runCachesByRunData = Collections.synchronizedMap(new WeakHashMap<>());
 	
 	/**
 	 * Constructor for storing {@link VulnerabilityHandler} instance.
 	  * @param vulnerabilityHandler
 	 */
 	public VulnerabilitiesProducer(final VulnerabilityHandler vulnerabilityHandler) {
-		this.vulnerabilityHandler = new HandleDuplicateIdVulnerabilityHandler(vulnerabilityHandler);
+		this(vulnerabilityHandler, new ParserMetrics("produceVulnerabilities", null));
+	}
+	
+	/**
+	 * Constructor for storing {@link VulnerabilityHandler} and {@link ParserMetrics} instances.
+	 * @param vulnerabilityHandler
+	 * @param metrics used to register result and vulnerability counts
+	 */
+	public VulnerabilitiesProducer(final VulnerabilityHandler vulnerabilityHandler, final ParserMetrics metrics) {
+		this(vulnerabilityHandler, metrics, new SARIFParserConfig().setResultKindLookahead(0));
+	}
+	
+	/**
+	 * Constructor for storing {@link VulnerabilityHandler} and {@link ParserMetrics} instances,
+	 * reading and filtering results according to the given {@link SARIFParserConfig}.
+	 * @param vulnerabilityHandler
+	 * @param metrics used to register result and vulnerability counts
+	 * @param config used to configure the {@link ResultReader}, result filters and {@link StringPool}
+	 */
+	public VulnerabilitiesProducer(final VulnerabilityHandler vulnerabilityHandler, final ParserMetrics metrics, final SARIFParserConfig config) {
+		this.vulnerabilityHandler = new UniqueIdVulnerabilityHandler(vulnerabilityHandler);
+		this.metrics = metrics;
+		this.resultFilter = ResultFilter.compile(config);
+		this.resultReader = new ResultReader(config.getResultKindLookahead(), resultFilter);
+		this.stringPool = new StringPool(config.getStringPoolSize(), metrics);
+		this.instanceIdScope = null;
+	}
+	
+	private VulnerabilitiesProducer(final VulnerabilitiesProducer producer, final String instanceIdScope) {
+		this.vulnerabilityHandler = producer.vulnerabilityHandler;
+		this.metrics = producer.metrics;
+		this.resultFilter = producer.resultFilter;
+		this.resultReader = producer.resultReader;
+		this.stringPool = producer.stringPool;
+		this.instanceIdScope = instanceIdScope;
+	}
+	
+	/**
+	 * Get a {@link VulnerabilitiesProducer} instance that shares the {@link VulnerabilityHandler},
+	 * {@link ParserMetrics}, result filters and {@link StringPool} with this instance, but 
+	 * includes the given scope in every instance id. This is used for uploads that contain 
+	 * multiple SARIF documents, to avoid instance id collisions between documents that 
+	 * contain the same results, or that generate instance id's from relative file names.
+	 * @param instanceIdScope
+	 * @return {@link VulnerabilitiesProducer} for the given instance id scope
+	 */
+	public final VulnerabilitiesProducer withInstanceIdScope(final String instanceIdScope) {
+		return new VulnerabilitiesProducer(this, instanceIdScope);
+	}
+	
+	/**
+	 * @return {@link VulnerabilityHandler} used by {@link #produceVulnerability(RunData, Result)},
+	 *         which wraps the {@link VulnerabilityHandler} provided to the constructor to 
+	 *         handle duplicate instance id's  
+	 */
+	public final VulnerabilityHandler getVulnerabilityHandler() {
+		return vulnerabilityHandler;
+	}
+	
+	/**
+	 * Read the result that the given {@link JsonParser} is currently pointing at,
+	 * using the configured {@link ResultReader}. Results that can never produce
+	 * a vulnerability, or that are rejected by the configured result filters, 
+	 * may be skipped without being fully decoded.
+	 */
+	@Override
+	public final Result readResult(JsonParser jsonParser) throws IOException {
+		return resultReader.read(jsonParser);
+	}
+	
+	/**
+	 * Equivalent to {@link #produceVulnerability(RunData, Result)}, allowing this
+	 * {@link VulnerabilitiesProducer} to be used as a {@link ResultHandler}.
+	 */
+	@Override
+	public final void handleResult(RunData runData, Result result) {
+		produceVulnerability(runData, result);
 	}
 	
 	/**
@@ -43,8 +138,28 @@ public final class VulnerabilitiesProducer {
 	 * indicates that the result is not interesting from a Fortify perspective.
 	 * @param result
 	 */
-	@SuppressWarnings("deprecation") // SSC JavaDoc states that severity is mandatory, but method is deprecated
 	public final void produceVulnerability(RunData runData, Result result) {
+		produceVulnerability(runData, result, vulnerabilityHandler);
+	}
+	
+	/**
+	 * This method produces a Fortify vulnerability like {@link #produceVulnerability(RunData, Result)},
+	 * but passes the vulnerability to the given {@link VulnerabilityHandler} instead of the 
+	 * {@link VulnerabilityHandler} provided to the constructor. Contrary to the handler returned
+	 * by {@link #getVulnerabilityHandler()}, the given handler is not wrapped to handle duplicate
+	 * instance id's. This method may be invoked concurrently from multiple threads, provided that
+	 * the given handler is not shared between threads.
+	 * @param runData
+	 * @param result
+	 * @param vulnerabilityHandler
+	 */
+	@SuppressWarnings("deprecation") // SSC JavaDoc states that severity is mandatory, but method is deprecated
+	public final void produceVulnerability(RunData runData, Result result, VulnerabilityHandler vulnerabilityHandler) {
+		metrics.resultSeen();
+		if ( result.isRejected() ) {
+			metrics.resultFiltered();
+			return;
+		}
 		Kind kind = result.getKind();
 		if ( kind == null ) {
 			// SARIF specification says that if kind is not specified, then the default value of fail is to be used
@@ -59,32 +174,53 @@ public final class VulnerabilitiesProducer {
 			case notApplicable:
 			case pass:
 				// results with these kind values are not vulnerabilities.
+				metrics.resultSkipped(kind);
 				return;
 		}
-		Priority priority = getPriority(runData, result);
+		if ( resultFilter!=null && !resultFilter.acceptsResult(result) ) {
+			metrics.resultFiltered();
+			return;
+		}
+		RunCache runCache = getRunCache(runData);
+		RuleProfile ruleProfile = getRuleProfile(runCache, runData, result);
+		if ( resultFilter!=null && !acceptsRule(result, ruleProfile) ) {
+			metrics.resultFiltered();
+			return;
+		}
+		Priority priority = getPriority(runData, result, ruleProfile);
 		if ( priority != null ) {
-			StaticVulnerabilityBuilder vb = vulnerabilityHandler.startStaticVulnerability(getInstanceId(runData, result));
+			// File name and abstract are used both for the vulnerability and for generating the 
+			// instance id, so we resolve these only once.
+			String fileName = getFileName(runCache, runData, result);
+			if ( resultFilter!=null && !(resultFilter.acceptsPriority(priority) && resultFilter.acceptsPath(fileName)) ) {
+				metrics.resultFiltered();
+				return;
+			}
+			String vulnerabilityAbstract = getVulnerabilityAbstract(runData, result);
+			StaticVulnerabilityBuilder vb = vulnerabilityHandler.startStaticVulnerability(getInstanceId(runData, result, fileName, vulnerabilityAbstract));
+			metrics.vulnerabilityEmitted();
+			String category = getCategory(runData, result, ruleProfile);
 			
 			// Set meta-data
 			vb.setEngineType(ENGINE_TYPE);
-			vb.setKingdom(getKingdom(runData, result));
+			vb.setKingdom(getKingdom(result, ruleProfile));
 			vb.setAnalyzer(getAnalyzer(runData, result));
-			vb.setCategory(getCategory(runData, result));
-			vb.setSubCategory(getSubCategory(runData, result));
+			vb.setCategory(category);
+			vb.setSubCategory(ruleProfile.getSubCategory());
 			
 			// Set mandatory values to JavaDoc-recommended values
-			vb.setAccuracy(getAccuracy(runData, result));
+			vb.setAccuracy(ruleProfile.getAccuracy());
 			vb.setSeverity(getSeverity(runData, result));
 			vb.setConfidence(getConfidence(runData, result));
-			vb.setProbability(getProbability(runData, result));
-			vb.setImpact(getImpact(runData, result));
+			vb.setProbability(ruleProfile.getProbability());
+			vb.setImpact(ruleProfile.getImpact());
 			vb.setLikelihood(getLikelihood(runData, result));
 			
 			// Set standard vulnerability fields based on input
-			vb.setFileName(getFileName(runData, result));
+			vb.setFileName(fileName);
 			vb.setPriority(priority);
 			vb.setRuleGuid(getRuleGuid(runData, result));
-			vb.setVulnerabilityAbstract(getVulnerabilityAbstract(runData, result));
+			vb.setVulnerabilityAbstract(vulnerabilityAbstract);
 			
 			//vb.setClassName(null);
     		//vb.setFunctionName(functionName);
@@ -94,68 +230,156 @@ public final class VulnerabilitiesProducer {
     		//vb.setPackageName(packageName);
     		//vb.setRemediationConstant(remediationConstant);
     		//vb.setRuleGuid(ruleGuid);
-    		//vb.setSink(sink);
     		//vb.setSinkContext(sinkContext);
-    		//vb.setSource(source);
     		//vb.setSourceContext(sourceContext);
-    		//vb.setSourceFile(sourceFile);
-    		//vb.setSourceLine(sourceLine);
-    		//vb.setTaintFlag(taintFlag);
+    		setCodeFlowValues(vb, runData, result);
     		//vb.setVulnerabilityRecommendation(vulnerabilityRecommendation);
 			
 			//vb.set*CustomAttributeValue(...)
 			
-			vb.setStringCustomAttributeValue(CustomVulnAttribute.categoryAndSubCategory, getCategoryAndSubCategory(runData, result));
+			vb.setStringCustomAttributeValue(CustomVulnAttribute.categoryAndSubCategory, getCategoryAndSubCategory(category, ruleProfile));
 			vb.setStringCustomAttributeValue(CustomVulnAttribute.toolName, runData.getToolName());
-			vb.setStringCustomAttributeValue(CustomVulnAttribute.help, getHelp(runData, result));
-			vb.setStringCustomAttributeValue(CustomVulnAttribute.helpUri, getHelpUri(runData, result));
-			vb.setStringCustomAttributeValue(CustomVulnAttribute.tags, getTags(runData, result));
+			vb.setStringCustomAttributeValue(CustomVulnAttribute.help, ruleProfile.getHelp());
+			vb.setStringCustomAttributeValue(CustomVulnAttribute.helpUri, ruleProfile.getHelpUri());
+			vb.setStringCustomAttributeValue(CustomVulnAttribute.tags, ruleProfile.getTags());
 			vb.setStringCustomAttributeValue(CustomVulnAttribute.snippet, result.resolveSnippet());
     		
     		vb.completeVulnerability();
 		}
 	}
 
+	/**
+	 * Get the {@link RunCache} for the given {@link RunData} instance. The most 
+	 * recently used cache is looked up first, as usually all consecutive results 
+	 * belong to the same run.
+	 */
+	private RunCache getRunCache(RunData runData) {
+		RunCache runCache = this.runCache;
+		if ( runCache==null || runCache.runData.get()!=runData ) {
+			runCache = runCachesByRunData.computeIfAbsent(runData, r->new RunCache(r, stringPool.getMaxIndexedEntries()));
+			this.runCache = runCache;
+		}
+		return runCache;
+	}
+	
+	/**
+	 * Get the {@link RuleProfile} for the rule referenced by the given result. 
+	 * Rule profiles are cached by rule index in the {@link RunCache} for each 
+	 * {@link RunData} instance; if the given result doesn't reference a rule that 
+	 * exists in the given {@link RunData}, a profile for an empty rule is returned.
+	 */
+	private RuleProfile getRuleProfile(RunCache runCache, RunData runData, Result result) {
+		int ruleIndex = result.resolveRuleIndex(runData);
+		RuleProfile profile = ruleIndex<0 ? runCache.unresolvedRuleProfile : runCache.profilesByRuleIndex[ruleIndex];
+		if ( profile==null ) {
+			// Rule profiles are immutable, so there's no harm if multiple threads happen to create 
+			// a profile for the same rule concurrently. 
+			profile = createRuleProfile(runData, result, result.resolveRule(runData));
+			if ( ruleIndex<0 ) {
+				runCache.unresolvedRuleProfile = profile;
+			} else {
+				runCache.profilesByRuleIndex[ruleIndex] = profile;
+			}
+		}
+		return profile;
+	}
+	
+	/**
+	 * Check the given result against the configured rule id and level filters. If the 
+	 * result doesn't explicitly specify a rule id or level, we use the filter decisions
+	 * for the referenced rule as cached in the given {@link RuleProfile}. 
+	 */
+	private boolean acceptsRule(Result result, RuleProfile ruleProfile) {
+		String ruleId = result.getRuleId();
+		if ( StringUtils.isBlank(ruleId) && result.getRule()!=null ) {
+			ruleId = result.getRule().getId();
+		}
+		boolean ruleIdAccepted = StringUtils.isNotBlank(ruleId) ? resultFilter.acceptsRuleId(ruleId) : ruleProfile.isRuleIdAccepted();
+		return ruleIdAccepted && (result.getLevel()!=null ? resultFilter.acceptsLevel(result.getLevel()) : ruleProfile.isDefaultLevelAccepted());
+	}
+	
+	private RuleProfile createRuleProfile(RunData runData, Result result, ReportingDescriptor rule) {
+		PropertyBag ruleProperties = getRuleProperties(rule);
+		String category = stringPool.intern(getRuleCategory(runData, result, rule));
+		String subCategory = stringPool.intern(ruleProperties.getSubtype());
+		return new RuleProfile(
+			category, 
+			subCategory,
+			category==null ? null : stringPool.intern(getCategoryAndSubCategory(category, subCategory)),
+			stringPool.intern(getHelp(rule)),
+			stringPool.intern(getHelpUri(rule)),
+			stringPool.intern(getTags(ruleProperties)),
+			stringPool.intern(ruleProperties.getRuleKingdom()),
+			PropertyBag.floatValue(ruleProperties.getAccuracy(), 5.0f),
+			PropertyBag.floatValue(ruleProperties.getProbability(), 2.5f),
+			PropertyBag.floatValue(ruleProperties.getImpact(), 2.5f),
+			resolveSecuritySeverityPriority(ruleProperties).orElse(null),
+			resultFilter==null || resultFilter.acceptsRuleId(rule==null ? null : rule.getId()),
+			resultFilter==null || resultFilter.acceptsLevel(rule==null ? null : rule.getDefaultLevel()));
+	}
+
 	private String getVulnerabilityAbstract(RunData runData, Result result) {
-		return StringUtils.defaultIfBlank(result.getResultMessage(runData), "Not Available");
+		return stringPool.intern(StringUtils.defaultIfBlank(result.getResultMessage(runData), NOT_AVAILABLE));
 	}
 
-	private String getHelp(RunData runData, Result result) {
+	private String getHelp(ReportingDescriptor rule) {
 		String help = null;
-		ReportingDescriptor rule = result.resolveRule(runData);
 		if ( rule != null && rule.getHelp() != null ) {
 			help = rule.getHelp().getText();
 		}
-		return StringUtils.isBlank(help) ? "Not Available" : help;
+		return StringUtils.isBlank(help) ? NOT_AVAILABLE : help;
 	}
 
-	private String getHelpUri(RunData runData, Result result) {
+	private String getHelpUri(ReportingDescriptor rule) {
 		String helpUri = null;
-		ReportingDescriptor rule = result.resolveRule(runData);
 		if ( rule != null && rule.getHelpUri() != null ) {
 			helpUri = rule.getHelpUri().toString();
 		}
-		return StringUtils.isBlank(helpUri) ? "Not Available" : helpUri;
+		return StringUtils.isBlank(helpUri) ? NOT_AVAILABLE : helpUri;
 	}
 
-	private String getFileName(RunData runData, Result result) {
-		return result.resolveFullFileName(runData, "Unknown");
+	/**
+	 * Get the file name for the given result. If the file name is determined by an 
+	 * artifact index, the pooled file name is cached by artifact index in the given 
+	 * {@link RunCache}, avoiding repeated artifact lookups and file name resolution.
+	 * Otherwise, the resolved file name is de-duplicated using the {@link StringPool}.
+	 */
+	private String getFileName(RunCache runCache, RunData runData, Result result) {
+		Integer artifactIndex = result.resolveArtifactIndex();
+		if ( artifactIndex!=null && artifactIndex>=0 && artifactIndex<runCache.fileNamesByArtifactIndex.length ) {
+			String fileName = runCache.fileNamesByArtifactIndex[artifactIndex];
+			if ( fileName!=null ) {
+				return stringPool.indexHit(fileName);
+			}
+			fileName = runData.getArtifactFullFileName(artifactIndex);
+			if ( fileName!=null ) {
+				fileName = stringPool.intern(fileName);
+				runCache.fileNamesByArtifactIndex[artifactIndex] = fileName;
+				return fileName;
+			}
+		}
+		return stringPool.intern(result.resolveFullFileName(runData, "Unknown"));
 	}
 
-	private String getInstanceId(RunData runData, Result result) {
-		return DigestUtils.sha256Hex(getInstanceIdString(runData, result));
-	}
-	
-	private String getInstanceIdString(RunData runData, Result result) {
+	// The instance id is the SHA-256 hex digest of the first available of result guid, 
+	// correlation guid, fingerprints or generated id string. Id components are fed 
+	// directly into the digest; see InstanceIdDigest for details. If an instance id scope
+	// is configured, the scope is prepended to the id components.
+	private String getInstanceId(RunData runData, Result result, String fileName, String vulnerabilityAbstract) {
+		InstanceIdDigest digest = InstanceIdDigest.start();
+		if ( instanceIdScope!=null ) {
+			digest.append(instanceIdScope).append('|');
+		}
 		if ( StringUtils.isNotBlank(result.getGuid()) ) {
-			return result.getGuid();
+			digest.append(result.getGuid());
 		} else if ( StringUtils.isNotBlank(result.getCorrelationGuid()) ) {
-			return result.getCorrelationGuid();
+			digest.append(result.getCorrelationGuid());
 		} else if ( result.getFingerprints()!=null && result.getFingerprints().size()>0 ) {
-			return new TreeMap<>(result.getFingerprints()).toString();
+			digest.appendMap(result.getFingerprints());
 		} else {
-			return generateInstanceIdString(runData, result);
+			appendGeneratedInstanceId(digest, runData, result, fileName, vulnerabilityAbstract);
 		}
+		return digest.toHex();
 	}
 	
 	// As described at https://docs.oasis-open.org/sarif/sarif/v2.1.0/os/sarif-v2.1.0-os.html#_Toc34317932
@@ -166,27 +390,56 @@ public final class VulnerabilitiesProducer {
 	// Possibly we could add information from other properties like region, 
 	// logical location or code flows, but these may either not be available, or 
 	// still result in duplicate uuid strings.
-	private String generateInstanceIdString(RunData runData, Result result) {
-		String partialFingerPrints = result.getPartialFingerprints()==null?"":new TreeMap<>(result.getPartialFingerprints()).toString();
-		return String.join("|",
-			StringUtils.defaultString(runData.getToolName()),
-			getFileName(runData, result),
-			StringUtils.defaultString(result.resolveRuleId(runData)),
-			partialFingerPrints,
-			getVulnerabilityAbstract(runData, result));
+	private void appendGeneratedInstanceId(InstanceIdDigest digest, RunData runData, Result result, String fileName, String vulnerabilityAbstract) {
+		digest.append(StringUtils.defaultString(runData.getToolName())).append('|')
+			.append(fileName).append('|')
+			.append(StringUtils.defaultString(result.resolveRuleId(runData))).append('|');
+		if ( result.getPartialFingerprints()!=null ) {
+			digest.appendMap(result.getPartialFingerprints());
+		}
+		digest.append('|').append(vulnerabilityAbstract);
 	}
 	
-	private String getKingdom(RunData runData, Result result) {
-		String kingdom = getStringProperty(result.getProperties(), "kingdom", null);
+	// Source and sink values are based on the first and last locations that refer to 
+	// a file in the first applicable thread flow; see CodeFlowSummary for details.
+	private void setCodeFlowValues(StaticVulnerabilityBuilder vb, RunData runData, Result result) {
+		CodeFlowSummary codeFlows = result.getCodeFlows();
+		if ( codeFlows!=null ) {
+			FlowLocation source = codeFlows.getSource();
+			FlowLocation sink = codeFlows.getSink();
+			vb.setSource(stringPool.intern(source.resolveName(result, runData)));
+			vb.setSourceFile(stringPool.intern(source.resolveFullFileName(runData)));
+			vb.setSourceLine(source.resolveLineNumber());
+			vb.setSink(stringPool.intern(sink.resolveName(result, runData)));
+			vb.setTaintFlag(stringPool.intern(source.getKinds()));
+		}
+	}
+	
+	private String getKingdom(Result result, RuleProfile ruleProfile) {
+		String kingdom = getResultProperties(result).getKingdom();
 		if ( StringUtils.isBlank(kingdom) ) {
-			kingdom = getStringProperty(getRuleProperties(runData, result), "Kingdom", null);
+			return ruleProfile.getKingdom();
 		}
-		return kingdom;
+		return stringPool.intern(kingdom);
 	}
 	
-	private String getCategory(RunData runData, Result result) {
+	private String getCategory(RunData runData, Result result, RuleProfile ruleProfile) {
+		String category = ruleProfile.getCategory();
+		if ( StringUtils.isBlank(category) ) {
+			category = stringPool.intern(result.resolveRuleId(runData));
+		}
+		if ( StringUtils.isBlank(category) ) {
+			category = StringUtils.defaultIfBlank(runData.getToolName(), "Unknown");
+		}
+		return category;
+	}
+	
+	/**
+	 * Get the category based on rule data only; returns null if the given
+	 * rule doesn't provide any category information.
+	 */
+	private String getRuleCategory(RunData runData, Result result, ReportingDescriptor rule) {
 		String category = null;
-		ReportingDescriptor rule = result.resolveRule(runData);
 		if ( rule != null ) {
 			if ( rule.getShortDescription() != null ) {
 				category = result.resolveMessage(rule.getShortDescription(), runData);
@@ -199,59 +452,37 @@ public final class VulnerabilitiesProducer {
 				}
 			}
 			if ( StringUtils.isBlank(category) ) {
-				category = getStringProperty(getRuleProperties(rule), "Type", null);
+				category = getRuleProperties(rule).getType();
 			}
 		}
-		if ( StringUtils.isBlank(category) ) {
-			category = result.resolveRuleId(runData);
-		}
-		if ( StringUtils.isBlank(category) ) {
-			category = StringUtils.defaultIfBlank(runData.getToolName(), "Unknown");
-		}
-		return category;
-	}
-	
-	private String getSubCategory(RunData runData, Result result) {
-		return getStringProperty(getRuleProperties(runData, result), "Subtype", null);
+		return StringUtils.isBlank(category) ? null : category;
 	}
 	
 	private String getAnalyzer(RunData runData, Result result) {
 		return "External";
 	}
-
-	private float getAccuracy(RunData runData, Result result) {
-		return getFloatProperty(getRuleProperties(runData, result), "Accuracy", 5.0f);
-	}
 	
 	private float getSeverity(RunData runData, Result result) {
-		return getFloatProperty(result.getProperties(), "InstanceSeverity", 2.5f);
+		return PropertyBag.floatValue(getResultProperties(result).getInstanceSeverity(), 2.5f);
 	}
 	
 	private float getConfidence(RunData runData, Result result) {
-		return getFloatProperty(result.getProperties(), "Confidence", 2.5f);
-	}
-	
-	private float getProbability(RunData runData, Result result) {
-		return getFloatProperty(getRuleProperties(runData, result), "Probability", 2.5f);
-	}
-	
-	private float getImpact(RunData runData, Result result) {
-		return getFloatProperty(getRuleProperties(runData, result), "Impact", 2.5f);
+		return PropertyBag.floatValue(getResultProperties(result).getConfidence(), 2.5f);
 	}
 	
 	private float getLikelihood(RunData runData, Result result) {
 		return 2.5f;
 	}
 
-	private Priority getPriority(RunData runData, Result result) {
-		return tryParsePriority("fortify-severity", result.getProperties())
-			.orElseGet(() -> tryParsePriority("priority", result.getProperties())
-			.orElseGet(() -> resolveSecuritySeverityPriority(runData, result)
+	private Priority getPriority(RunData runData, Result result, RuleProfile ruleProfile) {
+		PropertyBag properties = getResultProperties(result);
+		return tryParsePriority("fortify-severity", properties.getFortifySeverity())
+			.orElseGet(() -> tryParsePriority("priority", properties.getPriority())
+			.orElseGet(() -> Optional.ofNullable(ruleProfile.getSecuritySeverityPriority())
 			.orElseGet(() -> result.resolveLevel(runData).getFortifyPriority())));
 	}
 
-	private Optional<Priority> tryParsePriority(String propertyName, Map<String, Object> properties) {
-		String value = getStringProperty(properties, propertyName, null);
+	private Optional<Priority> tryParsePriority(String propertyName, String value) {
 		if ( StringUtils.isNotBlank(value) ) {
 			try {
 				return Optional.of(Priority.valueOf(value));
@@ -262,8 +493,8 @@ public final class VulnerabilitiesProducer {
 		return Optional.empty();
 	}
 
-	private Optional<Priority> resolveSecuritySeverityPriority(RunData runData, Result result) {
-		String value = getStringProperty(getRuleProperties(runData, result), "security-severity", null);
+	private Optional<Priority> resolveSecuritySeverityPriority(PropertyBag ruleProperties) {
+		String value = ruleProperties.getSecuritySeverity();
 		if ( StringUtils.isNotBlank(value) ) {
 			try {
 				float score = Float.parseFloat(value);
@@ -288,9 +519,9 @@ public final class VulnerabilitiesProducer {
 		return Optional.empty();
 	}
 
-	private String getTags(RunData runData, Result result) {
-		return getStringListProperty(getRuleProperties(runData, result), "tags", Collections.emptyList())
-			.stream()
+	private String getTags(PropertyBag ruleProperties) {
+		List<String> tags = ruleProperties.getTags();
+		return tags==null ? "" : tags.stream()
 			// the tag "security" is almost always present for many SARIF reports because GitHub Code Scanning requires that tag be present for findings to appear
 			// See https://docs.github.com/en/code-security/code-scanning/integrating-with-code-scanning/sarif-support-for-code-scanning
 			// Since it's not really useful, filter it out.
@@ -299,54 +530,72 @@ public final class VulnerabilitiesProducer {
 	}
 	
 	private String getRuleGuid(RunData runData, Result result) {
-		String fortifyRuleId = getStringProperty(result.getProperties(), "fortifyRuleId", null);
+		String fortifyRuleId = getResultProperties(result).getFortifyRuleId();
 		if ( StringUtils.isNotBlank(fortifyRuleId) ) {
-			return fortifyRuleId;
+			return stringPool.intern(fortifyRuleId);
 		}
-		return result.resolveRuleGuid(runData);
+		return stringPool.intern(result.resolveRuleGuid(runData));
 	}
 
-	private String getCategoryAndSubCategory(RunData runData, Result result) {
-		String category = getCategory(runData, result);
-		String subCategory = getSubCategory(runData, result);
+	private String getCategoryAndSubCategory(String category, RuleProfile ruleProfile) {
+		String categoryAndSubCategory = ruleProfile.getCategoryAndSubCategory();
+		return categoryAndSubCategory!=null ? categoryAndSubCategory : stringPool.intern(getCategoryAndSubCategory(category, ruleProfile.getSubCategory()));
+	}
+	
+	private String getCategoryAndSubCategory(String category, String subCategory) {
 		return StringUtils.isBlank(subCategory) ? category : String.join(": ", category, subCategory);
 	}
 	
-	private float getFloatProperty(Map<String, Object> properties, String key, float defaultValue) {
-		String valueString = getStringProperty(properties, key, null);
-		if ( StringUtils.isNotBlank(valueString) ) {
-			try {
-				return Float.parseFloat(valueString);
-			} catch (NumberFormatException nfe) {
-				LOG.warn("Error converting {} string '{}' to float: {}", key, valueString, nfe.getMessage());
-			}
-		}
-		return defaultValue;
+	private PropertyBag getRuleProperties(ReportingDescriptor rule) {
+		return rule==null || rule.getProperties()==null ? PropertyBag.EMPTY : rule.getProperties();
 	}
 	
-	private String getStringProperty(Map<String, Object> properties, String key, String defaultValue) {
-		if ( properties!=null && properties.containsKey(key) && properties.get(key) != null ) {
-			return properties.get(key).toString();
-		}
-		return defaultValue;
+	private PropertyBag getResultProperties(Result result) {
+		return result.getProperties()==null ? PropertyBag.EMPTY : result.getProperties();
 	}
 	
-	private List<String> getStringListProperty(Map<String, Object> properties, String key, List<String> defaultValue) {
-		if ( properties!=null && properties.containsKey(key) && properties.get(key) instanceof List ) {
-			return ((List<?>) properties.get(key)).stream()
-				.filter(String.class::isInstance)
-				.map(String.class::cast)
-				.collect(Collectors.toList());
+	/**
+	 * Cache of {@link RuleProfile} instances and pooled artifact file names for a 
+	 * single {@link RunData} instance. File names are cached only for the first
+	 * {@link StringPool#getMaxIndexedEntries()} artifacts, to keep the cache bounded
+	 * for runs with many artifacts. The {@link RunData} instance is weakly referenced, 
+	 * to allow cache entries to be removed from the {@link WeakHashMap} once a run 
+	 * has been processed.
+	 */
+	private static final class RunCache {
+		private final WeakReference<RunData> runData;
+		private final RuleProfile[] profilesByRuleIndex;
+		private final String[] fileNamesByArtifactIndex;
+		private volatile RuleProfile unresolvedRuleProfile;
+		
+		private RunCache(RunData runData, int maxIndexedFileNames) {
+			this.runData = new WeakReference<>(runData);
+			this.profilesByRuleIndex = new RuleProfile[runData.getRuleCount()];
+			this.fileNamesByArtifactIndex = new String[Math.min(runData.getArtifactCount(), maxIndexedFileNames)];
 		}
-		return defaultValue;
-	}
-
-	private Map<String, Object> getRuleProperties(ReportingDescriptor rule) {
-		return rule==null ? null : rule.getProperties();
 	}
 	
-	private Map<String, Object> getRuleProperties(RunData runData, Result result) {
-		return getRuleProperties(result.resolveRule(runData));
+	/**
+	 * Immutable class holding all vulnerability data that depends only on the rule
+	 * referenced by a result, allowing this data to be computed once per rule rather 
+	 * than once per result. The category and combined category/sub-category are null
+	 * if the rule doesn't provide category information, in which case the category 
+	 * needs to be determined based on result data.
+	 */
+	@Getter @RequiredArgsConstructor
+	private static final class RuleProfile {
+		private final String category;
+		private final String subCategory;
+		private final String categoryAndSubCategory;
+		private final String help;
+		private final String helpUri;
+		private final String tags;
+		private final String kingdom;
+		private final float accuracy;
+		private final float probability;
+		private final float impact;
+		private final Priority securitySeverityPriority;
+		private final boolean ruleIdAccepted;
+		private final boolean defaultLevelAccepted;
 	}
-
 }
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fortify.ssc.parser.sarif.domain.Result;
+import com.fortify.ssc.parser.sarif.domain.ResultHandler;
+import com.fortify.ssc.parser.sarif.domain.RunData;
+
+/**
+ * <p>{@link ResultHandler} implementation that produces vulnerabilities on a worker
+ * thread, passing batches of recorded vulnerabilities (see {@link RecordingVulnerabilityHandler})
+ * to the importing thread through a small, bounded queue.</p>
+ * 
+ * <p>A worker thread invokes {@link #process(Task)} to run a task that passes 
+ * results to this handler. The importing thread invokes {@link #replay()} to 
+ * pass all vulnerabilities produced by that task to the {@link VulnerabilitiesProducer#getVulnerabilityHandler()}, 
+ * waiting for the task to complete. If the queue is full, the worker thread waits
+ * until the importing thread starts replaying vulnerabilities from this queue.</p>
+ */
+final class VulnerabilityBatchQueue implements ResultHandler {
+	private static final int MAX_QUEUED_BATCHES = 4;
+	private final VulnerabilitiesProducer vulnerabilitiesProducer;
+	private final int batchSize;
+	private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(MAX_QUEUED_BATCHES);
+	private RecordingVulnerabilityHandler recorder = new RecordingVulnerabilityHandler();
+	private int recordedResults = 0;
+	
+	/**
+	 * Task to be run on a worker thread
+	 */
+	@FunctionalInterface
+	public interface Task {
+		void run() throws IOException;
+	}
+	
+	/**
+	 * Create a {@link VulnerabilityBatchQueue} instance
+	 * @param vulnerabilitiesProducer used to produce vulnerabilities
+	 * @param batchSize Number of results per batch of recorded vulnerabilities
+	 */
+	public VulnerabilityBatchQueue(VulnerabilitiesProducer vulnerabilitiesProducer, int batchSize) {
+		this.vulnerabilitiesProducer = vulnerabilitiesProducer;
+		this.batchSize = Math.max(1, batchSize);
+	}
+	
+	@Override
+	public void handleResult(RunData runData, Result result) throws IOException {
+		vulnerabilitiesProducer.produceVulnerability(runData, result, recorder.getHandler());
+		if ( ++recordedResults>=batchSize ) {
+			put(recorder);
+			this.recorder = new RecordingVulnerabilityHandler();
+			this.recordedResults = 0;
+		}
+	}
+	
+	@Override
+	public Result readResult(JsonParser jsonParser) throws IOException {
+		return vulnerabilitiesProducer.readResult(jsonParser);
+	}
+	
+	/**
+	 * Invoked on a worker thread to run the given task, which is expected
+	 * to pass results to this {@link VulnerabilityBatchQueue}. Any errors
+	 * are passed to the importing thread.
+	 * @param task
+	 */
+	public void process(Task task) {
+		Object completion;
+		try {
+			task.run();
+			if ( recordedResults>0 ) { put(recorder); }
+			completion = Completion.SUCCESS;
+		} catch ( Throwable t ) {
+			completion = new Completion(t);
+		}
+		try {
+			queue.put(completion);
+		} catch ( InterruptedException e ) {
+			// Processing was aborted, nobody is waiting for our completion anymore
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Invoked on the importing thread to replay all recorded vulnerabilities,
+	 * until the worker thread has completed the task passed to {@link #process(Task)}.
+	 * @throws IOException
+	 */
+	public void replay() throws IOException {
+		try {
+			Object entry;
+			while ( (entry=queue.take()) instanceof RecordingVulnerabilityHandler ) {
+				((RecordingVulnerabilityHandler)entry).replay(vulnerabilitiesProducer.getVulnerabilityHandler());
+			}
+			((Completion)entry).rethrow();
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for results to be processed");
+		}
+	}
+	
+	private void put(RecordingVulnerabilityHandler batch) throws InterruptedIOException {
+		try {
+			queue.put(batch);
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for vulnerabilities to be passed to SSC");
+		}
+	}
+	
+	/**
+	 * Marks the completion of a task, optionally holding the error that
+	 * occurred while running the task.
+	 */
+	private static final class Completion {
+		private static final Completion SUCCESS = new Completion(null);
+		private final Throwable error;
+		
+		private Completion(Throwable error) {
+			this.error = error;
+		}
+		
+		private void rethrow() throws IOException {
+			if ( error instanceof IOException ) { throw (IOException)error; }
+			if ( error instanceof RuntimeException ) { throw (RuntimeException)error; }
+			if ( error instanceof Error ) { throw (Error)error; }
+			if ( error!=null ) { throw new IOException("Error processing results", error); }
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Helper class for creating worker thread pools. Worker threads are daemon
+ * threads, named after the component that uses them, to ease diagnostics
+ * in SSC thread dumps.
+ */
+final class WorkerThreads {
+	private static final Logger LOG = LoggerFactory.getLogger(WorkerThreads.class);
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+	private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+	
+	private WorkerThreads() {}
+	
+	/**
+	 * Create a fixed-size thread pool with the given number of daemon threads
+	 * @param name used as the thread name prefix
+	 * @param threads number of threads
+	 * @return {@link ExecutorService} instance
+	 */
+	static final ExecutorService newFixedThreadPool(String name, int threads) {
+		final String prefix = "sarif-"+name+"-"+POOL_NUMBER.incrementAndGet()+"-";
+		final AtomicInteger threadNumber = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, prefix+threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Interrupt all worker threads in the given pool, and wait for them to stop.
+	 * Callers may close resources shared with the workers, like run data stores 
+	 * or shared MapDB instances, once this method returns. Interrupted workers 
+	 * stop when passing their next batch of vulnerabilities; the wait is bounded
+	 * in case a worker doesn't respond to interruption.
+	 * @param executor to be shut down
+	 */
+	static final void shutdown(ExecutorService executor) {
+		executor.shutdownNow();
+		try {
+			if ( !executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS) ) {
+				LOG.warn("Worker threads did not stop within {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+			}
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
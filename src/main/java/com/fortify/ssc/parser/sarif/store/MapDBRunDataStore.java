@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+/**
+ * {@link RunDataStore} implementation that stores entries in MapDB collections,
+ * either in direct (off-heap) memory or in a temporary file, depending on the
+ * factory method used to create the store. Stores created through a {@link SharedDB}
+ * share a single MapDB instance with all other stores created by that {@link SharedDB};
+ * see {@link SharedDB} for details.
+ */
+public final class MapDBRunDataStore implements RunDataStore {
+	private final Namespace namespace;
+	private final SharedDB sharedDB;
+	private long closedStorageBytes = -1;
+	
+	private MapDBRunDataStore(final DB db) {
+		this(new Namespace(db, ""), null);
+	}
+	
+	private MapDBRunDataStore(final Namespace namespace, final SharedDB sharedDB) {
+		this.namespace = namespace;
+		this.sharedDB = sharedDB;
+		namespace.storageBytes = 0;
+	}
+	
+	/**
+	 * @return {@link MapDBRunDataStore} instance that stores entries in direct memory
+	 */
+	public static final MapDBRunDataStore directMemory() {
+		return new MapDBRunDataStore(makeDirectMemoryDB());
+	}
+	
+	/**
+	 * @return {@link MapDBRunDataStore} instance that stores entries in a temporary, 
+	 *         memory-mapped file which is deleted when the store is closed
+	 */
+	public static final MapDBRunDataStore tempFile() {
+		return new MapDBRunDataStore(makeTempFileDB());
+	}
+	
+	private static final DB makeDirectMemoryDB() {
+		return DBMaker.memoryDirectDB().make();
+	}
+	
+	private static final DB makeTempFileDB() {
+		return DBMaker.tempFileDB()
+				.closeOnJvmShutdown().fileDeleteAfterClose()
+				.fileMmapEnableIfSupported()
+				.make();
+	}
+	
+	@Override
+	public <T> List<T> createList(String name, Serializer<T> serializer) {
+		return namespace.createList(name, serializer);
+	}
+	
+	@Override
+	public Map<String, Integer> createIndexMap(String name) {
+		return namespace.createIndexMap(name);
+	}
+	
+	@Override
+	public long getStorageBytes() {
+		return closedStorageBytes<0 ? namespace.storageBytes : closedStorageBytes;
+	}
+	
+	/**
+	 * Close this store. For stores created through a {@link SharedDB}, this clears
+	 * all collections created by this store, and returns the store namespace to the
+	 * {@link SharedDB}, allowing subsequent stores to re-use the released space and
+	 * the cleared collections. Otherwise, the underlying MapDB instance is closed.
+	 */
+	@Override
+	public void close() {
+		if ( closedStorageBytes>=0 ) { return; }
+		closedStorageBytes = namespace.storageBytes;
+		if ( sharedDB==null ) {
+			namespace.db.close();
+		} else {
+			namespace.clear();
+			sharedDB.release(namespace);
+		}
+	}
+	
+	/**
+	 * This class holds the MapDB collections created in a single namespace of a 
+	 * MapDB instance, keyed by their unprefixed name. Collections are created on 
+	 * first use; once cleared, they are re-used when a subsequent store that is 
+	 * assigned the same namespace requests a collection with the same name. This 
+	 * avoids creating (and leaving behind) a new set of MapDB collections for 
+	 * every run. 
+	 */
+	private static final class Namespace {
+		private final DB db;
+		private final String prefix;
+		private final Map<String, CountingList<?>> lists = new HashMap<>();
+		private final Map<String, Map<String, Integer>> indexMaps = new HashMap<>();
+		private final Set<String> namesInUse = new LinkedHashSet<>();
+		private long storageBytes = 0;
+		
+		private Namespace(DB db, String prefix) {
+			this.db = db;
+			this.prefix = prefix;
+		}
+		
+		private <T> List<T> createList(String name, Serializer<T> serializer) {
+			use(name);
+			@SuppressWarnings("unchecked")
+			CountingList<T> countingList = (CountingList<T>)lists.get(name);
+			if ( countingList==null ) {
+				CountingSerializer<T> countingSerializer = new CountingSerializer<>(this, serializer);
+				countingList = new CountingList<>(db.indexTreeList(prefix+name, countingSerializer).create(), countingSerializer);
+				lists.put(name, countingList);
+			} else {
+				// The cleared list doesn't hold any entries serialized by the previous serializer
+				countingList.serializer.delegate = serializer;
+			}
+			return countingList.list;
+		}
+		
+		private Map<String, Integer> createIndexMap(String name) {
+			use(name);
+			return indexMaps.computeIfAbsent(name, n->db.hashMap(prefix+n, Serializer.STRING, Serializer.INTEGER).create());
+		}
+		
+		private void use(String name) {
+			if ( !namesInUse.add(name) ) {
+				throw new IllegalArgumentException("Collection "+name+" already exists");
+			}
+		}
+		
+		private void clear() {
+			for ( String name : namesInUse ) {
+				CountingList<?> countingList = lists.get(name);
+				if ( countingList!=null ) {
+					countingList.list.clear();
+				} else {
+					indexMaps.get(name).clear();
+				}
+			}
+			namesInUse.clear();
+		}
+	}
+	
+	private static final class CountingList<T> {
+		private final List<T> list;
+		private final CountingSerializer<T> serializer;
+		
+		private CountingList(List<T> list, CountingSerializer<T> serializer) {
+			this.list = list;
+			this.serializer = serializer;
+		}
+	}
+	
+	/**
+	 * <p>This class manages a single MapDB instance, stored either in direct memory or
+	 * in a temporary file, for use by multiple {@link MapDBRunDataStore} instances. This
+	 * avoids the cost of creating, mapping and deleting a new temporary file or direct
+	 * memory allocation for every SARIF run, which dominates processing time for 
+	 * documents with many small runs.</p>
+	 * 
+	 * <p>The MapDB instance is created when the first store is requested. Each store 
+	 * prefixes its collection names with a namespace that is not used by any other open 
+	 * store, so stores can be used concurrently. When closed, a store clears its collections 
+	 * and releases its namespace; the next store re-uses the most recently released 
+	 * namespace, including its cleared collections and the released records. As such, 
+	 * the number of namespaces and collections is bounded by the number of concurrently 
+	 * open stores rather than the number of runs. The MapDB instance is only closed (and 
+	 * any temporary file deleted) once this {@link SharedDB} is closed; any stores that 
+	 * haven't been closed at that time can no longer be used.</p>
+	 */
+	public static final class SharedDB implements Closeable {
+		private final Supplier<DB> dbFactory;
+		private final Deque<Namespace> releasedNamespaces = new ArrayDeque<>();
+		private DB db;
+		private long namespaceCount = 0;
+		
+		private SharedDB(Supplier<DB> dbFactory) {
+			this.dbFactory = dbFactory;
+		}
+		
+		/**
+		 * @return {@link SharedDB} instance that stores entries in direct memory
+		 */
+		public static final SharedDB directMemory() {
+			return new SharedDB(MapDBRunDataStore::makeDirectMemoryDB);
+		}
+		
+		/**
+		 * @return {@link SharedDB} instance that stores entries in a temporary, 
+		 *         memory-mapped file which is deleted when this instance is closed
+		 */
+		public static final SharedDB tempFile() {
+			return new SharedDB(MapDBRunDataStore::makeTempFileDB);
+		}
+		
+		/**
+		 * @return New {@link MapDBRunDataStore} instance backed by the shared MapDB instance
+		 */
+		public final synchronized MapDBRunDataStore createStore() {
+			if ( db==null ) { db = dbFactory.get(); }
+			Namespace namespace = releasedNamespaces.pollFirst();
+			if ( namespace==null ) {
+				namespace = new Namespace(db, "store"+(++namespaceCount)+"/");
+			}
+			return new MapDBRunDataStore(namespace, this);
+		}
+		
+		/**
+		 * @return Number of namespaces created in the shared MapDB instance, 
+		 *         mostly for testing purposes
+		 */
+		public final synchronized long getNamespaceCount() {
+			return namespaceCount;
+		}
+		
+		private synchronized void release(Namespace namespace) {
+			// Namespaces of a MapDB instance that has since been closed are discarded
+			if ( namespace.db==db ) {
+				releasedNamespaces.addFirst(namespace);
+			}
+		}
+		
+		/**
+		 * Close the shared MapDB instance, if created. A new MapDB instance will be
+		 * created if any stores are requested after closing this instance.
+		 */
+		@Override
+		public final synchronized void close() {
+			if ( db!=null ) {
+				db.close();
+				db = null;
+				releasedNamespaces.clear();
+				namespaceCount = 0;
+			}
+		}
+	}
+	
+	/**
+	 * {@link Serializer} implementation that delegates to another {@link Serializer},
+	 * keeping track of the number of bytes written by the delegate for the store
+	 * that currently uses the {@link Namespace}.
+	 */
+	private static final class CountingSerializer<T> implements Serializer<T> {
+		private final Namespace namespace;
+		private Serializer<T> delegate;
+		
+		private CountingSerializer(Namespace namespace, Serializer<T> delegate) {
+			this.namespace = namespace;
+			this.delegate = delegate;
+		}
+		
+		@Override
+		public void serialize(DataOutput2 out, T value) throws IOException {
+			int start = out.pos;
+			delegate.serialize(out, value);
+			namespace.storageBytes += out.pos-start;
+		}
+		
+		@Override
+		public T deserialize(DataInput2 input, int available) throws IOException {
+			return delegate.deserialize(input, available);
+		}
+		
+		@Override
+		public int fixedSize() {
+			return delegate.fixedSize();
+		}
+		
+		@Override
+		public boolean isTrusted() {
+			return delegate.isTrusted();
+		}
+	}
+}
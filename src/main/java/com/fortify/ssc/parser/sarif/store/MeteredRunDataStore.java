@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.store;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+
+import org.mapdb.Serializer;
+
+import com.fortify.ssc.parser.sarif.metrics.ParserMetrics;
+
+/**
+ * {@link RunDataStore} implementation that wraps another {@link RunDataStore},
+ * registering list lookups and the number of bytes written to off-heap storage
+ * with the given {@link ParserMetrics}. Lookups are registered under the name
+ * of the list being accessed; storage bytes are registered when the store is
+ * closed.
+ */
+public final class MeteredRunDataStore implements RunDataStore {
+	private final RunDataStore delegate;
+	private final ParserMetrics metrics;
+	
+	public MeteredRunDataStore(RunDataStore delegate, ParserMetrics metrics) {
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+	
+	@Override
+	public <T> List<T> createList(String name, Serializer<T> serializer) {
+		return new MeteredList<>(name, delegate.createList(name, serializer));
+	}
+	
+	@Override
+	public Map<String, Integer> createIndexMap(String name) {
+		return delegate.createIndexMap(name);
+	}
+	
+	@Override
+	public long getStorageBytes() {
+		return delegate.getStorageBytes();
+	}
+	
+	@Override
+	public void close() {
+		metrics.addStorageBytes(delegate.getStorageBytes());
+		delegate.close();
+	}
+	
+	private final class MeteredList<T> extends AbstractList<T> {
+		private final String name;
+		private final List<T> delegate;
+		
+		private MeteredList(String name, List<T> delegate) {
+			this.name = name;
+			this.delegate = delegate;
+		}
+		
+		@Override
+		public boolean add(T value) {
+			return delegate.add(value);
+		}
+		
+		@Override
+		public T get(int index) {
+			long start = System.nanoTime();
+			try {
+				return delegate.get(index);
+			} finally {
+				metrics.addLookup(name, System.nanoTime()-start);
+			}
+		}
+		
+		@Override
+		public int size() {
+			return delegate.size();
+		}
+	}
+}
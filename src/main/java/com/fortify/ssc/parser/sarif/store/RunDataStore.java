@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.store;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+
+import org.mapdb.Serializer;
+
+/**
+ * Storage engine interface for the collections used to hold SARIF rules, 
+ * artifacts and related indexes while processing the results of a SARIF 
+ * run. Implementations may store collection entries on-heap or off-heap;
+ * any resources held by an implementation are released when the store is 
+ * closed.
+ */
+public interface RunDataStore extends Closeable {
+	/**
+	 * Create a new list with the given name; the given {@link Serializer}
+	 * is used by implementations that store entries in serialized form.
+	 * @param name unique name of the list within this store
+	 * @param serializer for list entries
+	 * @return Newly created list
+	 */
+	<T> List<T> createList(String name, Serializer<T> serializer);
+	
+	/**
+	 * Create a new map for looking up entry indexes by string keys.
+	 * @param name unique name of the map within this store
+	 * @return Newly created map
+	 */
+	Map<String, Integer> createIndexMap(String name);
+	
+	/**
+	 * @return Number of bytes of serialized list entries written to off-heap 
+	 *         storage by this store, or 0 if this store keeps all entries on-heap
+	 */
+	default long getStorageBytes() {
+		return 0;
+	}
+	
+	/**
+	 * Release any resources held by this store. Overridden to not 
+	 * throw any checked exceptions.
+	 */
+	@Override
+	void close();
+}
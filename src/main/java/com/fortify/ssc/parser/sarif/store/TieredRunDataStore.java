@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.Getter;
+
+/**
+ * {@link RunDataStore} implementation that starts out storing entries in the
+ * first configured {@link Tier}, and transparently moves all entries to the 
+ * next tier once the entry count or estimated byte size thresholds of the 
+ * current tier are exceeded. This allows small SARIF runs to be processed fully 
+ * on-heap, while large runs are moved to direct memory or temporary files.
+ * <p>
+ * For tiers backed by a {@link MapDBRunDataStore}, byte sizes are taken from
+ * {@link RunDataStore#getStorageBytes()}, which counts the bytes written while 
+ * MapDB serializes the entries. For other tiers, byte sizes are estimated based on 
+ * the serialized size of list entries, as produced by the {@link Serializer} passed 
+ * to {@link #createList(String, Serializer)}. Entry sizes are only estimated while 
+ * the current tier defines a byte threshold.
+ */
+public final class TieredRunDataStore implements RunDataStore {
+	private static final Logger LOG = LoggerFactory.getLogger(TieredRunDataStore.class);
+	private final List<Tier> tiers;
+	private final List<TieredCollection> collections = new ArrayList<>();
+	private final DataOutput2 sizeBuffer = new DataOutput2();
+	private int tierIndex = 0;
+	private RunDataStore currentStore;
+	private long entries = 0;
+	private long bytes = 0;
+	private long previousStorageBytes = 0;
+	
+	public TieredRunDataStore(final Tier... tiers) {
+		if ( tiers.length==0 ) {
+			throw new IllegalArgumentException("At least one tier must be specified");
+		}
+		this.tiers = Arrays.asList(tiers);
+		this.currentStore = tiers[0].getStoreFactory().get();
+	}
+	
+	@Override
+	public <T> List<T> createList(String name, Serializer<T> serializer) {
+		TieredList<T> list = new TieredList<>(name, serializer);
+		collections.add(list);
+		return list;
+	}
+	
+	@Override
+	public Map<String, Integer> createIndexMap(String name) {
+		TieredIndexMap map = new TieredIndexMap(name);
+		collections.add(map);
+		return map;
+	}
+	
+	@Override
+	public long getStorageBytes() {
+		return previousStorageBytes+currentStore.getStorageBytes();
+	}
+	
+	@Override
+	public void close() {
+		currentStore.close();
+	}
+	
+	/**
+	 * @return Name of the current tier, mostly for logging/testing purposes 
+	 */
+	public String getCurrentTierName() {
+		return tiers.get(tierIndex).getName();
+	}
+	
+	private <T> void entryAdded(Serializer<T> serializer, T value) {
+		entries++;
+		Tier tier = tiers.get(tierIndex);
+		if ( tier.getMaxBytes()!=Long.MAX_VALUE ) {
+			if ( currentStore instanceof MapDBRunDataStore ) {
+				bytes = currentStore.getStorageBytes();
+			} else if ( serializer!=null ) {
+				bytes += getSerializedSize(serializer, value);
+			}
+		}
+		if ( entries > tier.getMaxEntries() || bytes > tier.getMaxBytes() ) {
+			spill();
+		}
+	}
+
+	private <T> int getSerializedSize(Serializer<T> serializer, T value) {
+		try {
+			sizeBuffer.pos = 0;
+			serializer.serialize(sizeBuffer, value);
+			return sizeBuffer.pos;
+		} catch ( IOException e ) {
+			throw new UncheckedIOException("Error calculating serialized entry size", e);
+		}
+	}
+	
+	/**
+	 * Move all entries from the current tier to the next tier that can
+	 * accommodate the current number of entries and bytes.
+	 */
+	private void spill() {
+		int nextTierIndex = tierIndex;
+		do {
+			nextTierIndex++;
+		} while ( nextTierIndex < tiers.size()-1 
+				&& (entries > tiers.get(nextTierIndex).getMaxEntries() || bytes > tiers.get(nextTierIndex).getMaxBytes()) );
+		if ( nextTierIndex >= tiers.size() ) { return; } // Already at last tier
+		
+		Tier nextTier = tiers.get(nextTierIndex);
+		LOG.debug("Moving {} entries ({} bytes) from {} to {} storage", entries, bytes, getCurrentTierName(), nextTier.getName());
+		RunDataStore nextStore = nextTier.getStoreFactory().get();
+		for ( TieredCollection collection : collections ) {
+			collection.moveTo(nextStore);
+		}
+		previousStorageBytes += currentStore.getStorageBytes();
+		currentStore.close();
+		currentStore = nextStore;
+		tierIndex = nextTierIndex;
+	}
+	
+	/**
+	 * This class describes a single storage tier; entries will be moved to the next
+	 * tier once this tier holds more than the given maximum number of entries or bytes.
+	 */
+	@Getter
+	public static final class Tier {
+		private final String name;
+		private final Supplier<RunDataStore> storeFactory;
+		private final long maxEntries;
+		private final long maxBytes;
+		
+		public Tier(String name, Supplier<RunDataStore> storeFactory, long maxEntries, long maxBytes) {
+			this.name = name;
+			this.storeFactory = storeFactory;
+			this.maxEntries = maxEntries;
+			this.maxBytes = maxBytes;
+		}
+		
+		/**
+		 * Create a tier without any thresholds; this is usually the last tier.
+		 */
+		public Tier(String name, Supplier<RunDataStore> storeFactory) {
+			this(name, storeFactory, Long.MAX_VALUE, Long.MAX_VALUE);
+		}
+	}
+	
+	private interface TieredCollection {
+		void moveTo(RunDataStore store);
+	}
+	
+	private final class TieredList<T> extends AbstractList<T> implements TieredCollection {
+		private final String name;
+		private final Serializer<T> serializer;
+		private List<T> delegate;
+		
+		private TieredList(String name, Serializer<T> serializer) {
+			this.name = name;
+			this.serializer = serializer;
+			this.delegate = currentStore.createList(name, serializer);
+		}
+		
+		@Override
+		public boolean add(T value) {
+			delegate.add(value);
+			entryAdded(serializer, value);
+			return true;
+		}
+		
+		@Override
+		public T get(int index) {
+			return delegate.get(index);
+		}
+		
+		@Override
+		public int size() {
+			return delegate.size();
+		}
+		
+		@Override
+		public void moveTo(RunDataStore store) {
+			List<T> target = store.createList(name, serializer);
+			target.addAll(delegate);
+			delegate = target;
+		}
+	}
+	
+	private final class TieredIndexMap extends AbstractMap<String, Integer> implements TieredCollection {
+		private final String name;
+		private Map<String, Integer> delegate;
+		
+		private TieredIndexMap(String name) {
+			this.name = name;
+			this.delegate = currentStore.createIndexMap(name);
+		}
+		
+		@Override
+		public Integer put(String key, Integer value) {
+			Integer result = delegate.put(key, value);
+			entryAdded(null, null);
+			return result;
+		}
+		
+		@Override
+		public Integer get(Object key) {
+			return delegate.get(key);
+		}
+		
+		@Override
+		public boolean containsKey(Object key) {
+			return delegate.containsKey(key);
+		}
+		
+		@Override
+		public int size() {
+			return delegate.size();
+		}
+		
+		@Override
+		public Set<Map.Entry<String, Integer>> entrySet() {
+			return delegate.entrySet();
+		}
+		
+		@Override
+		public void moveTo(RunDataStore store) {
+			Map<String, Integer> target = store.createIndexMap(name);
+			target.putAll(delegate);
+			delegate = target;
+		}
+	}
+}
@@ -0,0 +1,8 @@
+/**
+ * This package contains the storage engines used to hold SARIF rules and 
+ * artifacts while processing the results of a SARIF run. Storage engines
+ * implement the {@link com.fortify.ssc.parser.sarif.store.RunDataStore}
+ * interface, and may keep data on-heap, in direct memory or in temporary 
+ * files.
+ */
+package com.fortify.ssc.parser.sarif.store;
@@ -24,22 +24,37 @@
  ******************************************************************************/
 package com.fortify.ssc.parser.sarif;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import com.fortify.plugin.api.ScanBuilder;
 import com.fortify.plugin.api.ScanData;
@@ -47,9 +62,14 @@ import com.fortify.plugin.api.ScanEntry;
 import com.fortify.plugin.api.ScanParsingException;
 import com.fortify.plugin.api.StaticVulnerabilityBuilder;
 import com.fortify.plugin.api.VulnerabilityHandler;
+import com.fortify.ssc.parser.sarif.SARIFParserConfig.RunDataStorage;
+import com.fortify.ssc.parser.sarif.SarifGenerator.Options;
+import com.fortify.ssc.parser.sarif.metrics.ParserMetrics;
 import com.fortify.ssc.parser.sarif.parser.ScanParser;
 
 class SARIFParserPluginTest {
+	private static final String START_STATIC_VULNERABILITY = "startStaticVulnerability: ";
+	private static final String NON_SARIF_JSON_ENTRY = "config/settings.json";
 	private static final String[] SAMPLE_FILES_2_1_0 = {
 			"EightBall.fpr.sarif",
 			"EightBall.xml.sarif",
@@ -64,11 +84,15 @@ class SARIFParserPluginTest {
 	};
 	
 	private final ScanData getScanData(String fileName) {
+		return getScanData(fileName, null);
+	}
+	
+	private final ScanData getScanData(String fileName, String sessionId) {
 		return new ScanData() {
 		
 			@Override
 			public String getSessionId() {
-				return UUID.randomUUID().toString();
+				return sessionId==null ? UUID.randomUUID().toString() : sessionId;
 			}
 			
 			@Override
@@ -133,6 +157,402 @@ class SARIFParserPluginTest {
 		// TODO Check actual output
 	}
 	
+	@ParameterizedTest
+	@MethodSource("getSampleFiles2_1_0")
+	void testParseVulnerabilitiesDeferred(String file) throws Exception {
+		System.err.println("\n\n---- "+file+" - parseVulnerabilities (deferred)");
+		SARIFParserConfig config = new SARIFParserConfig().setRunDataStorage(RunDataStorage.deferred);
+		assertSameVulnerabilities(getScanData("2.1.0/"+file), config);
+	}
+	
+	@ParameterizedTest
+	@MethodSource("getSampleFiles2_1_0")
+	void testParseVulnerabilitiesTwoPass(String file) throws Exception {
+		System.err.println("\n\n---- "+file+" - parseVulnerabilities (two-pass)");
+		SARIFParserConfig config = new SARIFParserConfig().setSinglePassResults(false);
+		assertSameVulnerabilities(getScanData("2.1.0/"+file), config);
+	}
+	
+	@ParameterizedTest
+	@MethodSource("getSampleFiles2_1_0")
+	void testParseVulnerabilitiesParallel(String file) throws Exception {
+		System.err.println("\n\n---- "+file+" - parseVulnerabilities (parallel)");
+		SARIFParserConfig config = new SARIFParserConfig().setResultProcessingThreads(4).setResultBatchSize(2);
+		assertSameVulnerabilities(getScanData("2.1.0/"+file), config);
+	}
+	
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void testParseVulnerabilitiesParallelGenerated(boolean resultsBeforeTool) throws Exception {
+		System.err.println("\n\n---- generated - parseVulnerabilities (parallel, resultsBeforeTool="+resultsBeforeTool+")");
+		ScanData scanData = getGeneratedScanData(new Options().setResultsPerRun(3000).setResultsBeforeTool(resultsBeforeTool));
+		SARIFParserConfig config = new SARIFParserConfig().setResultProcessingThreads(4).setResultBatchSize(16);
+		assertEquals(3000, getInstanceIds(assertSameVulnerabilities(scanData, config)).size());
+	}
+	
+	@ParameterizedTest
+	@MethodSource("getSampleFiles2_1_0")
+	void testParseVulnerabilitiesConcurrentRuns(String file) throws Exception {
+		System.err.println("\n\n---- "+file+" - parseVulnerabilities (concurrent runs)");
+		SARIFParserConfig config = new SARIFParserConfig().setRunProcessingThreads(4).setResultBatchSize(2);
+		assertSameVulnerabilities(getScanData("2.1.0/"+file), config);
+	}
+	
+	@Test
+	void testParseVulnerabilitiesConcurrentRunsGenerated() throws Exception {
+		System.err.println("\n\n---- generated - parseVulnerabilities (concurrent runs)");
+		ScanData scanData = getGeneratedScanData(new Options().setRuns(20).setResultsPerRun(200));
+		SARIFParserConfig config = new SARIFParserConfig().setRunProcessingThreads(4).setResultBatchSize(16);
+		assertEquals(20*200, getInstanceIds(assertSameVulnerabilities(scanData, config)).size());
+	}
+	
+	@ParameterizedTest
+	@MethodSource("getSampleFiles2_1_0")
+	void testParseVulnerabilitiesSharded(String file) throws Exception {
+		System.err.println("\n\n---- "+file+" - parseVulnerabilities (sharded results)");
+		SARIFParserConfig config = new SARIFParserConfig().setResultShardingThreads(4).setResultShardMinBytes(1).setResultBatchSize(2);
+		assertSameVulnerabilities(getScanData("2.1.0/"+file), config);
+	}
+	
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void testParseVulnerabilitiesShardedGenerated(boolean resultsBeforeTool) throws Exception {
+		System.err.println("\n\n---- generated - parseVulnerabilities (sharded results, resultsBeforeTool="+resultsBeforeTool+")");
+		ScanData scanData = getGeneratedScanData(new Options().setResultsPerRun(3000).setResultsBeforeTool(resultsBeforeTool));
+		SARIFParserConfig config = new SARIFParserConfig().setResultShardingThreads(4).setResultShardMinBytes(4096).setResultBatchSize(16);
+		assertEquals(3000, getInstanceIds(assertSameVulnerabilities(scanData, config)).size());
+	}
+	
+	@ParameterizedTest
+	@MethodSource("getSampleFiles2_1_0")
+	void testParseVulnerabilitiesMetrics(String file) throws Exception {
+		System.err.println("\n\n---- "+file+" - parseVulnerabilities (metrics)");
+		AtomicReference<ParserMetrics> metricsReference = new AtomicReference<>();
+		new SARIFParserPlugin(new SARIFParserConfig(), metricsReference::set).parseVulnerabilities(getScanData("2.1.0/"+file), vulnerabilityHandler);
+		ParserMetrics metrics = metricsReference.get();
+		System.err.println(metrics.toSummary());
+		assertTrue(metrics.isSucceeded());
+		assertTrue(metrics.getBytesRead()>0);
+		assertTrue(metrics.getRuns()>0);
+		assertTrue(metrics.getResultsSeen()>=metrics.getVulnerabilitiesEmitted());
+	}
+	
+	@ParameterizedTest
+	@MethodSource("getSampleFiles2_1_0")
+	void testParseVulnerabilitiesRunIndex(String file) throws Exception {
+		System.err.println("\n\n---- "+file+" - parseVulnerabilities (run index)");
+		SARIFParserConfig config = new SARIFParserConfig().setRunDataStorage(RunDataStorage.deferred);
+		List<String> expectedIds = new ArrayList<>();
+		new SARIFParserPlugin(config).parseVulnerabilities(getScanData("2.1.0/"+file), getRecordingVulnerabilityHandler(expectedIds));
+		
+		SARIFParserPlugin plugin = new SARIFParserPlugin(config);
+		String sessionId = UUID.randomUUID().toString();
+		List<String> actualIds = new ArrayList<>();
+		plugin.parseScan(getScanData("2.1.0/"+file, sessionId), scanBuilder);
+		plugin.parseVulnerabilities(getScanData("2.1.0/"+file, sessionId), getRecordingVulnerabilityHandler(actualIds));
+		assertEquals(expectedIds, actualIds);
+		plugin.stop();
+	}
+	
+	@ParameterizedTest
+	@MethodSource("getSampleFiles2_1_0")
+	void testParseVulnerabilitiesGzip(String file) throws Exception {
+		System.err.println("\n\n---- "+file+" - parseVulnerabilities (gzip)");
+		SARIFParserConfig config = new SARIFParserConfig().setSinglePassResults(false).setRunDataStorage(RunDataStorage.deferred);
+		List<String> expectedIds = new ArrayList<>();
+		new SARIFParserPlugin(config).parseVulnerabilities(getScanData("2.1.0/"+file), getRecordingVulnerabilityHandler(expectedIds));
+		List<String> actualIds = new ArrayList<>();
+		new SARIFParserPlugin(config).parseVulnerabilities(getGzipScanData("2.1.0/"+file), getRecordingVulnerabilityHandler(actualIds));
+		assertEquals(expectedIds, actualIds);
+	}
+	
+	@ParameterizedTest
+	@MethodSource("getSampleFiles2_1_0")
+	void testParseVulnerabilitiesGzipConcurrent(String file) throws Exception {
+		System.err.println("\n\n---- "+file+" - parseVulnerabilities (gzip, concurrent runs and sharded)");
+		ScanData scanData = getGzipScanData("2.1.0/"+file);
+		assertSameVulnerabilities(scanData, new SARIFParserConfig().setRunProcessingThreads(3).setResultBatchSize(7));
+		assertSameVulnerabilities(scanData, new SARIFParserConfig().setResultShardingThreads(4).setResultShardMinBytes(256).setResultBatchSize(7));
+	}
+	
+	/**
+	 * Get a {@link ScanData} instance providing the given file compressed as multiple 
+	 * gzip members, to also exercise the gzip member seek table when re-reading regions 
+	 */
+	private final ScanData getGzipScanData(String fileName) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try ( InputStream is = ClassLoader.getSystemResourceAsStream(fileName) ) {
+			byte[] buffer = new byte[1024];
+			int n;
+			while ( (n=is.read(buffer))>0 ) {
+				// Closing a ByteArrayOutputStream has no effect, so we can append the next member
+				try ( GZIPOutputStream gos = new GZIPOutputStream(bos) ) {
+					gos.write(buffer, 0, n);
+				}
+			}
+		}
+		byte[] compressed = bos.toByteArray();
+		ScanData scanData = getScanData(fileName);
+		return new ScanData() {
+			@Override
+			public String getSessionId() {
+				return scanData.getSessionId();
+			}
+			
+			@Override
+			public List<ScanEntry> getScanEntries() {
+				return null;
+			}
+			
+			@Override
+			public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+				return new ByteArrayInputStream(compressed);
+			}
+			
+			@Override
+			public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+				return new ByteArrayInputStream(compressed);
+			}
+		};
+	}
+	
+	@Test
+	void testParseScanEntries() throws Exception {
+		System.err.println("\n\n---- scan entries - parseScan");
+		new SARIFParserPlugin().parseScan(getScanEntriesScanData(), scanBuilder);
+	}
+	
+	@ParameterizedTest
+	@EnumSource(RunDataStorage.class)
+	void testParseScanHostNameAndScanDate(RunDataStorage runDataStorage) throws Exception {
+		SARIFParserConfig config = new SARIFParserConfig().setRunDataStorage(runDataStorage);
+		String entry1 = getInvocationsDocument("2020-02-01T00:00:00Z", "host-a", "2020-01-01T00:00:00Z", "host-b");
+		String entry2 = getInvocationsDocument("2019-01-01T00:00:00Z", "host-a", "2019-02-01T00:00:00Z", "host-c");
+		
+		// Single document: last invocation wins, as before multi-document support
+		Map<String, Object> single = new HashMap<>();
+		new SARIFParserPlugin(config).parseScan(getDocumentsScanData(entry1), getRecordingScanBuilder(single));
+		assertEquals(Instant.parse("2020-01-01T00:00:00Z"), ((Date)single.get("setScanDate")).toInstant());
+		assertEquals("host-b", single.get("setHostName"));
+		
+		// Multiple documents: latest scan date and distinct host names of all documents
+		Map<String, Object> multiple = new HashMap<>();
+		new SARIFParserPlugin(config).parseScan(getDocumentsScanData(entry1, entry2), getRecordingScanBuilder(multiple));
+		assertEquals(Instant.parse("2020-01-01T00:00:00Z"), ((Date)multiple.get("setScanDate")).toInstant());
+		assertEquals("host-b, host-c", multiple.get("setHostName"));
+		assertEquals(4, multiple.get("setNumFiles"));
+	}
+	
+	private static final String getInvocationsDocument(String endTimeUtc1, String machine1, String endTimeUtc2, String machine2) {
+		return "{\"version\": \"2.1.0\", \"runs\": ["
+				+ "{\"tool\": {\"driver\": {\"name\": \"tool\"}}, \"artifacts\": [{}], \"results\": [], "
+				+ "\"invocations\": [{\"endTimeUtc\": \""+endTimeUtc1+"\", \"machine\": \""+machine1+"\"}]}, "
+				+ "{\"tool\": {\"driver\": {\"name\": \"tool\"}}, \"artifacts\": [{}], \"results\": [], "
+				+ "\"invocations\": [{\"endTimeUtc\": \""+endTimeUtc2+"\", \"machine\": \""+machine2+"\"}]}]}";
+	}
+	
+	/**
+	 * Get a {@link ScanData} instance for the given SARIF documents; multiple 
+	 * documents are provided as separate {@link ScanEntry} instances
+	 */
+	private final ScanData getDocumentsScanData(String... documents) {
+		List<ScanEntry> scanEntries = documents.length<2 ? null : IntStream.range(0, documents.length)
+				.mapToObj(i->getScanEntry("entry"+i+".sarif"))
+				.collect(Collectors.toList());
+		String sessionId = UUID.randomUUID().toString();
+		return new ScanData() {
+			@Override
+			public String getSessionId() {
+				return sessionId;
+			}
+			
+			@Override
+			public List<ScanEntry> getScanEntries() {
+				return scanEntries;
+			}
+			
+			@Override
+			public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+				return new ByteArrayInputStream(documents[0].getBytes(StandardCharsets.UTF_8));
+			}
+			
+			@Override
+			public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+				int index = Integer.parseInt(scanEntry.getEntryName().replaceAll("\\D", ""));
+				return new ByteArrayInputStream(documents[index].getBytes(StandardCharsets.UTF_8));
+			}
+		};
+	}
+	
+	/**
+	 * Get a {@link ScanBuilder} that records the last argument of every setter call
+	 */
+	private static final ScanBuilder getRecordingScanBuilder(Map<String, Object> values) {
+		return (ScanBuilder) Proxy.newProxyInstance(
+				SARIFParserPluginTest.class.getClassLoader(), 
+				  new Class[] { ScanBuilder.class }, new InvocationHandler() {
+					
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						System.err.println(method.getName()+": "+(args==null?null:Arrays.asList(args)));
+						if ( args!=null && args.length==1 ) {
+							values.put(method.getName(), args[0]);
+						}
+						return null;
+					}
+				});
+	}
+	
+	@Test
+	void testParseVulnerabilitiesScanEntries() throws Exception {
+		System.err.println("\n\n---- scan entries - parseVulnerabilities");
+		int expectedCount = 0;
+		for ( String file : SAMPLE_FILES_2_1_0 ) {
+			List<String> fileIds = new ArrayList<>();
+			new SARIFParserPlugin().parseVulnerabilities(getScanData("2.1.0/"+file), getRecordingVulnerabilityHandler(fileIds));
+			expectedCount += fileIds.size();
+		}
+		List<String> expectedIds = new ArrayList<>();
+		new SARIFParserPlugin().parseVulnerabilities(getScanEntriesScanData(), getRecordingVulnerabilityHandler(expectedIds));
+		assertEquals(expectedCount, expectedIds.size());
+		assertEquals(expectedIds.size(), expectedIds.stream().distinct().count());
+		
+		List<String> actualIds = new ArrayList<>();
+		SARIFParserConfig config = new SARIFParserConfig().setScanEntryProcessingThreads(4).setResultBatchSize(7);
+		new SARIFParserPlugin(config).parseVulnerabilities(getScanEntriesScanData(), getRecordingVulnerabilityHandler(actualIds));
+		assertEquals(expectedIds, actualIds);
+	}
+	
+	/**
+	 * Get a {@link ScanData} instance providing all 2.1.0 sample files, a SARIF 2.0.0 
+	 * file, and some non-SARIF files, as separate {@link ScanEntry} instances, like a 
+	 * zip bundle. Only the 2.1.0 sample files should be processed.
+	 */
+	private final ScanData getScanEntriesScanData() {
+		List<ScanEntry> scanEntries = Arrays.stream(SAMPLE_FILES_2_1_0)
+				.map(file->getScanEntry("2.1.0/"+file))
+				.collect(Collectors.toList());
+		scanEntries.add(1, getScanEntry(NON_SARIF_JSON_ENTRY));
+		scanEntries.add(getScanEntry("2.0.0/spec-comprehensive-2.0.0.sarif"));
+		scanEntries.add(getScanEntry("README.md"));
+		ScanData scanData = getScanData("2.1.0/"+SAMPLE_FILES_2_1_0[0]);
+		return new ScanData() {
+			@Override
+			public String getSessionId() {
+				return scanData.getSessionId();
+			}
+			
+			@Override
+			public List<ScanEntry> getScanEntries() {
+				return scanEntries;
+			}
+			
+			@Override
+			public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+				return scanData.getInputStream(matcher);
+			}
+			
+			@Override
+			public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+				return NON_SARIF_JSON_ENTRY.equals(scanEntry.getEntryName()) 
+						? new ByteArrayInputStream("{\"name\": \"other\", \"runs\": 1}".getBytes(StandardCharsets.UTF_8))
+						: ClassLoader.getSystemResourceAsStream(scanEntry.getEntryName());
+			}
+		};
+	}
+	
+	private final ScanEntry getScanEntry(String entryName) {
+		return (ScanEntry) Proxy.newProxyInstance(
+				SARIFParserPluginTest.class.getClassLoader(), 
+				  new Class[] { ScanEntry.class }, new InvocationHandler() {
+					
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						return "getEntryName".equals(method.getName()) ? entryName : null;
+					}
+				});
+	}
+	
+	/**
+	 * Assert that parsing the given {@link ScanData} with the given configuration 
+	 * results in the same {@link StaticVulnerabilityBuilder} calls, in the same
+	 * order, as parsing it sequentially with the default configuration.
+	 * @return Recorded calls, see {@link #getCallRecordingVulnerabilityHandler(List)}
+	 */
+	private final List<String> assertSameVulnerabilities(ScanData scanData, SARIFParserConfig config) throws Exception {
+		List<String> expectedCalls = new ArrayList<>();
+		new SARIFParserPlugin().parseVulnerabilities(scanData, getCallRecordingVulnerabilityHandler(expectedCalls));
+		List<String> actualCalls = new ArrayList<>();
+		new SARIFParserPlugin(config).parseVulnerabilities(scanData, getCallRecordingVulnerabilityHandler(actualCalls));
+		assertEquals(expectedCalls, actualCalls);
+		return actualCalls;
+	}
+	
+	/**
+	 * Get a {@link ScanData} instance providing a SARIF document generated 
+	 * by {@link SarifGenerator} with the given options
+	 */
+	private final ScanData getGeneratedScanData(Options options) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		new SarifGenerator(options).write(bos);
+		byte[] sarif = bos.toByteArray();
+		return new ScanData() {
+			@Override
+			public String getSessionId() {
+				return "generated";
+			}
+			
+			@Override
+			public List<ScanEntry> getScanEntries() {
+				return null;
+			}
+			
+			@Override
+			public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+				return new ByteArrayInputStream(sarif);
+			}
+			
+			@Override
+			public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+				return new ByteArrayInputStream(sarif);
+			}
+		};
+	}
+	
+	/**
+	 * Get a {@link VulnerabilityHandler} that records every instance id and every
+	 * {@link StaticVulnerabilityBuilder} method call, including its arguments
+	 */
+	private static final VulnerabilityHandler getCallRecordingVulnerabilityHandler(List<String> calls) {
+		return instanceId -> {
+			calls.add(START_STATIC_VULNERABILITY+instanceId);
+			return (StaticVulnerabilityBuilder) Proxy.newProxyInstance(
+					SARIFParserPluginTest.class.getClassLoader(), 
+					  new Class[] { StaticVulnerabilityBuilder.class }, new InvocationHandler() {
+						
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							calls.add(method.getName()+": "+Arrays.deepToString(args));
+							return null;
+						}
+					});
+		};
+	}
+	
+	private static final List<String> getInstanceIds(List<String> calls) {
+		return calls.stream()
+				.filter(call->call.startsWith(START_STATIC_VULNERABILITY))
+				.map(call->call.substring(START_STATIC_VULNERABILITY.length()))
+				.collect(Collectors.toList());
+	}
+	
+	private final VulnerabilityHandler getRecordingVulnerabilityHandler(List<String> instanceIds) {
+		return instanceId -> {
+			instanceIds.add(instanceId);
+			return vulnerabilityHandler.startStaticVulnerability(instanceId);
+		};
+	}
+	
 	public static List<String> getSampleFiles2_1_0() {
 		return Arrays.asList(SAMPLE_FILES_2_1_0);
 	}
@@ -0,0 +1,404 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>This class generates synthetic SARIF 2.1.0 documents for load and scale 
+ * testing. Documents are written in a streaming fashion; memory usage depends 
+ * only on the configured rule help length, not on the size of the generated 
+ * document, allowing for generating arbitrarily large documents. Output is 
+ * deterministic for a given set of {@link Options}.</p>
+ * 
+ * <p>Documents can also be generated from the command line, for example:</p>
+ * <pre>
+ * java ... com.fortify.ssc.parser.sarif.SarifGenerator large.sarif resultsPerRun=5000000 ruleReference=guid
+ * </pre>
+ */
+public final class SarifGenerator {
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private static final String[] WORDS = {
+			"input", "validation", "attacker", "request", "parameter", "query", "data", "flows", 
+			"into", "the", "application", "without", "proper", "encoding", "sanitization", "of"};
+	private final Options options;
+	private final String helpText;
+	
+	/**
+	 * Options for generating SARIF documents
+	 */
+	@Getter @Setter @Accessors(chain = true)
+	public static final class Options {
+		/** Seed for the random generator used to generate result data */
+		private long seed = 1;
+		/** Number of runs */
+		private int runs = 1;
+		/** Number of results per run */
+		private long resultsPerRun = 1000;
+		/** Number of rules per run */
+		private int rules = 100;
+		/** Length of the help text for every rule */
+		private int ruleHelpLength = 500;
+		/** Number of artifacts per run; if 0, results refer to artifacts by uri */
+		private int artifacts = 200;
+		/** Length of the chain of <code>originalUriBaseIds</code> entries referring to each other; 0 for no base id's */
+		private int uriBaseIdDepth = 1;
+		/** How results refer to rules */
+		private RuleReference ruleReference = RuleReference.id;
+		/** Whether the <code>results</code> array precedes the <code>tool</code> and other run properties */
+		private boolean resultsBeforeTool = false;
+		/** Whether the <code>originalUriBaseIds</code> and <code>artifacts</code> properties follow the <code>results</code> array */
+		private boolean artifactsAfterResults = false;
+		/** Index of the first result in every run that refers to an artifact by index; preceding results refer to artifacts by uri */
+		private long firstArtifactIndexResult = 0;
+		/** Proportion (between 0 and 1) of results with <code>fingerprints</code> */
+		private double fingerprintRatio = 0;
+		/** Proportion (between 0 and 1) of results with <code>partialFingerprints</code> */
+		private double partialFingerprintRatio = 1;
+		/** Proportion (between 0 and 1) of results with a <code>guid</code> */
+		private double guidRatio = 0;
+	}
+	
+	/**
+	 * Define how results refer to rules
+	 */
+	public static enum RuleReference {
+		/** <code>ruleIndex</code> property */
+		index, 
+		/** <code>ruleId</code> property */
+		id, 
+		/** <code>rule</code> object with <code>guid</code> property */
+		guid, 
+		/** <code>rule</code> object with <code>id</code> and <code>index</code> properties */
+		rule
+	}
+	
+	public SarifGenerator(Options options) {
+		this.options = options;
+		this.helpText = generateText(options.getRuleHelpLength());
+	}
+	
+	/**
+	 * Write a SARIF document to the given file
+	 * @param path
+	 * @throws IOException
+	 */
+	public void write(Path path) throws IOException {
+		try ( OutputStream os = new BufferedOutputStream(Files.newOutputStream(path), 64*1024) ) {
+			write(os);
+		}
+	}
+	
+	/**
+	 * Write a SARIF document to the given {@link OutputStream}; the stream
+	 * is not closed by this method.
+	 * @param os
+	 * @throws IOException
+	 */
+	public void write(OutputStream os) throws IOException {
+		Random random = new Random(options.getSeed());
+		try ( JsonGenerator gen = JSON_FACTORY.createGenerator(os, JsonEncoding.UTF8) ) {
+			gen.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+			gen.writeStartObject();
+			gen.writeStringField("$schema", "https://schemastore.azurewebsites.net/schemas/json/sarif-2.1.0.json");
+			gen.writeStringField("version", "2.1.0");
+			gen.writeArrayFieldStart("runs");
+			for ( int run = 0 ; run < options.getRuns() ; run++ ) {
+				writeRun(gen, random);
+			}
+			gen.writeEndArray();
+			gen.writeEndObject();
+		}
+	}
+	
+	private void writeRun(JsonGenerator gen, Random random) throws IOException {
+		gen.writeStartObject();
+		if ( options.isResultsBeforeTool() ) { writeResults(gen, random); }
+		writeTool(gen);
+		if ( options.isArtifactsAfterResults() && !options.isResultsBeforeTool() ) { writeResults(gen, random); }
+		writeOriginalUriBaseIds(gen);
+		writeArtifacts(gen);
+		if ( !options.isArtifactsAfterResults() && !options.isResultsBeforeTool() ) { writeResults(gen, random); }
+		gen.writeEndObject();
+	}
+	
+	private void writeTool(JsonGenerator gen) throws IOException {
+		gen.writeObjectFieldStart("tool");
+		gen.writeObjectFieldStart("driver");
+		gen.writeStringField("name", "SyntheticAnalyzer");
+		gen.writeStringField("version", "1.0.0");
+		gen.writeArrayFieldStart("rules");
+		for ( int i = 0 ; i < options.getRules() ; i++ ) {
+			writeRule(gen, i);
+		}
+		gen.writeEndArray();
+		gen.writeEndObject();
+		gen.writeEndObject();
+	}
+	
+	private void writeRule(JsonGenerator gen, int index) throws IOException {
+		gen.writeStartObject();
+		gen.writeStringField("id", ruleId(index));
+		gen.writeStringField("guid", ruleGuid(index));
+		gen.writeStringField("name", "SyntheticRule"+index);
+		writeText(gen, "shortDescription", "Synthetic issue type "+index);
+		writeText(gen, "fullDescription", "Synthetic issue type "+index+", reported when untrusted data reaches a sensitive operation.");
+		writeText(gen, "help", helpText);
+		gen.writeObjectFieldStart("messageStrings");
+		writeText(gen, "default", "Untrusted value {0} flows into [{1}](1) without validation.");
+		gen.writeEndObject();
+		gen.writeObjectFieldStart("defaultConfiguration");
+		gen.writeStringField("level", index%3==0 ? "error" : index%3==1 ? "warning" : "note");
+		gen.writeEndObject();
+		gen.writeObjectFieldStart("properties");
+		gen.writeArrayFieldStart("tags");
+		gen.writeString("security");
+		gen.writeString("synthetic");
+		gen.writeEndArray();
+		gen.writeStringField("security-severity", String.valueOf(1+index%9)+".0");
+		gen.writeEndObject();
+		gen.writeEndObject();
+	}
+	
+	private void writeOriginalUriBaseIds(JsonGenerator gen) throws IOException {
+		int depth = options.getUriBaseIdDepth();
+		if ( depth>0 ) {
+			gen.writeObjectFieldStart("originalUriBaseIds");
+			for ( int i = 0 ; i < depth ; i++ ) {
+				gen.writeObjectFieldStart(uriBaseId(i));
+				if ( i==0 ) {
+					gen.writeStringField("uri", "file:///work/");
+				} else {
+					gen.writeStringField("uri", "level"+i+"/");
+					gen.writeStringField("uriBaseId", uriBaseId(i-1));
+				}
+				gen.writeEndObject();
+			}
+			gen.writeEndObject();
+		}
+	}
+	
+	private void writeArtifacts(JsonGenerator gen) throws IOException {
+		if ( options.getArtifacts()>0 ) {
+			gen.writeArrayFieldStart("artifacts");
+			for ( int i = 0 ; i < options.getArtifacts() ; i++ ) {
+				gen.writeStartObject();
+				gen.writeFieldName("location");
+				writeArtifactLocation(gen, i);
+				gen.writeNumberField("length", 1000+i%5000);
+				gen.writeEndObject();
+			}
+			gen.writeEndArray();
+		}
+	}
+	
+	private void writeArtifactLocation(JsonGenerator gen, int artifact) throws IOException {
+		gen.writeStartObject();
+		gen.writeStringField("uri", artifactUri(artifact));
+		if ( options.getUriBaseIdDepth()>0 ) {
+			gen.writeStringField("uriBaseId", uriBaseId(options.getUriBaseIdDepth()-1));
+		}
+		gen.writeEndObject();
+	}
+	
+	private void writeResults(JsonGenerator gen, Random random) throws IOException {
+		gen.writeArrayFieldStart("results");
+		for ( long i = 0 ; i < options.getResultsPerRun() ; i++ ) {
+			writeResult(gen, random, i);
+		}
+		gen.writeEndArray();
+	}
+	
+	private void writeResult(JsonGenerator gen, Random random, long resultIndex) throws IOException {
+		int ruleIndex = options.getRules()==0 ? -1 : random.nextInt(options.getRules());
+		int artifact = random.nextInt(Math.max(1, options.getArtifacts()));
+		int line = 1+random.nextInt(5000);
+		gen.writeStartObject();
+		if ( random.nextDouble()<options.getGuidRatio() ) {
+			gen.writeStringField("guid", new UUID(random.nextLong(), random.nextLong()).toString());
+		}
+		writeRuleReference(gen, ruleIndex);
+		gen.writeObjectFieldStart("message");
+		gen.writeStringField("id", "default");
+		gen.writeArrayFieldStart("arguments");
+		gen.writeString("request.getParameter(\"p"+line+"\")");
+		gen.writeString("sink"+artifact+"_"+line);
+		gen.writeEndArray();
+		gen.writeEndObject();
+		gen.writeArrayFieldStart("locations");
+		gen.writeStartObject();
+		gen.writeObjectFieldStart("physicalLocation");
+		if ( options.getArtifacts()>0 && resultIndex<options.getFirstArtifactIndexResult() ) {
+			gen.writeFieldName("artifactLocation");
+			writeArtifactLocation(gen, artifact);
+		} else if ( options.getArtifacts()>0 ) {
+			gen.writeObjectFieldStart("artifactLocation");
+			gen.writeNumberField("index", artifact);
+			gen.writeEndObject();
+		} else {
+			gen.writeFieldName("artifactLocation");
+			writeArtifactLocation(gen, random.nextInt(1000));
+		}
+		gen.writeObjectFieldStart("region");
+		gen.writeNumberField("startLine", line);
+		gen.writeNumberField("startColumn", 1+random.nextInt(80));
+		gen.writeObjectFieldStart("snippet");
+		gen.writeStringField("text", "statement.execute(\"SELECT * FROM t WHERE c='\" + value"+line+" + \"'\");");
+		gen.writeEndObject();
+		gen.writeEndObject();
+		gen.writeEndObject();
+		gen.writeEndObject();
+		gen.writeEndArray();
+		if ( random.nextDouble()<options.getFingerprintRatio() ) {
+			gen.writeObjectFieldStart("fingerprints");
+			gen.writeStringField("stableId/v1", Long.toHexString(random.nextLong()));
+			gen.writeEndObject();
+		}
+		if ( random.nextDouble()<options.getPartialFingerprintRatio() ) {
+			gen.writeObjectFieldStart("partialFingerprints");
+			gen.writeStringField("primaryLocationLineHash", Long.toHexString(random.nextLong())+":1");
+			gen.writeEndObject();
+		}
+		gen.writeEndObject();
+	}
+	
+	private void writeRuleReference(JsonGenerator gen, int ruleIndex) throws IOException {
+		if ( ruleIndex<0 ) { return; }
+		switch ( options.getRuleReference() ) {
+		case index:
+			gen.writeNumberField("ruleIndex", ruleIndex);
+			break;
+		case id:
+			gen.writeStringField("ruleId", ruleId(ruleIndex));
+			break;
+		case guid:
+			gen.writeObjectFieldStart("rule");
+			gen.writeStringField("guid", ruleGuid(ruleIndex));
+			gen.writeEndObject();
+			break;
+		case rule:
+			gen.writeObjectFieldStart("rule");
+			gen.writeStringField("id", ruleId(ruleIndex));
+			gen.writeNumberField("index", ruleIndex);
+			gen.writeEndObject();
+			break;
+		}
+	}
+	
+	private static void writeText(JsonGenerator gen, String name, String text) throws IOException {
+		gen.writeObjectFieldStart(name);
+		gen.writeStringField("text", text);
+		gen.writeEndObject();
+	}
+	
+	private static String generateText(int length) {
+		StringBuilder sb = new StringBuilder(length+16);
+		for ( int i = 0 ; sb.length() < length ; i++ ) {
+			sb.append(WORDS[i%WORDS.length]).append(i%12==11 ? ". " : " ");
+		}
+		sb.setLength(length);
+		return sb.toString();
+	}
+	
+	/**
+	 * @param index
+	 * @return Rule id for the rule with the given index
+	 */
+	public static final String ruleId(int index) {
+		return String.format("SYN%05d", index);
+	}
+	
+	/**
+	 * @param index
+	 * @return Rule guid for the rule with the given index
+	 */
+	public static final String ruleGuid(int index) {
+		return String.format("5a1e0000-0000-4000-8000-%012x", index);
+	}
+	
+	/**
+	 * @param index
+	 * @return Relative artifact URI for the artifact with the given index
+	 */
+	public static final String artifactUri(int index) {
+		return "module"+(index%10)+"/pkg"+(index%50)+"/File"+index+".java";
+	}
+	
+	private static final String uriBaseId(int level) {
+		return level==0 ? "SRCROOT" : "SRCROOT_"+level;
+	}
+	
+	/**
+	 * Generate a SARIF document from the command line. The first argument 
+	 * specifies the output file, optionally followed by <code>name=value</code>
+	 * arguments for any of the {@link Options} properties. 
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if ( args.length==0 ) {
+			System.err.println("Usage: SarifGenerator <output file> [<option>=<value> ...]");
+			System.exit(1);
+		}
+		Options options = new Options();
+		for ( int i = 1 ; i < args.length ; i++ ) {
+			String[] nameAndValue = args[i].split("=", 2);
+			String value = nameAndValue.length==2 ? nameAndValue[1] : "";
+			switch ( nameAndValue[0] ) {
+			case "seed": options.setSeed(Long.parseLong(value)); break;
+			case "runs": options.setRuns(Integer.parseInt(value)); break;
+			case "resultsPerRun": options.setResultsPerRun(Long.parseLong(value)); break;
+			case "rules": options.setRules(Integer.parseInt(value)); break;
+			case "ruleHelpLength": options.setRuleHelpLength(Integer.parseInt(value)); break;
+			case "artifacts": options.setArtifacts(Integer.parseInt(value)); break;
+			case "uriBaseIdDepth": options.setUriBaseIdDepth(Integer.parseInt(value)); break;
+			case "ruleReference": options.setRuleReference(RuleReference.valueOf(value)); break;
+			case "resultsBeforeTool": options.setResultsBeforeTool(Boolean.parseBoolean(value)); break;
+			case "artifactsAfterResults": options.setArtifactsAfterResults(Boolean.parseBoolean(value)); break;
+			case "firstArtifactIndexResult": options.setFirstArtifactIndexResult(Long.parseLong(value)); break;
+			case "fingerprintRatio": options.setFingerprintRatio(Double.parseDouble(value)); break;
+			case "partialFingerprintRatio": options.setPartialFingerprintRatio(Double.parseDouble(value)); break;
+			case "guidRatio": options.setGuidRatio(Double.parseDouble(value)); break;
+			default: throw new IllegalArgumentException("Unknown option: "+args[i]);
+			}
+		}
+		new SarifGenerator(options).write(Paths.get(args[0]));
+	}
+}
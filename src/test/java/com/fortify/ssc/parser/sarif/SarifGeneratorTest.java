@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
+import com.fortify.plugin.api.StaticVulnerabilityBuilder;
+import com.fortify.ssc.parser.sarif.SarifGenerator.Options;
+import com.fortify.ssc.parser.sarif.SarifGenerator.RuleReference;
+
+class SarifGeneratorTest {
+	@ParameterizedTest
+	@EnumSource(RuleReference.class)
+	void testGenerate(RuleReference ruleReference) throws Exception {
+		for ( boolean resultsBeforeTool : new boolean[] {false, true} ) {
+			Options options = new Options().setRuns(2).setResultsPerRun(50).setRules(10).setArtifacts(20)
+					.setUriBaseIdDepth(3).setRuleReference(ruleReference).setResultsBeforeTool(resultsBeforeTool)
+					.setFingerprintRatio(0.3).setPartialFingerprintRatio(0.5).setGuidRatio(0.2);
+			byte[] sarif = generate(options);
+			System.err.println("\n\n---- generated "+ruleReference+", resultsBeforeTool="+resultsBeforeTool+": "+sarif.length+" bytes");
+			JsonNode root = new ObjectMapper().readTree(sarif);
+			assertEquals(2, root.get("runs").size());
+			assertEquals(50, root.get("runs").get(0).get("results").size());
+			assertEquals(10, root.get("runs").get(0).get("tool").get("driver").get("rules").size());
+			assertEquals(100, countVulnerabilities(sarif));
+		}
+	}
+	
+	private static final byte[] generate(Options options) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		new SarifGenerator(options).write(os);
+		return os.toByteArray();
+	}
+	
+	private static final int countVulnerabilities(byte[] sarif) throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		StaticVulnerabilityBuilder builder = (StaticVulnerabilityBuilder)Proxy.newProxyInstance(
+				SarifGeneratorTest.class.getClassLoader(), new Class[] {StaticVulnerabilityBuilder.class}, (proxy, method, args) -> null);
+		new SARIFParserPlugin(new SARIFParserConfig()).parseVulnerabilities(getScanData(sarif), instanceId -> {
+			count.incrementAndGet();
+			return builder;
+		});
+		return count.get();
+	}
+	
+	private static final ScanData getScanData(byte[] sarif) {
+		return new ScanData() {
+			@Override
+			public String getSessionId() {
+				return "generated";
+			}
+			
+			@Override
+			public List<ScanEntry> getScanEntries() {
+				return null;
+			}
+			
+			@Override
+			public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+				return new ByteArrayInputStream(sarif);
+			}
+			
+			@Override
+			public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+				return new ByteArrayInputStream(sarif);
+			}
+		};
+	}
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CodeFlowSummaryTest {
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	
+	@Test
+	void testSourceAndSink() throws Exception {
+		CodeFlowSummary summary = MAPPER.readValue(codeFlows(1000), CodeFlowSummary.class);
+		assertEquals(1000, summary.getLocationCount());
+		assertEquals("src/File0.java", summary.getSource().getPhysicalLocation().getArtifactLocation().getUri().toString());
+		assertEquals(1, summary.getSource().resolveLineNumber());
+		assertEquals("com.example.Source.read", summary.getSource().getLogicalLocationName());
+		assertEquals("taint,acquire", summary.getSource().getKinds());
+		assertEquals("src/File999.java", summary.getSink().getPhysicalLocation().getArtifactLocation().getUri().toString());
+		assertEquals(1000, summary.getSink().resolveLineNumber());
+		assertNull(summary.getSink().getLogicalLocationName());
+		assertEquals("step 999", summary.getSink().getMessage().getText());
+	}
+	
+	@Test
+	void testSingleLocation() throws Exception {
+		CodeFlowSummary summary = MAPPER.readValue(codeFlows(1), CodeFlowSummary.class);
+		assertEquals(1, summary.getLocationCount());
+		assertSame(summary.getSource(), summary.getSink());
+	}
+	
+	@Test
+	void testNoFileLocations() throws Exception {
+		assertNull(MAPPER.readValue("[{\"threadFlows\":[{\"locations\":[{\"location\":{\"message\":{\"text\":\"m\"}}}]}]}]", CodeFlowSummary.class));
+		assertNull(MAPPER.readValue("[]", CodeFlowSummary.class));
+	}
+	
+	@Test
+	void testResultReaderLookahead() throws Exception {
+		String json = "{\"ruleId\":\"R1\",\"codeFlows\":"+codeFlows(100)+",\"kind\":\"fail\",\"message\":{\"text\":\"m\"}}";
+		try ( JsonParser jsonParser = MAPPER.getFactory().createParser(json) ) {
+			jsonParser.nextToken();
+			Result result = new ResultReader(10).read(jsonParser);
+			assertEquals("R1", result.getRuleId());
+			assertEquals(Kind.fail, result.getKind());
+			assertEquals("m", result.getMessage().getText());
+			assertEquals(100, result.getCodeFlows().getLocationCount());
+		}
+	}
+	
+	/**
+	 * Generate a <code>codeFlows</code> array, with the first thread flow containing the given 
+	 * number of file locations, preceded and followed by locations without file, and some
+	 * additional thread flows and code flows that are expected to be ignored 
+	 */
+	private static String codeFlows(int locations) {
+		StringBuilder sb = new StringBuilder("[{\"message\":{\"text\":\"flow\"},\"threadFlows\":[{\"locations\":[");
+		sb.append("{\"location\":{\"message\":{\"text\":\"no file\"}}},");
+		for ( int i = 0 ; i < locations ; i++ ) {
+			sb.append("{\"kinds\":").append(i==0 ? "[\"taint\",\"acquire\"]" : "[\"call\"]")
+				.append(",\"nestingLevel\":").append(i%3)
+				.append(",\"location\":{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"src/File").append(i).append(".java\"},")
+				.append("\"region\":{\"startLine\":").append(i+1).append("}},")
+				.append(i==0 ? "\"logicalLocations\":[{\"name\":\"read\",\"fullyQualifiedName\":\"com.example.Source.read\"},{\"name\":\"other\"}]," : "")
+				.append("\"message\":{\"text\":\"step ").append(i).append("\"}}},");
+		}
+		sb.append("{\"location\":{\"message\":{\"text\":\"no file\"}}}]},");
+		sb.append("{\"locations\":[{\"location\":{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"src/Other.java\"}}}}]}]},");
+		sb.append("{\"threadFlows\":[{\"locations\":[{\"location\":{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"src/Other.java\"}}}}]}]}]");
+		return sb.toString();
+	}
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.Serializer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CompactSerializerTest {
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	
+	@Test
+	void testReportingDescriptorRoundTrip() throws Exception {
+		for ( ReportingDescriptor rule : readEntries("2.1.0/EightBall.fpr.sarif", "/runs/0/tool/driver/rules", ReportingDescriptor.class) ) {
+			ReportingDescriptor copy = roundTrip(ReportingDescriptor.SERIALIZER, rule);
+			assertEquals(rule.getId(), copy.getId());
+			assertEquals(rule.getGuid(), copy.getGuid());
+			assertEquals(rule.getName(), copy.getName());
+			assertEquals(rule.getDefaultLevel(), copy.getDefaultLevel());
+			assertEquals(rule.getHelpUri(), copy.getHelpUri());
+			assertEquals(text(rule.getHelp()), text(copy.getHelp()));
+			assertMessageEquals(rule.getShortDescription(), copy.getShortDescription());
+			assertMessageEquals(rule.getFullDescription(), copy.getFullDescription());
+			assertEquals(rule.getProperties(), copy.getProperties());
+			assertEquals(rule.getMessageStrings()==null, copy.getMessageStrings()==null);
+			if ( rule.getMessageStrings()!=null ) {
+				assertEquals(rule.getMessageStrings().keySet(), copy.getMessageStrings().keySet());
+				rule.getMessageStrings().forEach((k,v)->assertEquals(text(v), text(copy.getMessageString(k))));
+			}
+		}
+	}
+	
+	@Test
+	void testArtifactRoundTrip() throws Exception {
+		for ( Artifact artifact : readEntries("2.1.0/spec-comprehensive.sarif", "/runs/0/artifacts", Artifact.class) ) {
+			Artifact copy = roundTrip(Artifact.SERIALIZER, artifact);
+			ArtifactLocation location = artifact.getLocation();
+			assertEquals(location==null, copy.getLocation()==null);
+			if ( location!=null ) {
+				assertEquals(location.getUri(), copy.getLocation().getUri());
+				assertEquals(location.getUriBaseId(), copy.getLocation().getUriBaseId());
+				assertEquals(location.getIndex(), copy.getLocation().getIndex());
+			}
+		}
+	}
+	
+	@Test
+	void testCompactSizes() throws Exception {
+		assertSmallerThanJava("rules", ReportingDescriptor.SERIALIZER, 
+				readEntries("2.1.0/EightBall.fpr.sarif", "/runs/0/tool/driver/rules", ReportingDescriptor.class));
+		assertSmallerThanJava("artifacts", Artifact.SERIALIZER, 
+				readEntries("2.1.0/WebGoat5.0.xml.sarif", "/runs/0/artifacts", Artifact.class));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private <T> void assertSmallerThanJava(String description, Serializer<T> serializer, List<T> entries) throws IOException {
+		long compactSize = 0;
+		long javaSize = 0;
+		for ( T entry : entries ) {
+			compactSize += serialize(serializer, entry).length;
+			javaSize += serialize((Serializer<T>)Serializer.JAVA, entry).length;
+		}
+		System.err.println(description+": compact="+compactSize+" bytes, java="+javaSize+" bytes");
+		assertTrue(compactSize < javaSize, "Compact serialized size of "+description+" is smaller than Java serialized size");
+	}
+	
+	@Test
+	void testPropertyValues() throws Exception {
+		ReportingDescriptor rule = MAPPER.readValue("{\"id\":\"r1\",\"properties\":{"
+				+ "\"s\":\"text\",\"Kingdom\":\"Input Validation\",\"Type\":\"XSS\",\"Subtype\":null,"
+				+ "\"Accuracy\":4,\"Probability\":\"3.5\",\"Impact\":\"high\",\"security-severity\":8.8,"
+				+ "\"tags\":[\"security\",{\"x\":1},\"external/cwe/cwe-079\"],\"nested\":{\"a\":[1,{\"b\":\"c\"}]},"
+				+ "\"Confidence\":[1]}}", ReportingDescriptor.class);
+		PropertyBag properties = rule.getProperties();
+		assertEquals("Input Validation", properties.getRuleKingdom());
+		assertEquals("XSS", properties.getType());
+		assertNull(properties.getSubtype());
+		assertEquals(Float.valueOf(4.0f), properties.getAccuracy());
+		assertEquals(Float.valueOf(3.5f), properties.getProbability());
+		assertNull(properties.getImpact());
+		assertNull(properties.getConfidence());
+		assertEquals("8.8", properties.getSecuritySeverity());
+		assertEquals(Arrays.asList("security", "external/cwe/cwe-079"), properties.getTags());
+		assertEquals(properties, roundTrip(ReportingDescriptor.SERIALIZER, rule).getProperties());
+		assertEquals(PropertyBag.EMPTY, MAPPER.readValue("{\"x\":{\"tags\":[\"a\"]}}", PropertyBag.class));
+	}
+	
+	@Test
+	void testLargeHelpText() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for ( int i = 0 ; i < 1000 ; i++ ) { sb.append("Help text line ").append(i).append('\n'); }
+		String helpText = sb.toString();
+		ReportingDescriptor rule = MAPPER.readValue("{\"id\":\"r1\",\"help\":{\"text\":"+MAPPER.writeValueAsString(helpText)+"}}", ReportingDescriptor.class);
+		assertEquals(helpText, roundTrip(ReportingDescriptor.SERIALIZER, rule).getHelp().getText());
+		assertTrue(serialize(ReportingDescriptor.SERIALIZER, rule).length < helpText.length()/2, "Large help text is compressed");
+	}
+	
+	private static final <T> List<T> readEntries(String resource, String pointer, Class<T> type) throws IOException {
+		try ( InputStream is = ClassLoader.getSystemResourceAsStream(resource) ) {
+			List<T> result = new ArrayList<>();
+			for ( JsonNode node : MAPPER.readTree(is).at(pointer) ) {
+				result.add(MAPPER.treeToValue(node, type));
+			}
+			assertTrue(result.size()>0, "Resource "+resource+" contains entries at "+pointer);
+			return result;
+		}
+	}
+	
+	private static final <T> byte[] serialize(Serializer<T> serializer, T value) throws IOException {
+		DataOutput2 out = new DataOutput2();
+		serializer.serialize(out, value);
+		return out.copyBytes();
+	}
+	
+	private static final <T> T roundTrip(Serializer<T> serializer, T value) throws IOException {
+		return serializer.deserialize(new DataInput2.ByteArray(serialize(serializer, value)), -1);
+	}
+	
+	private static final void assertMessageEquals(Message expected, Message actual) {
+		assertEquals(expected==null, actual==null);
+		if ( expected!=null ) {
+			assertEquals(expected.getId(), actual.getId());
+			assertEquals(expected.getText(), actual.getText());
+			assertArrayEquals(expected.getArguments(), actual.getArguments());
+		}
+	}
+	
+	private static final String text(MultiformatMessageString msg) {
+		return msg==null ? null : msg.getText();
+	}
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class MessageTemplateTest {
+	@Test
+	void testRenderWithoutArgs() {
+		assertRender("Prohibited term used in [para\\[0\\]\\\\spans\\[2\\]](1).", null, "Prohibited term used in para[0]\\spans[2].");
+		assertRender("Link [text](http://example.com) and [another]", null, "Link text and [another]");
+		assertRender("Escaped \\[text](http://example.com)", null, "Escaped [text](http://example.com)");
+		assertRender("Unterminated [text](http://example.com\n)", null, "Unterminated [text](http://example.com\n)");
+	}
+	
+	@Test
+	void testRenderWithArgs() {
+		assertRender("Hello {0}, {1}, {2}, {3}, {4}", new String[] {"r1", "r2", "r3"}, "Hello r1, r2, r3, {3}, {4}");
+		assertRender("Variable [{0}](1) is {1}", new String[] {"x", "tainted"}, "Variable x is tainted");
+		assertRender("Placeholder {01} and {0}", new String[] {"r1"}, "Placeholder {01} and r1");
+		// Arguments containing link characters are processed as part of the message
+		assertRender("Link [{0}", new String[] {"text](1)"}, "Link text");
+	}
+	
+	@Test
+	void testTemplateReuse() {
+		MessageTemplate template = MessageTemplate.parse("[{0}](1) calls {1}");
+		assertEquals("a calls b", template.render(new String[] {"a", "b"}));
+		assertEquals("c calls d", template.render(new String[] {"c", "d"}));
+		assertEquals("{0} calls {1}", template.render(null));
+	}
+	
+	private void assertRender(String text, String[] args, String expected) {
+		assertEquals(expected, MessageTemplate.parse(text).render(args));
+	}
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ResultReaderTest {
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	private static final String RESULTS = "["
+			+ "{\"kind\":\"pass\",\"ruleId\":\"R1\",\"locations\":[{\"physicalLocation\":{\"region\":{\"startLine\":1}}}]},"
+			+ "{\"ruleId\":\"R2\",\"message\":{\"text\":\"m2\"},\"kind\":\"informational\",\"properties\":{\"a\":[1,{\"b\":2}]}},"
+			+ "{\"ruleId\":\"R3\",\"message\":{\"text\":\"m3\"},\"level\":\"error\",\"properties\":{\"x\":\"y\"},\"kind\":\"notApplicable\"},"
+			+ "{\"ruleId\":\"R4\",\"kind\":\"fail\",\"message\":{\"text\":\"m4\"},\"locations\":[{\"physicalLocation\":{\"region\":{\"startLine\":4}}}]},"
+			+ "{\"ruleId\":\"R5\",\"message\":{\"text\":\"m5\"},\"properties\":{\"Confidence\":\"1.0\"},\"locations\":[]},"
+			+ "{},"
+			+ "{\"kind\":\"review\"}"
+			+ "]";
+	
+	@Test
+	void testFullDecoding() throws Exception {
+		List<Result> results = readResults(ResultReader.FULL);
+		assertEquals(7, results.size());
+		assertEquals("R1", results.get(0).getRuleId());
+	}
+	
+	@Test
+	void testSkipNonVulnerabilityKinds() throws Exception {
+		List<Result> expected = readResults(ResultReader.FULL);
+		List<Result> actual = readResults(new ResultReader(4));
+		assertEquals(expected.size(), actual.size());
+		assertSame(Result.kindOnly(Kind.pass), actual.get(0));
+		assertSame(Result.kindOnly(Kind.informational), actual.get(1));
+		// kind is the fifth property, so result is fully decoded
+		assertResultEquals(expected.get(2), actual.get(2));
+		for ( int i = 3 ; i < expected.size() ; i++ ) {
+			assertResultEquals(expected.get(i), actual.get(i));
+		}
+		assertSame(Result.kindOnly(Kind.notApplicable), readResults(new ResultReader(5)).get(2));
+		assertNull(actual.get(0).getRuleId());
+	}
+	
+	private static List<Result> readResults(ResultReader reader) throws IOException {
+		List<Result> results = new ArrayList<>();
+		try ( JsonParser jsonParser = MAPPER.getFactory().createParser(RESULTS) ) {
+			jsonParser.nextToken();
+			while ( jsonParser.nextToken()!=JsonToken.END_ARRAY ) {
+				results.add(reader.read(jsonParser));
+			}
+			assertNull(jsonParser.nextToken());
+		}
+		return results;
+	}
+	
+	private static void assertResultEquals(Result expected, Result actual) {
+		assertEquals(expected.getRuleId(), actual.getRuleId());
+		assertEquals(expected.getKind(), actual.getKind());
+		assertEquals(expected.getLevel(), actual.getLevel());
+		assertEquals(expected.getMessage()==null ? null : expected.getMessage().getText(), actual.getMessage()==null ? null : actual.getMessage().getText());
+		assertEquals(expected.getProperties(), actual.getProperties());
+		assertEquals(expected.resolveLineNumber(), actual.resolveLineNumber());
+		assertEquals(expected.getLocations()==null ? -1 : expected.getLocations().length, actual.getLocations()==null ? -1 : actual.getLocations().length);
+	}
+}
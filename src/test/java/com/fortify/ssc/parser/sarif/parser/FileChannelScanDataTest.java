@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
+
+public class FileChannelScanDataTest {
+	private static final String SAMPLE_FILE = "2.1.0/WebGoat5.0.xml.sarif";
+	
+	@Test
+	void testChannelReads() throws Exception {
+		assertFileReads(0);
+	}
+	
+	@Test
+	void testMappedReads() throws Exception {
+		assertFileReads(4096);
+	}
+	
+	@Test
+	void testNonFileInput() throws Exception {
+		byte[] data = readSample();
+		InputStream is = new ByteArrayInputStream(data);
+		ScanData scanData = new FileChannelScanData(new InputStreamScanData(()->is), 4096);
+		assertSame(is, scanData.getInputStream(n->true));
+	}
+	
+	private void assertFileReads(int mapWindowBytes) throws Exception {
+		byte[] data = readSample();
+		File file = File.createTempFile("sarif", ".sarif");
+		try {
+			Files.write(file.toPath(), data);
+			ScanData scanData = new FileChannelScanData(new InputStreamScanData(()->new FileInputStream(file)), mapWindowBytes);
+			try ( InputStream is = scanData.getInputStream(n->true) ) {
+				assertTrue(is instanceof FileChannelScanData.FileChannelInputStream);
+			}
+			assertArrayEquals(data, readFully(scanData.getInputStream(n->true)));
+			assertRegionsEqual(data, scanData);
+			try ( InputStream is = scanData.getInputStream(n->true) ) {
+				assertEquals(data.length, is.skip(data.length+100));
+				assertEquals(-1, is.read());
+			}
+		} finally {
+			file.delete();
+		}
+	}
+	
+	private void assertRegionsEqual(byte[] data, ScanData scanData) throws IOException {
+		for ( int start : new int[] {0, 1, 4095, 4096, 4097, data.length/2, data.length-1} ) {
+			try ( InputStream is = scanData.getInputStream(n->true) ) {
+				assertEquals(start, is.skip(start));
+				byte[] expected = Arrays.copyOfRange(data, start, Math.min(data.length, start+10000));
+				byte[] actual = new byte[expected.length];
+				int offset = 0;
+				while ( offset<actual.length ) {
+					offset += is.read(actual, offset, actual.length-offset);
+				}
+				assertArrayEquals(expected, actual, "Region starting at "+start);
+				// Skip within and beyond the current buffer
+				if ( start+expected.length+20000<data.length ) {
+					assertEquals(10, is.skip(10));
+					assertEquals(data[start+expected.length+10] & 0xff, is.read());
+					assertEquals(20000, is.skip(20000));
+					assertEquals(data[start+expected.length+20011] & 0xff, is.read());
+				}
+			}
+		}
+	}
+	
+	private static final byte[] readSample() throws IOException {
+		return readFully(ClassLoader.getSystemResourceAsStream(SAMPLE_FILE));
+	}
+	
+	private static final byte[] readFully(InputStream is) throws IOException {
+		try ( InputStream in = is ) {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1000];
+			int n;
+			while ( (n=in.read(buffer))>=0 ) { bos.write(buffer, 0, n); }
+			return bos.toByteArray();
+		}
+	}
+	
+	@FunctionalInterface
+	private interface InputStreamSupplier {
+		InputStream get() throws IOException;
+	}
+	
+	private static final class InputStreamScanData implements ScanData {
+		private final InputStreamSupplier supplier;
+		
+		private InputStreamScanData(InputStreamSupplier supplier) {
+			this.supplier = supplier;
+		}
+
+		@Override
+		public String getSessionId() {
+			return null;
+		}
+
+		@Override
+		public List<ScanEntry> getScanEntries() {
+			return null;
+		}
+
+		@Override
+		public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+			return supplier.get();
+		}
+
+		@Override
+		public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+			return supplier.get();
+		}
+	}
+}
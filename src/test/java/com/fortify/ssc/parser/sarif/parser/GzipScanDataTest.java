@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
+
+public class GzipScanDataTest {
+	private static final String SAMPLE_FILE = "2.1.0/WebGoat5.0.xml.sarif";
+	
+	@Test
+	void testUncompressed() throws Exception {
+		byte[] data = readSample();
+		GzipScanData scanData = new GzipScanData(new BytesScanData(data, new AtomicLong()));
+		assertFalse(scanData.isCompressed());
+		assertArrayEquals(data, readFully(scanData.getInputStream(n->true)));
+	}
+	
+	@Test
+	void testSingleMember() throws Exception {
+		byte[] data = readSample();
+		GzipScanData scanData = new GzipScanData(new BytesScanData(gzip(data, data.length), new AtomicLong()));
+		assertTrue(scanData.isCompressed());
+		assertArrayEquals(data, readFully(scanData.getInputStream(n->true)));
+		assertRegionsEqual(data, scanData);
+	}
+	
+	@Test
+	void testMultiMember() throws Exception {
+		byte[] data = readSample();
+		AtomicLong bytesRead = new AtomicLong();
+		byte[] compressed = gzip(data, 4096);
+		GzipScanData scanData = new GzipScanData(new BytesScanData(compressed, bytesRead));
+		assertTrue(scanData.isCompressed());
+		assertArrayEquals(data, readFully(scanData.getInputStream(n->true)));
+		assertRegionsEqual(data, scanData);
+		
+		// Once member offsets have been recorded, skipping to the end of the 
+		// document shouldn't inflate (and thus read) all preceding members
+		bytesRead.set(0);
+		try ( InputStream is = scanData.getInputStream(n->true) ) {
+			assertEquals(data.length-10, is.skip(data.length-10));
+			assertArrayEquals(Arrays.copyOfRange(data, data.length-10, data.length), readFully(is));
+		}
+		System.err.println("Compressed size: "+compressed.length+", bytes read for skipping to end: "+bytesRead.get());
+		assertTrue(bytesRead.get()<compressed.length/4);
+	}
+	
+	private void assertRegionsEqual(byte[] data, GzipScanData scanData) throws IOException {
+		for ( int start : new int[] {0, 1, 4095, 4096, 4097, data.length/2, data.length-1} ) {
+			try ( InputStream is = scanData.getInputStream(n->true) ) {
+				assertEquals(start, is.skip(start));
+				byte[] expected = Arrays.copyOfRange(data, start, Math.min(data.length, start+10000));
+				byte[] actual = new byte[expected.length];
+				int offset = 0;
+				while ( offset<actual.length ) {
+					offset += is.read(actual, offset, actual.length-offset);
+				}
+				assertArrayEquals(expected, actual, "Region starting at "+start);
+			}
+		}
+	}
+	
+	private static final byte[] readSample() throws IOException {
+		return readFully(ClassLoader.getSystemResourceAsStream(SAMPLE_FILE));
+	}
+	
+	private static final byte[] readFully(InputStream is) throws IOException {
+		try ( InputStream in = is ) {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1000];
+			int n;
+			while ( (n=in.read(buffer))>=0 ) { bos.write(buffer, 0, n); }
+			return bos.toByteArray();
+		}
+	}
+	
+	/**
+	 * Compress the given data as a sequence of gzip members, each holding at most
+	 * the given number of uncompressed bytes
+	 */
+	private static final byte[] gzip(byte[] data, int memberSize) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		for ( int offset = 0 ; offset < data.length ; offset += memberSize ) {
+			// Closing a ByteArrayOutputStream has no effect, so we can append the next member
+			try ( GZIPOutputStream gos = new GZIPOutputStream(bos) ) {
+				gos.write(data, offset, Math.min(memberSize, data.length-offset));
+			}
+		}
+		return bos.toByteArray();
+	}
+	
+	private static final class BytesScanData implements ScanData {
+		private final byte[] data;
+		private final AtomicLong bytesRead;
+		
+		private BytesScanData(byte[] data, AtomicLong bytesRead) {
+			this.data = data;
+			this.bytesRead = bytesRead;
+		}
+
+		@Override
+		public String getSessionId() {
+			return null;
+		}
+
+		@Override
+		public List<ScanEntry> getScanEntries() {
+			return null;
+		}
+
+		@Override
+		public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+			return new FilterInputStream(new ByteArrayInputStream(data)) {
+				@Override
+				public int read() throws IOException {
+					int result = super.read();
+					if ( result>=0 ) { bytesRead.incrementAndGet(); }
+					return result;
+				}
+				
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int result = super.read(b, off, len);
+					if ( result>0 ) { bytesRead.addAndGet(result); }
+					return result;
+				}
+			};
+		}
+
+		@Override
+		public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+			return getInputStream(n->true);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+public class InstanceIdDigestTest {
+	@Test
+	void testStrings() {
+		assertString("");
+		assertString("0f5ad7f2-3c4e-4b8e-9c1a-0123456789ab");
+		assertString("café € 😀");
+		// Unpaired surrogates are encoded as '?', like String.getBytes(UTF_8)
+		assertString("high \ud83d only, low \ude00 only, reversed \ude00\ud83d");
+		assertString(null);
+		StringBuilder sb = new StringBuilder();
+		for ( int i = 0 ; i < 5000 ; i++ ) { sb.append((char)('a'+i%26)).append('é'); }
+		assertString(sb.toString());
+	}
+	
+	@Test
+	void testMaps() {
+		Map<String, String> map = new LinkedHashMap<>();
+		assertMap(map);
+		map.put("z", "1");
+		map.put("a", null);
+		map.put("primaryLocationLineHash", "abc:1");
+		map.put("é", "x");
+		map.put("B", "2");
+		assertMap(map);
+	}
+	
+	@Test
+	void testGeneratedId() {
+		Map<String, String> partialFingerprints = new HashMap<>();
+		partialFingerprints.put("primaryLocationLineHash", "39fa2ee980eb94b0:1");
+		String expected = DigestUtils.sha256Hex(String.join("|", "tool", "src/File.java", "RULE1", 
+				new TreeMap<>(partialFingerprints).toString(), null));
+		String actual = InstanceIdDigest.start().append("tool").append('|').append("src/File.java").append('|')
+				.append("RULE1").append('|').appendMap(partialFingerprints).append('|').append((String)null).toHex();
+		assertEquals(expected, actual);
+	}
+	
+	@Test
+	void testRandom() {
+		Random random = new Random(1);
+		for ( int i = 0 ; i < 10_000 ; i++ ) {
+			Map<String, String> map = new HashMap<>();
+			int size = random.nextInt(40);
+			for ( int j = 0 ; j < size ; j++ ) {
+				map.put(randomString(random), random.nextInt(10)==0 ? null : randomString(random));
+			}
+			assertMap(map);
+			assertString(randomString(random));
+		}
+	}
+	
+	private static String randomString(Random random) {
+		char[] chars = new char[random.nextInt(30)];
+		for ( int i = 0 ; i < chars.length ; i++ ) {
+			switch ( random.nextInt(4) ) {
+			case 0: chars[i] = (char)random.nextInt(0x80); break;
+			case 1: chars[i] = (char)random.nextInt(0x800); break;
+			case 2: chars[i] = (char)(0xd800+random.nextInt(0x800)); break;
+			default: chars[i] = (char)random.nextInt(0x10000); break;
+			}
+		}
+		return new String(chars);
+	}
+	
+	private static void assertString(String s) {
+		assertEquals(DigestUtils.sha256Hex(String.valueOf(s)), InstanceIdDigest.start().append(s).toHex());
+	}
+	
+	private static void assertMap(Map<String, String> map) {
+		assertEquals(DigestUtils.sha256Hex(new TreeMap<>(map).toString()), InstanceIdDigest.start().appendMap(map).toHex());
+	}
+}
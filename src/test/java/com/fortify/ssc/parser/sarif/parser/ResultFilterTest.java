@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fortify.plugin.api.BasicVulnerabilityBuilder.Priority;
+import com.fortify.ssc.parser.sarif.SARIFParserConfig;
+import com.fortify.ssc.parser.sarif.domain.Level;
+import com.fortify.ssc.parser.sarif.domain.Result;
+import com.fortify.ssc.parser.sarif.domain.ResultReader;
+
+public class ResultFilterTest {
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	
+	@Test
+	void testNoFilters() {
+		assertNull(ResultFilter.compile(new SARIFParserConfig()));
+	}
+	
+	@Test
+	void testPaths() {
+		ResultFilter filter = ResultFilter.compile(new SARIFParserConfig()
+				.setIncludePaths(new LinkedHashSet<>(Arrays.asList("src/**", "*.java")))
+				.setExcludePaths(Collections.singleton("**/test/**")));
+		assertTrue(filter.acceptsPath("src/main/A.java"));
+		assertTrue(filter.acceptsPath("src\\main\\A.java"));
+		assertTrue(filter.acceptsPath("A.java"));
+		assertFalse(filter.acceptsPath("lib/A.java"));
+		assertFalse(filter.acceptsPath("src/test/A.java"));
+		assertFalse(filter.acceptsPath("src/main/test/A.java"));
+		assertFalse(filter.acceptsPath(null));
+		assertFalse(ResultFilter.compile(new SARIFParserConfig().setExcludePaths(Collections.singleton("**/*.min.js")))
+				.acceptsPath("a/b.min.js"));
+		assertTrue(ResultFilter.compile(new SARIFParserConfig().setExcludePaths(Collections.singleton("**/*.min.js")))
+				.acceptsPath("a/bamin.js"));
+	}
+	
+	@Test
+	void testLevelAndPriority() {
+		ResultFilter filter = ResultFilter.compile(new SARIFParserConfig()
+				.setMinimumLevel(Level.warning).setMinimumPriority(Priority.High));
+		assertTrue(filter.acceptsLevel(Level.error));
+		assertTrue(filter.acceptsLevel(Level.warning));
+		assertFalse(filter.acceptsLevel(Level.note));
+		assertFalse(filter.acceptsLevel(Level.none));
+		assertTrue(filter.acceptsPriority(Priority.Critical));
+		assertFalse(filter.acceptsPriority(Priority.Medium));
+		assertTrue(filter.rejects("level", "note"));
+		assertFalse(filter.rejects("level", "invalid"));
+	}
+	
+	@Test
+	void testRuleIds() {
+		ResultFilter filter = ResultFilter.compile(new SARIFParserConfig()
+				.setIncludeRuleIds(new LinkedHashSet<>(Arrays.asList("R1", "R2")))
+				.setExcludeRuleIds(Collections.singleton("R2")));
+		assertTrue(filter.acceptsRuleId("R1"));
+		assertFalse(filter.acceptsRuleId("R2"));
+		assertFalse(filter.acceptsRuleId("R3"));
+		assertFalse(filter.acceptsRuleId(null));
+		assertTrue(filter.rejects("ruleId", "R3"));
+	}
+	
+	@Test
+	void testResultProperties() throws Exception {
+		ResultFilter filter = ResultFilter.compile(new SARIFParserConfig()
+				.setExcludeBaselineStates(Collections.singleton("unchanged")).setExcludeSuppressed(true));
+		ResultReader reader = new ResultReader(4, filter);
+		assertTrue(read(reader, "{\"ruleId\":\"R1\",\"baselineState\":\"unchanged\",\"message\":{\"text\":\"m\"}}").isRejected());
+		Result late = read(reader, "{\"ruleId\":\"R1\",\"a\":1,\"b\":2,\"c\":3,\"baselineState\":\"unchanged\"}");
+		assertFalse(late.isRejected());
+		assertFalse(filter.acceptsResult(late));
+		assertTrue(filter.acceptsResult(read(reader, "{\"ruleId\":\"R1\",\"baselineState\":\"new\"}")));
+		assertFalse(filter.acceptsResult(read(reader, "{\"suppressions\":[{\"kind\":\"inSource\"}]}")));
+		assertFalse(filter.acceptsResult(read(reader, "{\"suppressions\":[{\"kind\":\"external\",\"status\":\"accepted\"}]}")));
+		assertTrue(filter.acceptsResult(read(reader, "{\"suppressions\":[{\"kind\":\"external\",\"status\":\"rejected\"},{\"status\":\"underReview\"}]}")));
+		assertTrue(filter.acceptsResult(read(reader, "{\"suppressions\":[]}")));
+	}
+	
+	private static Result read(ResultReader reader, String json) throws Exception {
+		try ( JsonParser jsonParser = MAPPER.getFactory().createParser(json) ) {
+			jsonParser.nextToken();
+			return reader.read(jsonParser);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fortify.plugin.api.ScanData;
+import com.fortify.plugin.api.ScanEntry;
+import com.fortify.plugin.api.StaticVulnerabilityBuilder;
+import com.fortify.plugin.api.VulnerabilityHandler;
+import com.fortify.ssc.parser.sarif.SARIFParserConfig;
+import com.fortify.ssc.parser.sarif.SARIFParserPlugin;
+import com.fortify.ssc.parser.sarif.SarifGenerator;
+import com.fortify.ssc.parser.sarif.SarifGenerator.Options;
+import com.fortify.ssc.parser.sarif.domain.ResultCheckpoints;
+import com.fortify.ssc.parser.sarif.domain.RunData;
+import com.fortify.ssc.parser.sarif.metrics.ParserMetrics;
+import com.fortify.ssc.parser.sarif.store.HeapRunDataStore;
+
+class ShardedResultProcessorTest {
+	private static final int RESULTS = 3000;
+	
+	/**
+	 * Shard a generated <code>results</code> array that follows the <code>tool</code>
+	 * property but precedes the <code>artifacts</code> property, with the given number
+	 * of leading results not referring to any artifact. These leading results are 
+	 * processed while reading the run, after which the remaining results are processed 
+	 * in shards. The produced vulnerabilities should be identical to the vulnerabilities 
+	 * produced by the default sequential configuration.
+	 */
+	@ParameterizedTest
+	@ValueSource(longs = {0, 1, 1000, RESULTS-1})
+	void testStreamedLeadingResults(long streamedResultCount) throws Exception {
+		System.err.println("\n\n---- sharded results, streamed leading results: "+streamedResultCount);
+		Options options = new Options().setResultsPerRun(RESULTS).setUriBaseIdDepth(0)
+				.setArtifactsAfterResults(true).setFirstArtifactIndexResult(streamedResultCount);
+		ScanData scanData = getScanData(options);
+		List<String> expectedCalls = new ArrayList<>();
+		new SARIFParserPlugin(new SARIFParserConfig()).parseVulnerabilities(scanData, getRecordingVulnerabilityHandler(expectedCalls));
+		assertEquals(RESULTS, expectedCalls.stream().filter(call->call.startsWith("startStaticVulnerability")).count());
+		
+		List<String> actualCalls = new ArrayList<>();
+		SARIFParserConfig config = new SARIFParserConfig();
+		VulnerabilitiesProducer producer = new VulnerabilitiesProducer(getRecordingVulnerabilityHandler(actualCalls), new ParserMetrics("test", "test"), config);
+		try ( ShardedResultProcessor processor = new ShardedResultProcessor(producer, scanData, 4, 16) ) {
+			new SarifScanDataStreamingJsonParser()
+				.handler("/runs/*", jp->{
+					try ( HeapRunDataStore store = new HeapRunDataStore() ) {
+						RunData runData = RunData.parseRunData(store, jp, processor, 0, 4096);
+						assertEquals(streamedResultCount, runData.getStreamedResultCount());
+						ResultCheckpoints checkpoints = runData.getResultCheckpoints();
+						assertEquals(RESULTS, checkpoints.getResultCount());
+						assertTrue(checkpoints.size()>=2, "Multiple checkpoints");
+						assertTrue(processor.processResults(runData), "Results processed in shards");
+						processor.endResults();
+					}
+				})
+				.parse(scanData);
+		}
+		assertEquals(expectedCalls, actualCalls);
+	}
+	
+	/**
+	 * Checkpoints should only be recorded if results are actually sharded; entry
+	 * parsers for multi-document uploads and concurrent run processing never shard.
+	 */
+	@Test
+	void testResultCheckpointInterval() throws Exception {
+		ScanData scanData = getScanData(new Options().setResultsPerRun(1));
+		ScanEntry scanEntry = (ScanEntry) Proxy.newProxyInstance(ShardedResultProcessorTest.class.getClassLoader(), 
+				new Class[] { ScanEntry.class }, (proxy, method, args) -> "getEntryName".equals(method.getName()) ? "entry.sarif" : null);
+		SARIFParserConfig config = new SARIFParserConfig().setResultShardingThreads(4).setResultShardMinBytes(4096);
+		assertEquals(4096, VulnerabilitiesParser.getResultCheckpointInterval(config, scanData));
+		assertEquals(0, VulnerabilitiesParser.getResultCheckpointInterval(config, new ScanEntryScanData(scanData, scanEntry)));
+		assertEquals(0, VulnerabilitiesParser.getResultCheckpointInterval(config.setRunProcessingThreads(2), scanData));
+		assertEquals(0, VulnerabilitiesParser.getResultCheckpointInterval(new SARIFParserConfig(), scanData));
+	}
+	
+	private static final ScanData getScanData(Options options) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		new SarifGenerator(options).write(bos);
+		byte[] sarif = bos.toByteArray();
+		return new ScanData() {
+			@Override
+			public String getSessionId() {
+				return "generated";
+			}
+			
+			@Override
+			public List<ScanEntry> getScanEntries() {
+				return null;
+			}
+			
+			@Override
+			public InputStream getInputStream(Predicate<String> matcher) throws IOException {
+				return new ByteArrayInputStream(sarif);
+			}
+			
+			@Override
+			public InputStream getInputStream(ScanEntry scanEntry) throws IOException {
+				return new ByteArrayInputStream(sarif);
+			}
+		};
+	}
+	
+	private static final VulnerabilityHandler getRecordingVulnerabilityHandler(List<String> calls) {
+		return instanceId -> {
+			calls.add("startStaticVulnerability: "+instanceId);
+			return (StaticVulnerabilityBuilder)Proxy.newProxyInstance(ShardedResultProcessorTest.class.getClassLoader(), 
+					new Class<?>[] {StaticVulnerabilityBuilder.class}, (proxy, method, args) -> {
+						calls.add(method.getName()+": "+Arrays.deepToString(args)); 
+						return null;
+					});
+		};
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.fortify.ssc.parser.sarif.metrics.ParserMetrics;
+
+public class StringPoolTest {
+	@Test
+	void testIntern() {
+		ParserMetrics metrics = new ParserMetrics("test", null);
+		StringPool pool = new StringPool(100, metrics);
+		assertEquals(128, pool.getMaxIndexedEntries());
+		String first = new String("src/main/java/Test.java");
+		assertSame(first, pool.intern(first));
+		assertSame(first, pool.intern(new String(first)));
+		assertSame(first, pool.intern(first));
+		assertNull(pool.intern(null));
+		assertEquals(1, metrics.getStringPoolHits());
+		assertEquals(1, metrics.getStringPoolMisses());
+		assertEquals(40+2*first.length(), metrics.getStringPoolBytesSaved());
+		System.err.println(metrics.toSummary());
+	}
+	
+	@Test
+	void testBounded() {
+		ParserMetrics metrics = new ParserMetrics("test", null);
+		StringPool pool = new StringPool(16, metrics);
+		String[] first = new String[8];
+		for ( int i = 0 ; i < 10_000 ; i++ ) {
+			String value = pool.intern(new String("value"+(i%8)));
+			if ( i<8 ) {
+				first[i] = value;
+			} else {
+				assertSame(first[i%8], value);
+			}
+		}
+		assertEquals(16, pool.getMaxIndexedEntries());
+		assertEquals(8, metrics.getStringPoolMisses());
+		assertTrue(metrics.getStringPoolHits() >= 10_000-8);
+		System.err.println(metrics.toSummary());
+	}
+	
+	@Test
+	void testDisabled() {
+		ParserMetrics metrics = new ParserMetrics("test", null);
+		StringPool pool = new StringPool(0, metrics);
+		String value = new String("value");
+		assertSame(value, pool.intern(value));
+		String copy = new String("value");
+		assertSame(copy, pool.intern(copy));
+		assertEquals(0, pool.getMaxIndexedEntries());
+		assertEquals(0, metrics.getStringPoolHits()+metrics.getStringPoolMisses());
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+import com.fortify.plugin.api.VulnerabilityHandler;
+import com.fortify.util.ssc.parser.HandleDuplicateIdVulnerabilityHandler;
+
+public class UniqueIdVulnerabilityHandlerTest {
+	@Test
+	void testDuplicateIds() {
+		String hexId = DigestUtils.sha256Hex("1");
+		List<String> ids = uniqueIds(hexId, hexId, "a", "a", "a-1", "a", hexId+"-1", hexId, hexId.toUpperCase(), hexId.toUpperCase());
+		assertEquals(expectedIds(hexId, hexId, "a", "a", "a-1", "a", hexId+"-1", hexId, hexId.toUpperCase(), hexId.toUpperCase()), ids);
+		assertEquals("a-2", ids.get(5));
+		assertEquals(hexId+"-1-1", ids.get(6));
+	}
+	
+	@Test
+	void testRandom() {
+		Random random = new Random(1);
+		String[] ids = new String[200_000];
+		for ( int i = 0 ; i < ids.length ; i++ ) {
+			ids[i] = DigestUtils.sha256Hex(Integer.toString(random.nextInt(ids.length)));
+		}
+		assertEquals(expectedIds(ids), uniqueIds(ids));
+	}
+	
+	private static List<String> uniqueIds(String... ids) {
+		return startVulnerabilities(UniqueIdVulnerabilityHandler::new, ids);
+	}
+	
+	/**
+	 * Reference implementation provided by fortify-ssc-parser-util
+	 */
+	private static List<String> expectedIds(String... ids) {
+		return startVulnerabilities(HandleDuplicateIdVulnerabilityHandler::new, ids);
+	}
+	
+	private static List<String> startVulnerabilities(Function<VulnerabilityHandler, VulnerabilityHandler> handlerFactory, String... ids) {
+		List<String> result = new ArrayList<>();
+		VulnerabilityHandler target = (VulnerabilityHandler)Proxy.newProxyInstance(VulnerabilityHandler.class.getClassLoader(), 
+				new Class<?>[] {VulnerabilityHandler.class}, (proxy, method, args) -> {result.add((String)args[0]); return null;});
+		VulnerabilityHandler handler = handlerFactory.apply(target);
+		for ( String id : ids ) { handler.startStaticVulnerability(id); }
+		return result;
+	}
+}
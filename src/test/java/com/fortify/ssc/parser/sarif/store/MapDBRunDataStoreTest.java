@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mapdb.Serializer;
+
+import com.fortify.ssc.parser.sarif.store.MapDBRunDataStore.SharedDB;
+
+public class MapDBRunDataStoreTest {
+	@Test
+	void testSharedDBStoresAreIsolated() {
+		try ( SharedDB sharedDB = SharedDB.tempFile() ) {
+			try ( MapDBRunDataStore store1 = sharedDB.createStore(); MapDBRunDataStore store2 = sharedDB.createStore() ) {
+				List<String> list1 = store1.createList("list", Serializer.STRING);
+				List<String> list2 = store2.createList("list", Serializer.STRING);
+				Map<String, Integer> map1 = store1.createIndexMap("map");
+				Map<String, Integer> map2 = store2.createIndexMap("map");
+				list1.add("store1");
+				list2.add("store2");
+				map1.put("key", 1);
+				map2.put("key", 2);
+				assertEquals("store1", list1.get(0));
+				assertEquals("store2", list2.get(0));
+				assertEquals(1, map1.get("key"));
+				assertEquals(2, map2.get("key"));
+			}
+		}
+	}
+	
+	@Test
+	void testSharedDBReusesStorage() {
+		try ( SharedDB sharedDB = SharedDB.directMemory() ) {
+			for ( int run = 0 ; run < 100 ; run++ ) {
+				List<String> list;
+				Map<String, Integer> map;
+				try ( MapDBRunDataStore store = sharedDB.createStore() ) {
+					list = store.createList("list", Serializer.STRING);
+					map = store.createIndexMap("map");
+					for ( int i = 0 ; i < 50 ; i++ ) {
+						list.add("run"+run+"entry"+i);
+						map.put("key"+i, i);
+					}
+					assertEquals(50, list.size());
+					assertTrue(store.getStorageBytes()>0);
+				}
+				// Closing a shared store releases its entries for re-use by subsequent stores
+				assertEquals(0, list.size());
+				assertEquals(0, map.size());
+			}
+		}
+	}
+	
+	@Test
+	void testSharedDBReusesNamespaces() {
+		try ( SharedDB sharedDB = SharedDB.tempFile() ) {
+			long storageBytes = -1;
+			for ( int run = 0 ; run < 100 ; run++ ) {
+				try ( MapDBRunDataStore store1 = sharedDB.createStore(); MapDBRunDataStore store2 = sharedDB.createStore() ) {
+					List<String> list1 = store1.createList("list", Serializer.STRING);
+					List<String> list2 = store2.createList("list", Serializer.STRING);
+					Map<String, Integer> map1 = store1.createIndexMap("map");
+					list2.add("store2");
+					for ( int i = 0 ; i < 50 ; i++ ) {
+						list1.add("entry"+i);
+						map1.put("key"+i, i);
+					}
+					assertEquals(50, list1.size());
+					assertEquals("entry49", list1.get(49));
+					assertEquals(49, map1.get("key49"));
+					assertEquals(1, list2.size());
+					if ( storageBytes<0 ) { storageBytes = store1.getStorageBytes(); }
+					// Storage bytes only cover the entries written by the current store
+					assertEquals(storageBytes, store1.getStorageBytes());
+				}
+			}
+			// Only concurrently open stores require a separate namespace
+			assertEquals(2, sharedDB.getNamespaceCount());
+		}
+	}
+}
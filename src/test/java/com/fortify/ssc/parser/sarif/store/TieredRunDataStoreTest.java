@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * (c) Copyright 2020 Micro Focus or one of its affiliates
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a 
+ * copy of this software and associated documentation files (the 
+ * "Software"), to deal in the Software without restriction, including without 
+ * limitation the rights to use, copy, modify, merge, publish, distribute, 
+ * sublicense, and/or sell copies of the Software, and to permit persons to 
+ * whom the Software is furnished to do so, subject to the following 
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included 
+ * in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY 
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE 
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, 
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS 
+ * IN THE SOFTWARE.
+ ******************************************************************************/
+package com.fortify.ssc.parser.sarif.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mapdb.Serializer;
+
+import com.fortify.ssc.parser.sarif.store.TieredRunDataStore.Tier;
+
+public class TieredRunDataStoreTest {
+	@Test
+	void testSpillToNextTiers() {
+		try ( TieredRunDataStore store = new TieredRunDataStore(
+				new Tier("heap", HeapRunDataStore::new, 10, Long.MAX_VALUE),
+				new Tier("direct", MapDBRunDataStore::directMemory, Long.MAX_VALUE, 1024),
+				new Tier("file", MapDBRunDataStore::tempFile)) ) {
+			List<String> list = store.createList("list", Serializer.STRING);
+			Map<String, Integer> map = store.createIndexMap("map");
+			addEntries(list, map, 0, 5);
+			assertEquals("heap", store.getCurrentTierName());
+			addEntries(list, map, 5, 10);
+			assertEquals("direct", store.getCurrentTierName());
+			addEntries(list, map, 10, 200);
+			assertEquals("file", store.getCurrentTierName());
+			assertEntries(list, map, 200);
+		}
+	}
+	
+	@Test
+	void testSkipTiers() {
+		try ( TieredRunDataStore store = new TieredRunDataStore(
+				new Tier("heap", HeapRunDataStore::new, Long.MAX_VALUE, 16),
+				new Tier("direct", MapDBRunDataStore::directMemory, Long.MAX_VALUE, 16),
+				new Tier("file", MapDBRunDataStore::tempFile)) ) {
+			List<String> list = store.createList("list", Serializer.STRING);
+			Map<String, Integer> map = store.createIndexMap("map");
+			addEntries(list, map, 0, 1);
+			list.add("Entry that exceeds the byte thresholds of both the heap and direct tiers");
+			assertEquals("file", store.getCurrentTierName());
+			assertEquals(2, list.size());
+		}
+	}
+
+	private void addEntries(List<String> list, Map<String, Integer> map, int from, int to) {
+		for ( int i = from ; i < to ; i++ ) {
+			list.add("entry"+i);
+			map.put("key"+i, i);
+		}
+	}
+	
+	private void assertEntries(List<String> list, Map<String, Integer> map, int count) {
+		assertEquals(count, list.size());
+		assertEquals(count, map.size());
+		for ( int i = 0 ; i < count ; i++ ) {
+			assertEquals("entry"+i, list.get(i));
+			assertEquals(i, map.get("key"+i));
+		}
+	}
+}